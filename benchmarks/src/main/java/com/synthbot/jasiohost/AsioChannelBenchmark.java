@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the conversion of one buffer between <code>float</code>s or <code>double</code>s and each
+ * <code>AsioSampleType</code>, as done by <code>AsioChannel.read()</code> and <code>write()</code> once
+ * per channel and callback. The channels operate on synthetic direct <code>ByteBuffer</code>s, as
+ * allocated by a driver. The output and input share their buffers, such that the input reads valid
+ * samples of the sample type. Each operation includes the <code>setBufferIndex()</code> which the driver
+ * makes before every callback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsioChannelBenchmark {
+
+  @Param // all sample types
+  public AsioSampleType sampleType;
+
+  /** The buffer size, in frames. */
+  @Param({"32", "256", "1024", "4096"})
+  public int frames;
+
+  private AsioChannel output;
+  private AsioChannel input;
+  private float[] floats;
+  private double[] doubles;
+
+  @Setup
+  public void setup() {
+    ByteBuffer buffer0 = ByteBuffer.allocateDirect(frames * sampleType.getBytesPerSample());
+    ByteBuffer buffer1 = ByteBuffer.allocateDirect(frames * sampleType.getBytesPerSample());
+    output = new AsioChannel(0, false, true, 0, sampleType, "Output 1");
+    output.setByteBuffers(buffer0, buffer1);
+    input = new AsioChannel(0, true, true, 0, sampleType, "Input 1");
+    input.setByteBuffers(buffer0, buffer1);
+
+    // one PCM sample per buffer frame, or per packed byte of DSD
+    int samples = (sampleType == AsioSampleType.ASIOSTDSDInt8NER8) ? frames / 8 : frames;
+    floats = new float[samples];
+    doubles = new double[samples];
+    for (int i = 0; i < samples; i++) {
+      floats[i] = (float) (0.5 * Math.sin(2.0 * Math.PI * 440.0 * i / 48000.0));
+      doubles[i] = floats[i];
+    }
+    output.setBufferIndex(0);
+    output.write(floats);
+  }
+
+  @Benchmark
+  public void writeFloat() {
+    output.setBufferIndex(0);
+    output.write(floats);
+  }
+
+  @Benchmark
+  public float[] readFloat() {
+    input.setBufferIndex(0);
+    input.read(floats);
+    return floats;
+  }
+
+  @Benchmark
+  public void writeDouble() {
+    output.setBufferIndex(0);
+    output.write(doubles);
+  }
+
+  @Benchmark
+  public double[] readDouble() {
+    input.setBufferIndex(0);
+    input.read(doubles);
+    return doubles;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of each <code>AsioDitherType</code> when writing one buffer to an output with an
+ * integer sample type. <code>NONE</code> is the cost of saturation alone, and the difference to the
+ * other modes is the cost of generating dither and rounding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsioDitherBenchmark {
+
+  @Param({"ASIOSTInt16LSB", "ASIOSTInt24LSB", "ASIOSTInt32LSB24", "ASIOSTInt32LSB"})
+  public AsioSampleType sampleType;
+
+  @Param // all dither types
+  public AsioDitherType ditherType;
+
+  /** The buffer size, in frames. */
+  @Param({"512"})
+  public int frames;
+
+  private AsioChannel output;
+  private float[] floats;
+  private double[] doubles;
+
+  @Setup
+  public void setup() {
+    ByteBuffer buffer0 = ByteBuffer.allocateDirect(frames * sampleType.getBytesPerSample());
+    ByteBuffer buffer1 = ByteBuffer.allocateDirect(frames * sampleType.getBytesPerSample());
+    output = new AsioChannel(0, false, true, 0, sampleType, "Output 1");
+    output.setByteBuffers(buffer0, buffer1);
+    output.setDitherType(ditherType);
+    floats = new float[frames];
+    doubles = new double[frames];
+    for (int i = 0; i < frames; i++) {
+      floats[i] = (float) (0.5 * Math.sin(2.0 * Math.PI * 440.0 * i / 48000.0));
+      doubles[i] = floats[i];
+    }
+  }
+
+  @Benchmark
+  public void writeFloat() {
+    output.setBufferIndex(0);
+    output.write(floats);
+  }
+
+  @Benchmark
+  public void writeDouble() {
+    output.setBufferIndex(0);
+    output.write(doubles);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of one <code>bufferSwitch()</code> callback in <code>AsioDriver</code>, from the
+ * entry of the callback to the return to the driver, with the given numbers of listeners and active
+ * channels. The listeners do no work, such that only the dispatch, timing and housekeeping of the
+ * driver are measured. The driver runs on a <code>SimulatedAsioBackend</code> in offline mode, and each
+ * operation makes the callback which <code>render()</code> would make.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsioDriverDispatchBenchmark {
+
+  private static final double SAMPLE_RATE = 48000.0;
+  private static final int FLAGS = AsioTimeInfo.SYSTEM_TIME_VALID | AsioTimeInfo.SAMPLE_POSITION_VALID |
+      AsioTimeInfo.SAMPLE_RATE_VALID | AsioTimeInfo.SPEED_VALID;
+
+  @Param({"1", "4", "16", "64"})
+  public int numListeners;
+
+  /** The number of active channels, half of which are inputs and half outputs. */
+  @Param({"2", "16", "64", "256"})
+  public int numChannels;
+
+  private AsioDriver driver;
+  private int bufferSize;
+  private long samplePosition;
+  private int bufferIndex;
+
+  @Setup
+  public void setup(final Blackhole blackhole) {
+    SimulatedAsioBackend backend = new SimulatedAsioBackend();
+    backend.setChannels(numChannels / 2, numChannels / 2);
+    backend.setOffline(true);
+    AsioDriver.setBackend(backend);
+    driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+    for (int i = 0; i < numListeners; i++) {
+      driver.addAsioDriverListener(new AsioDriverListener() {
+        public void bufferSwitch(long systemTime, long samplePosition, Set<AsioChannel> activeChannels) {
+          blackhole.consume(samplePosition);
+        }
+        public void sampleRateDidChange(double sampleRate) {}
+        public void resetRequest() {}
+        public void resyncRequest() {}
+        public void bufferSizeChanged(int bufferSize) {}
+        public void latenciesChanged(int inputLatency, int outputLatency) {}
+      });
+    }
+    Set<AsioChannel> channels = new HashSet<AsioChannel>();
+    for (int i = 0; i < driver.getNumChannelsInput(); i++) {
+      channels.add(driver.getChannelInput(i));
+    }
+    for (int i = 0; i < driver.getNumChannelsOutput(); i++) {
+      channels.add(driver.getChannelOutput(i));
+    }
+    driver.createBuffers(channels);
+    driver.start();
+    bufferSize = driver.getBufferSize();
+    samplePosition = 0L;
+    bufferIndex = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    driver.shutdownAndUnloadDriver();
+  }
+
+  @Benchmark
+  public void bufferSwitch() {
+    driver.fireBufferSwitch((long) (samplePosition * 1e9 / SAMPLE_RATE), samplePosition, bufferIndex,
+        SAMPLE_RATE, 1.0, FLAGS, 0.0, 0L, 0);
+    samplePosition += bufferSize;
+    bufferIndex ^= 1;
+  }
+}
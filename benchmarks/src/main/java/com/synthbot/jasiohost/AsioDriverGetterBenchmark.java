@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the getters of <code>AsioDriver</code> when called from several threads at once, e.g. from
+ * the audio thread and a user interface. The getters which are synchronized on the driver are compared
+ * with those which read cached volatile fields, both among readers alone and while a control thread
+ * repeatedly takes the lock of the driver. The driver runs on a <code>SimulatedAsioBackend</code>, which
+ * adds no cost of its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsioDriverGetterBenchmark {
+
+  private AsioDriver driver;
+
+  @Setup
+  public void setup() {
+    AsioDriver.setBackend(new SimulatedAsioBackend());
+    driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+  }
+
+  @TearDown
+  public void tearDown() {
+    driver.shutdownAndUnloadDriver();
+  }
+
+  private void readSynchronized(Blackhole blackhole) {
+    blackhole.consume(driver.getBufferMinSize());
+    blackhole.consume(driver.getBufferMaxSize());
+    blackhole.consume(driver.getBufferGranularity());
+    blackhole.consume(driver.getChannelOutput(0));
+  }
+
+  private void readVolatile(Blackhole blackhole) {
+    blackhole.consume(driver.getBufferPreferredSize());
+    blackhole.consume(driver.getSampleRate());
+    blackhole.consume(driver.getLatencyOutput());
+    blackhole.consume(driver.getCurrentState());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void synchronizedGetters(Blackhole blackhole) {
+    readSynchronized(blackhole);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void volatileGetters(Blackhole blackhole) {
+    readVolatile(blackhole);
+  }
+
+  @Benchmark
+  @Group("synchronizedWithControl")
+  @GroupThreads(3)
+  public void synchronizedReader(Blackhole blackhole) {
+    readSynchronized(blackhole);
+  }
+
+  @Benchmark
+  @Group("synchronizedWithControl")
+  @GroupThreads(1)
+  public boolean synchronizedControl() {
+    return driver.canSampleRate(48000.0);
+  }
+
+  @Benchmark
+  @Group("volatileWithControl")
+  @GroupThreads(3)
+  public void volatileReader(Blackhole blackhole) {
+    readVolatile(blackhole);
+  }
+
+  @Benchmark
+  @Group("volatileWithControl")
+  @GroupThreads(1)
+  public boolean volatileControl() {
+    return driver.canSampleRate(48000.0);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of metering an input, as the difference between reading one buffer with metering
+ * disabled, with peak and RMS metering, and with true-peak metering as well. The window is one buffer
+ * long, such that the true-peak interpolation of every buffer starts from zero and is never skipped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsioLevelMeterBenchmark {
+
+  @Param({"ASIOSTFloat32LSB", "ASIOSTInt24LSB"})
+  public AsioSampleType sampleType;
+
+  @Param({"OFF", "PEAK_RMS", "TRUE_PEAK"})
+  public String metering;
+
+  /** The buffer size, in frames. */
+  @Param({"512"})
+  public int frames;
+
+  private AsioChannel input;
+  private float[] floats;
+
+  @Setup
+  public void setup() {
+    ByteBuffer buffer0 = ByteBuffer.allocateDirect(frames * sampleType.getBytesPerSample());
+    ByteBuffer buffer1 = ByteBuffer.allocateDirect(frames * sampleType.getBytesPerSample());
+    AsioChannel output = new AsioChannel(0, false, true, 0, sampleType, "Output 1");
+    output.setByteBuffers(buffer0, buffer1);
+    input = new AsioChannel(0, true, true, 0, sampleType, "Input 1");
+    input.setByteBuffers(buffer0, buffer1);
+    floats = new float[frames];
+    for (int i = 0; i < frames; i++) {
+      floats[i] = (float) (0.5 * Math.sin(2.0 * Math.PI * 440.0 * i / 48000.0));
+    }
+    output.setBufferIndex(0);
+    output.write(floats);
+
+    if (!metering.equals("OFF")) {
+      input.setMeteringEnabled(true);
+      input.getLevelMeter().setTruePeakEnabled(metering.equals("TRUE_PEAK"));
+      input.getLevelMeter().setWindowLength(frames);
+    }
+  }
+
+  @Benchmark
+  public float[] readFloat() {
+    input.setBufferIndex(0);
+    input.read(floats);
+    return floats;
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * This interface receives the reports of an <code>AsioAllocationWatchdog</code>.
+ */
+public interface AsioAllocationListener {
+
+  /**
+   * An <code>AsioDriverListener</code> allocated memory during <code>bufferSwitch()</code>. Reports are
+   * made on the watchdog's reporting thread, never on the audio thread, and at most once per report
+   * interval for each listener.
+   * @param listener  The listener which allocated.
+   * @param bytes  The number of bytes which it allocated since its last report.
+   * @param callbacks  The number of callbacks in which it allocated since its last report.
+   */
+  public void allocationDetected(AsioDriverListener listener, long bytes, long callbacks);
+}
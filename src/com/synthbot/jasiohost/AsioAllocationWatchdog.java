@@ -0,0 +1,315 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The <code>AsioAllocationWatchdog</code> detects <code>AsioDriverListener</code>s which allocate memory
+ * during <code>bufferSwitch()</code>. Allocation on the audio thread eventually causes garbage
+ * collection, and with it dropouts. Each <code>AsioDriver</code> has one watchdog, returned by
+ * <code>getAllocationWatchdog()</code>, which is disabled by default.<br>
+ * <br>
+ * While enabled, the number of bytes allocated by the audio thread is read with
+ * <code>com.sun.management.ThreadMXBean.getThreadAllocatedBytes()</code> before the listeners are
+ * called and after each one returns, and the difference is attributed to the listener. Some JVMs
+ * allocate within <code>getThreadAllocatedBytes()</code> itself, and so the cost of one reading is
+ * measured on the audio thread when the watchdog is enabled and subtracted from each difference.<br>
+ * <br>
+ * Offending listeners are reported to the <code>AsioAllocationListener</code>s on a separate daemon
+ * thread, at most once per report interval. In strict mode, intended for tests, the first allocation
+ * is also recorded as an <code>AssertionError</code>, which is thrown by <code>assertNoAllocation()</code>
+ * on the thread of the test, and by <code>SimulatedAsioBackend.render()</code>. It is never thrown on the
+ * audio thread: the native library does not check for a pending exception when a callback returns.
+ */
+public final class AsioAllocationWatchdog {
+
+  /** The default interval between reports, in milliseconds. */
+  public static final long DEFAULT_REPORT_INTERVAL = 1000L;
+
+  private final AsioDriver driver;
+  private final CopyOnWriteArrayList<AsioAllocationListener> listeners;
+  private volatile boolean isEnabled;
+  private volatile boolean isStrict;
+  private volatile long reportInterval;
+  private volatile Thread reporter;
+  private volatile boolean isShutdown;
+  private volatile AssertionError failure; // the first allocation in strict mode
+
+  // the state of the audio thread
+  private boolean isWatching; // true if the current callback is being watched
+  private long overhead; // the number of bytes allocated by one reading, or -1 if not yet measured
+  private long threadId;
+  private long lastAllocatedBytes;
+  private AssertionError pendingFailure;
+
+  AsioAllocationWatchdog(AsioDriver driver) {
+    this.driver = driver;
+    listeners = new CopyOnWriteArrayList<AsioAllocationListener>();
+    reportInterval = DEFAULT_REPORT_INTERVAL;
+    overhead = -1L;
+  }
+
+  /**
+   * Returns true if the JVM can measure the memory allocated by a thread. Otherwise the watchdog
+   * cannot be enabled.
+   */
+  public boolean isSupported() {
+    try {
+      return AllocationCounter.THREAD_MX_BEAN != null;
+    } catch (LinkageError e) {
+      return false; // the jdk.management module is not present
+    }
+  }
+
+  public boolean isEnabled() {
+    return isEnabled;
+  }
+
+  /**
+   * Enables or disables the watchdog. It may be enabled at any time, and takes effect from the next
+   * callback. The cost while enabled is one reading of the allocated bytes per listener, plus one.
+   * @param enabled  <code>true</code> to watch the listeners for allocation.
+   * @throws UnsupportedOperationException  Thrown if the watchdog is to be enabled but
+   * <code>isSupported()</code> is false.
+   */
+  public synchronized void setEnabled(boolean enabled) {
+    if (enabled) {
+      if (!isSupported()) {
+        throw new UnsupportedOperationException(
+            "This JVM cannot measure the memory allocated by a thread.");
+      }
+      AllocationCounter.enable();
+    }
+    isEnabled = enabled;
+  }
+
+  public boolean isStrict() {
+    return isStrict;
+  }
+
+  /**
+   * Enables or disables strict mode, which is intended for tests. In strict mode, the first allocation
+   * by a listener is recorded as an <code>AssertionError</code> for <code>assertNoAllocation()</code>.
+   * Strict mode has no effect unless the watchdog is enabled.
+   * @param strict  <code>true</code> to fail on any allocation.
+   */
+  public void setStrict(boolean strict) {
+    isStrict = strict;
+  }
+
+  /**
+   * Throws the <code>AssertionError</code> of the first allocation detected in strict mode, if any.
+   * This is intended to be called by a test once the driver has been stopped, so that the failure is
+   * reported on the thread of the test rather than the audio thread.
+   * @throws AssertionError  Thrown if a listener allocated during a callback in strict mode.
+   */
+  public void assertNoAllocation() {
+    AssertionError failure = this.failure;
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  public long getReportInterval() {
+    return reportInterval;
+  }
+
+  /**
+   * Sets the minimum interval between reports.
+   * @param millis  The interval in milliseconds.
+   * @throws IllegalArgumentException  Thrown if the interval is not positive.
+   */
+  public void setReportInterval(long millis) {
+    if (millis <= 0L) {
+      throw new IllegalArgumentException("The report interval must be positive: " +
+          Long.toString(millis));
+    }
+    reportInterval = millis;
+  }
+
+  /**
+   * Adds a listener to which offending <code>AsioDriverListener</code>s are reported. The reporting
+   * thread is started if necessary.
+   * @param listener  The listener to add.
+   */
+  public synchronized void addAllocationListener(AsioAllocationListener listener) {
+    if (listener == null) {
+      throw new NullPointerException("The listener may not be null.");
+    }
+    listeners.addIfAbsent(listener);
+    if (reporter == null && !isShutdown) {
+      Thread thread = new Thread("AsioAllocationWatchdog") {
+        @Override
+        public void run() {
+          report();
+        }
+      };
+      thread.setDaemon(true);
+      reporter = thread;
+      thread.start();
+    }
+  }
+
+  public void removeAllocationListener(AsioAllocationListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns the total number of bytes which the given listener has allocated during callbacks while
+   * the watchdog was enabled, or zero if it is not registered with the driver.
+   */
+  public long getAllocatedBytes(AsioDriverListener listener) {
+    for (RegisteredListener registered : driver.getRegisteredListeners()) {
+      if (registered.listener.equals(listener)) {
+        return registered.allocatedBytes;
+      }
+    }
+    return 0L;
+  }
+
+  /**
+   * Starts watching a callback, if the watchdog is enabled. Called on the audio thread before the
+   * first listener.
+   */
+  void begin() {
+    isWatching = isEnabled;
+    if (isWatching) {
+      threadId = Thread.currentThread().getId();
+      if (overhead < 0L) {
+        // measure the cost of a reading on the thread which will be watched
+        long a = AllocationCounter.getAllocatedBytes(threadId);
+        long b = AllocationCounter.getAllocatedBytes(threadId);
+        long c = AllocationCounter.getAllocatedBytes(threadId);
+        overhead = Math.min(b - a, c - b);
+      }
+      lastAllocatedBytes = AllocationCounter.getAllocatedBytes(threadId);
+    }
+  }
+
+  /**
+   * Attributes the memory allocated since the last reading to the given listener, which has just
+   * returned. Called on the audio thread.
+   */
+  void afterListener(RegisteredListener registered) {
+    if (isWatching) {
+      final long allocatedBytes = AllocationCounter.getAllocatedBytes(threadId);
+      final long bytes = allocatedBytes - lastAllocatedBytes - overhead;
+      lastAllocatedBytes = allocatedBytes;
+      if (bytes > 0L) {
+        // there is only one writer
+        registered.allocatedBytes += bytes;
+        registered.allocatingCallbacks++;
+        if (isStrict && failure == null && pendingFailure == null) {
+          // the error itself allocates, but the callback has already failed
+          pendingFailure = new AssertionError(registered.listener.toString() + " allocated " +
+              Long.toString(bytes) + " bytes during bufferSwitch().");
+          lastAllocatedBytes = AllocationCounter.getAllocatedBytes(threadId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Ends the callback, and publishes the failure of a listener which allocated during it in strict mode.
+   * Called on the audio thread after the last listener, and so never throws.
+   */
+  void end() {
+    isWatching = false;
+    AssertionError pendingFailure = this.pendingFailure;
+    if (pendingFailure != null) {
+      this.pendingFailure = null;
+      failure = pendingFailure;
+    }
+  }
+
+  /**
+   * Stops the reporting thread. Called when the driver is unloaded.
+   */
+  synchronized void shutdown() {
+    isShutdown = true;
+    if (reporter != null) {
+      LockSupport.unpark(reporter);
+      reporter = null;
+    }
+  }
+
+  /**
+   * The loop of the reporting thread.
+   */
+  private void report() {
+    while (!isShutdown) {
+      LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(reportInterval));
+      for (RegisteredListener registered : driver.getRegisteredListeners()) {
+        final long bytes = registered.allocatedBytes;
+        final long callbacks = registered.allocatingCallbacks;
+        if (callbacks != registered.reportedCallbacks) {
+          final long newBytes = bytes - registered.reportedBytes;
+          final long newCallbacks = callbacks - registered.reportedCallbacks;
+          registered.reportedBytes = bytes;
+          registered.reportedCallbacks = callbacks;
+          for (AsioAllocationListener listener : listeners) {
+            try {
+              listener.allocationDetected(registered.listener, newBytes, newCallbacks);
+            } catch (RuntimeException e) {
+              // a failing listener must not stop the others from being notified
+              Thread.UncaughtExceptionHandler handler =
+                  Thread.currentThread().getUncaughtExceptionHandler();
+              handler.uncaughtException(Thread.currentThread(), e);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Holds the only references to <code>com.sun.management.ThreadMXBean</code>. The class is loaded when
+   * the watchdog is first asked whether it is supported, and not with the watchdog itself, such that a
+   * driver can be created on a JVM without the <code>jdk.management</code> module.
+   */
+  private static final class AllocationCounter {
+
+    /** The bean, or <code>null</code> if it cannot measure the memory allocated by a thread. */
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN;
+
+    static {
+      ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      THREAD_MX_BEAN = (threadMXBean instanceof com.sun.management.ThreadMXBean &&
+          ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) ?
+          (com.sun.management.ThreadMXBean) threadMXBean : null;
+    }
+
+    private static void enable() {
+      if (!THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled()) {
+        THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+      }
+    }
+
+    private static long getAllocatedBytes(long threadId) {
+      return THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+/**
+ * A backend through which an <code>AsioDriver</code> reaches the audio device. By default this is the
+ * native ASIO host library, <code>jasiohost32.dll</code> or <code>jasiohost64.dll</code>, which is only
+ * loaded when the default backend is first used. A <code>SimulatedAsioBackend</code> instead provides a
+ * pure-Java device, such that hosts can be tested and benchmarked on any platform. The backend is
+ * chosen with <code>AsioDriver.setBackend()</code> before a driver is loaded.<br>
+ * <br>
+ * The methods correspond to those of the Steinberg ASIO API, and are only called by the
+ * <code>AsioDriver</code> while it holds its lock, except for the callbacks. A backend reports driver
+ * events by calling the <code>fire</code> methods of the driver which it was initialised with. Backends
+ * can only be implemented in this package.
+ */
+public abstract class AsioBackend {
+
+  AsioBackend() {
+    // only implemented in this package
+  }
+
+  /**
+   * Registers the calling thread for access to the driver. Due to the way in which ASIO drivers are
+   * integrated into Windows (as COM objects), it is necessary to register each thread which accesses
+   * any ASIO methods. The first thread to access the driver is registered implicitly. A thread may
+   * register itself more than once, but this is not necessary. Registration is lightweight.
+   */
+  abstract void registerThread();
+
+  /**
+   * Fills the array with the names of the available drivers.
+   * @return  The number of names.
+   */
+  abstract int getDriverNames(String[] driverNames);
+
+  /**
+   * Loads the named driver into memory.
+   * @param driverName  The ASIO driver to load.
+   * @return  True if the driver was successfully loaded. False otherwise.
+   */
+  abstract boolean loadDriver(String driverName);
+
+  abstract void removeCurrentDriver();
+
+  /**
+   * Initialises the loaded driver, which sends its callbacks to the given <code>AsioDriver</code> until
+   * <code>ASIOExit()</code> is called.
+   */
+  abstract AsioDriverInfo ASIOInit(AsioDriver driver);
+
+  /**
+   * Exits the driver and releases it, such that it must be loaded again before it is initialised.
+   */
+  abstract void ASIOExit();
+
+  abstract void ASIOControlPanel();
+
+  abstract int ASIOGetChannels(boolean isInput);
+
+  abstract double ASIOGetSampleRate();
+
+  abstract boolean ASIOCanSampleRate(double sampleRate);
+
+  abstract void ASIOSetSampleRate(double sampleRate);
+
+  /**
+   * Returns the minimum, maximum or preferred buffer size, or the granularity, for an index of 0, 1,
+   * 2 or 3 respectively.
+   */
+  abstract int ASIOGetBufferSize(int index);
+
+  abstract int ASIOGetLatencies(boolean isInput);
+
+  abstract AsioChannel ASIOGetChannelInfo(int index, boolean isInput);
+
+  /**
+   * Creates the buffers of the given channels, and attaches them with
+   * <code>AsioChannel.setByteBuffers()</code>.
+   */
+  abstract void ASIOCreateBuffers(AsioChannel[] channelsToInit, int bufferSize);
+
+  abstract void ASIODisposeBuffers();
+
+  abstract void ASIOStart();
+
+  abstract void ASIOStop();
+}
@@ -0,0 +1,252 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * An <code>AsioDriverListener</code> which calls an <code>AsioBlockProcessor</code> with a fixed block
+ * size, whatever the buffer size of the driver. Input samples are collected until a full block is
+ * available, and processed output samples are queued until the driver consumes them. The adapter is
+ * registered with <code>AsioDriver.addAsioDriverListener()</code> like any other listener:
+ * <pre><code>
+ * driver.addAsioDriverListener(new AsioBlockAdapter(driver, 64, processor));
+ * </code></pre>
+ * If the buffer size <code>N</code> is a multiple of the block size <code>B</code>, then each
+ * <code>bufferSwitch()</code> processes <code>N/B</code> whole blocks and no latency is added. Otherwise
+ * the output is delayed by <code>B - gcd(N, B)</code> samples, which is the least delay with which
+ * every buffer can be filled in time. For example, a buffer size of 96 with a block size of 64 adds 32
+ * samples. The added latency is returned by <code>getLatency()</code>, and is not included in the
+ * latencies reported by the driver. The processor is passed one array per active channel, in the order
+ * of the set of active channels.<br>
+ * <br>
+ * All FIFOs are allocated in advance for the maximum buffer size of the driver, and for all of its
+ * channels. A change of the buffer size or of the active channels restarts the FIFOs without allocating
+ * on the audio thread. Should the driver report a preferred buffer size greater than its maximum, the
+ * FIFOs are enlarged in <code>bufferSizeChanged()</code>, which is not called on the audio thread.
+ */
+public final class AsioBlockAdapter implements AsioDriverListener {
+
+  private final AsioDriver driver;
+  private final AsioBlockProcessor processor;
+  private final int blockSize;
+  private volatile Fifos fifos;
+  private volatile int latency;
+
+  // the state of the audio thread
+  private Fifos currentFifos;
+  private int bufferSize;
+  private int numInputs;
+  private int numOutputs;
+  private float[][] inputBlocks; // the blocks of the active inputs, as passed to the processor
+  private float[][] outputBlocks;
+  private int inputFill; // the number of samples in the input blocks
+  private int outputRead; // the position of the next output sample in the output FIFOs
+  private int outputFill; // the number of samples in the output FIFOs
+
+  /**
+   * @param driver  The driver with which the adapter is to be registered. It must be at least in the
+   * <code>INITIALIZED</code> state.
+   * @param blockSize  The number of samples in each block passed to the processor.
+   * @param processor  The processor to call.
+   */
+  public AsioBlockAdapter(AsioDriver driver, int blockSize, AsioBlockProcessor processor) {
+    if (driver == null || processor == null) {
+      throw new NullPointerException("The driver and processor may not be null.");
+    }
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("The block size must be positive: " +
+          Integer.toString(blockSize));
+    }
+    this.driver = driver;
+    this.processor = processor;
+    this.blockSize = blockSize;
+    fifos = new Fifos(driver.getNumChannelsInput(), driver.getNumChannelsOutput(), blockSize,
+        Math.max(driver.getBufferMaxSize(), driver.getBufferPreferredSize()));
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Returns the latency which the adapter adds to the output for the current buffer size, in samples,
+   * or zero before the first <code>bufferSwitch()</code>.
+   */
+  public int getLatency() {
+    return latency;
+  }
+
+  /**
+   * Returns the latency which is added to the output when blocks of the given size are processed with
+   * buffers of the given size, in samples.
+   */
+  public static int getLatency(int bufferSize, int blockSize) {
+    return blockSize - gcd(bufferSize, blockSize);
+  }
+
+  private static int gcd(int a, int b) {
+    while (b != 0) {
+      int r = a % b;
+      a = b;
+      b = r;
+    }
+    return a;
+  }
+
+  public void bufferSwitch(long sampleTime, long samplePosition, Set<AsioChannel> activeChannels) {
+    final AsioChannelSet channels = (AsioChannelSet) activeChannels;
+    final int size = channels.size();
+    int numInputs = 0;
+    while (numInputs < size && channels.get(numInputs).isInput()) {
+      numInputs++;
+    }
+    final int bufferSize = driver.getBufferSize();
+    final Fifos fifos = this.fifos;
+    if (fifos != currentFifos || bufferSize != this.bufferSize || numInputs != this.numInputs ||
+        size - numInputs != numOutputs) {
+      restart(fifos, bufferSize, numInputs, size - numInputs);
+    }
+    final float[][] inputBlocks = this.inputBlocks;
+    final float[][] outputBlocks = this.outputBlocks;
+    final float[][] outputFifos = fifos.outputFifos;
+    final int capacity = fifos.capacity;
+
+    // collect the input, and process each complete block
+    int remaining = bufferSize;
+    while (remaining > 0) {
+      final int length = Math.min(remaining, blockSize - inputFill);
+      for (int i = 0; i < numInputs; i++) {
+        channels.get(i).read(inputBlocks[i], inputFill, length);
+      }
+      inputFill += length;
+      remaining -= length;
+      if (inputFill == blockSize) {
+        processor.processBlock(inputBlocks, outputBlocks, blockSize);
+        int write = outputRead + outputFill;
+        if (write >= capacity) {
+          write -= capacity;
+        }
+        final int first = Math.min(blockSize, capacity - write);
+        for (int i = 0; i < numOutputs; i++) {
+          System.arraycopy(outputBlocks[i], 0, outputFifos[i], write, first);
+          System.arraycopy(outputBlocks[i], first, outputFifos[i], 0, blockSize - first);
+        }
+        outputFill += blockSize;
+        inputFill = 0;
+      }
+    }
+
+    // the output FIFOs always hold at least one buffer, as the latency has been queued in advance
+    final int first = Math.min(bufferSize, capacity - outputRead);
+    for (int i = 0; i < numOutputs; i++) {
+      AsioChannel channel = channels.get(numInputs + i);
+      channel.write(outputFifos[i], outputRead, first);
+      if (first < bufferSize) {
+        channel.write(outputFifos[i], 0, bufferSize - first);
+      }
+    }
+    outputRead += bufferSize;
+    if (outputRead >= capacity) {
+      outputRead -= capacity;
+    }
+    outputFill -= bufferSize;
+  }
+
+  /**
+   * Empties the FIFOs for a new buffer size or set of channels, and queues the latency as silence.
+   */
+  private void restart(Fifos fifos, int bufferSize, int numInputs, int numOutputs) {
+    if (bufferSize + blockSize > fifos.capacity || numInputs >= fifos.inputBlocks.length ||
+        numOutputs >= fifos.outputBlocks.length) {
+      throw new IllegalStateException("The buffers of the driver exceed those for which the " +
+          "AsioBlockAdapter was created.");
+    }
+    currentFifos = fifos;
+    this.bufferSize = bufferSize;
+    this.numInputs = numInputs;
+    this.numOutputs = numOutputs;
+    inputBlocks = fifos.inputBlocks[numInputs];
+    outputBlocks = fifos.outputBlocks[numOutputs];
+    inputFill = 0;
+    outputRead = 0;
+    outputFill = getLatency(bufferSize, blockSize);
+    for (float[] outputFifo : fifos.outputFifos) {
+      Arrays.fill(outputFifo, 0, outputFill, 0.0f);
+    }
+    latency = outputFill;
+  }
+
+  public void bufferSizeChanged(int bufferSize) {
+    Fifos fifos = this.fifos;
+    if (bufferSize + blockSize > fifos.capacity) {
+      this.fifos = new Fifos(fifos.inputBlocks.length - 1, fifos.outputFifos.length, blockSize,
+          bufferSize);
+    }
+  }
+
+  public void latenciesChanged(int inputLatency, int outputLatency) {
+    // nothing to do
+  }
+
+  public void resetRequest() {
+    // nothing to do
+  }
+
+  public void resyncRequest() {
+    // nothing to do
+  }
+
+  public void sampleRateDidChange(double sampleRate) {
+    // nothing to do
+  }
+
+  /**
+   * The buffers of an adapter, which are replaced only when a larger buffer size is needed.
+   */
+  private static final class Fifos {
+
+    // for each number of active channels n, the first n blocks, such that a change of the active
+    // channels does not allocate
+    final float[][][] inputBlocks;
+    final float[][][] outputBlocks;
+    final float[][] outputFifos;
+    final int capacity;
+
+    Fifos(int numInputs, int numOutputs, int blockSize, int maxBufferSize) {
+      // the output FIFOs hold at most the latency and one buffer
+      capacity = maxBufferSize + blockSize;
+      inputBlocks = prefixes(new float[numInputs][blockSize]);
+      outputBlocks = prefixes(new float[numOutputs][blockSize]);
+      outputFifos = new float[numOutputs][capacity];
+    }
+
+    private static float[][][] prefixes(float[][] blocks) {
+      float[][][] prefixes = new float[blocks.length + 1][][];
+      for (int i = 0; i < prefixes.length; i++) {
+        prefixes[i] = Arrays.copyOf(blocks, i);
+      }
+      return prefixes;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+/**
+ * A processor of audio in blocks of a fixed size, independent of the buffer size of the driver. It is
+ * called by an <code>AsioBlockAdapter</code>.
+ */
+public interface AsioBlockProcessor {
+
+  /**
+   * Processes one block of samples. This method is called on the audio thread, zero or more times
+   * during each <code>bufferSwitch()</code>.
+   * @param inputs  One array per active input channel, in the order of the set of active channels,
+   * each holding one block of input samples.
+   * @param outputs  One array per active output channel, in the order of the set of active channels,
+   * each of which must be filled with one block of output samples. The arrays are reused, and so still
+   * hold the previous block.
+   * @param blockSize  The number of samples in each array.
+   */
+  public void processBlock(float[][] inputs, float[][] outputs, int blockSize);
+}
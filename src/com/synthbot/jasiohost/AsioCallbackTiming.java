@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * The <code>AsioCallbackTiming</code> measures how long each <code>bufferSwitch()</code> takes,
+ * relative to the deadline of the callback, which is the buffer size divided by the sample rate. It
+ * is returned by <code>AsioDriver.getCallbackTiming()</code> and is also registered as an MXBean, such
+ * that the load of the audio thread may be monitored without a profiler.<br>
+ * <br>
+ * The whole callback, from the driver's call into Java until the output is ready, is timed with
+ * <code>System.nanoTime()</code>, as is each listener. Times are recorded in fixed-size log-linear
+ * histograms, which the audio thread updates without locking or allocating. The cost is one call to
+ * <code>nanoTime()</code> per listener, plus two.
+ */
+public final class AsioCallbackTiming implements AsioCallbackTimingMXBean {
+
+  /** The default near-miss threshold, as a fraction of the callback period. */
+  public static final double DEFAULT_NEAR_MISS_THRESHOLD = 0.8;
+
+  private final AsioDriver driver;
+  private final LatencyHistogram histogram;
+  private volatile long periodNanos;
+  private volatile long nearMissNanos;
+  private volatile double nearMissThreshold;
+  private volatile long overrunCount;
+  private volatile long nearMissCount;
+  private volatile long lastNanos;
+
+  AsioCallbackTiming(AsioDriver driver) {
+    this.driver = driver;
+    histogram = new LatencyHistogram();
+    nearMissThreshold = DEFAULT_NEAR_MISS_THRESHOLD;
+  }
+
+  /**
+   * Sets the callback period. Called whenever the buffer size or sample rate may have changed.
+   */
+  void setPeriodNanos(long periodNanos) {
+    this.periodNanos = periodNanos;
+    nearMissNanos = (long) (periodNanos * nearMissThreshold);
+  }
+
+  /**
+   * Records the duration of one callback. Called on the audio thread.
+   */
+  void recordCallback(long nanos) {
+    histogram.record(nanos);
+    lastNanos = nanos;
+    final long periodNanos = this.periodNanos;
+    if (periodNanos > 0L) {
+      if (nanos > periodNanos) {
+        overrunCount++; // there is only one writer
+      } else if (nanos > nearMissNanos) {
+        nearMissCount++;
+      }
+    }
+  }
+
+  public long getCallbackCount() {
+    return histogram.getCount();
+  }
+
+  public long getOverrunCount() {
+    return overrunCount;
+  }
+
+  public long getNearMissCount() {
+    return nearMissCount;
+  }
+
+  public double getNearMissThreshold() {
+    return nearMissThreshold;
+  }
+
+  /**
+   * Sets the load above which a callback is counted as a near miss. The default is
+   * <code>DEFAULT_NEAR_MISS_THRESHOLD</code>.
+   * @param threshold  The threshold as a fraction of the callback period, in (0,1].
+   * @throws IllegalArgumentException  Thrown if the threshold is not in (0,1].
+   */
+  public void setNearMissThreshold(double threshold) {
+    if (!(threshold > 0.0 && threshold <= 1.0)) {
+      throw new IllegalArgumentException("The near-miss threshold must be in (0,1]: " +
+          Double.toString(threshold));
+    }
+    nearMissThreshold = threshold;
+    nearMissNanos = (long) (periodNanos * threshold);
+  }
+
+  public long getPeriodNanos() {
+    return periodNanos;
+  }
+
+  public long getLastCallbackNanos() {
+    return lastNanos;
+  }
+
+  public double getMeanCallbackNanos() {
+    return histogram.getMean();
+  }
+
+  public long getMaxCallbackNanos() {
+    return histogram.getMax();
+  }
+
+  public long getMedianCallbackNanos() {
+    return histogram.getQuantile(0.5);
+  }
+
+  public long get99thPercentileCallbackNanos() {
+    return histogram.getQuantile(0.99);
+  }
+
+  public long get999thPercentileCallbackNanos() {
+    return histogram.getQuantile(0.999);
+  }
+
+  public double getLastLoad() {
+    return toLoad(lastNanos);
+  }
+
+  public double get99thPercentileLoad() {
+    return toLoad(histogram.getQuantile(0.99));
+  }
+
+  public double getMaxLoad() {
+    return toLoad(histogram.getMax());
+  }
+
+  public String[] getListenerNames() {
+    RegisteredListener[] listeners = driver.getRegisteredListeners();
+    String[] names = new String[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      names[i] = listeners[i].listener.toString();
+    }
+    return names;
+  }
+
+  public double[] getListenerMeanNanos() {
+    RegisteredListener[] listeners = driver.getRegisteredListeners();
+    double[] means = new double[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      means[i] = listeners[i].histogram.getMean();
+    }
+    return means;
+  }
+
+  public long[] getListener99thPercentileNanos() {
+    RegisteredListener[] listeners = driver.getRegisteredListeners();
+    long[] percentiles = new long[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      percentiles[i] = listeners[i].histogram.getQuantile(0.99);
+    }
+    return percentiles;
+  }
+
+  public long[] getListenerMaxNanos() {
+    RegisteredListener[] listeners = driver.getRegisteredListeners();
+    long[] maxima = new long[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      maxima[i] = listeners[i].histogram.getMax();
+    }
+    return maxima;
+  }
+
+  /**
+   * Clears all histograms and counters. Callbacks which are recorded concurrently may be lost.
+   */
+  public void reset() {
+    histogram.reset();
+    overrunCount = 0L;
+    nearMissCount = 0L;
+    lastNanos = 0L;
+    for (RegisteredListener listener : driver.getRegisteredListeners()) {
+      listener.histogram.reset();
+    }
+  }
+
+  private double toLoad(long nanos) {
+    final long periodNanos = this.periodNanos;
+    return (periodNanos > 0L) ? (double) nanos / periodNanos : 0.0;
+  }
+
+  @Override
+  public String toString() {
+    return "callbacks: " + Long.toString(getCallbackCount()) +
+        ", overruns: " + Long.toString(overrunCount) +
+        ", near misses: " + Long.toString(nearMissCount) +
+        ", 99th percentile load: " + Double.toString(get99thPercentileLoad()) +
+        ", max load: " + Double.toString(getMaxLoad());
+  }
+}
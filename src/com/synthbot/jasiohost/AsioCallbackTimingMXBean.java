@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * The management interface of <code>AsioCallbackTiming</code>. Each loaded <code>AsioDriver</code>
+ * registers its timing with the platform MBean server under the name
+ * <code>com.synthbot.jasiohost:type=AsioCallbackTiming,driver=&lt;driver name&gt;</code>. All durations
+ * are in nanoseconds, and loads are fractions of the callback period.
+ */
+public interface AsioCallbackTimingMXBean {
+
+  /**
+   * Returns the number of <code>bufferSwitch()</code> callbacks which have been timed.
+   */
+  public long getCallbackCount();
+
+  /**
+   * Returns the number of callbacks which took longer than the callback period.
+   */
+  public long getOverrunCount();
+
+  /**
+   * Returns the number of callbacks which took longer than the near-miss threshold, but not longer than
+   * the callback period.
+   */
+  public long getNearMissCount();
+
+  public double getNearMissThreshold();
+
+  /**
+   * Sets the load above which a callback is counted as a near miss.
+   * @param threshold  The threshold as a fraction of the callback period, in (0,1].
+   */
+  public void setNearMissThreshold(double threshold);
+
+  /**
+   * Returns the callback period, i.e. the buffer size divided by the sample rate, or zero if the
+   * driver has not been started.
+   */
+  public long getPeriodNanos();
+
+  public long getLastCallbackNanos();
+
+  public double getMeanCallbackNanos();
+
+  public long getMaxCallbackNanos();
+
+  public long getMedianCallbackNanos();
+
+  public long get99thPercentileCallbackNanos();
+
+  public long get999thPercentileCallbackNanos();
+
+  /**
+   * Returns the load of the most recent callback.
+   */
+  public double getLastLoad();
+
+  /**
+   * Returns the 99th percentile of the load.
+   */
+  public double get99thPercentileLoad();
+
+  /**
+   * Returns the greatest load of any callback.
+   */
+  public double getMaxLoad();
+
+  /**
+   * Returns the names of the registered listeners, in the order in which they are called. The
+   * following per-listener arrays are in the same order.
+   */
+  public String[] getListenerNames();
+
+  public double[] getListenerMeanNanos();
+
+  public long[] getListener99thPercentileNanos();
+
+  public long[] getListenerMaxNanos();
+
+  /**
+   * Clears all histograms and counters.
+   */
+  public void reset();
+}
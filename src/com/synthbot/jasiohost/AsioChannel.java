@@ -21,7 +21,7 @@
 package com.synthbot.jasiohost;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.Arrays;
 
 /**
  * The <code>AsioChannel</code> class represents an input or output channel available form the
@@ -38,15 +38,18 @@ public class AsioChannel {
   private final AsioSampleType sampleType;
   private final String name;
   private final ByteBuffer[] nativeBuffers;
+  private final ByteBuffer[] absoluteBuffers; // views for absolute access, never repositioned
+  private volatile SampleCodec codec; // bound when the buffers are attached, null otherwise
   private volatile int bufferIndex;
+  private final SampleQuantizer quantizer;
+  private volatile AsioLevelMeter levelMeter; // null unless metering is enabled
+  private boolean isWritten; // true if this output has been written since the last buffer switch
+  private SampleCapture capture; // receives the writes to this output during a crossfade, if set
+  private boolean isMeteringSuppressed; // true while inputs are read a second time in one cycle
+  private final boolean[] isSilent; // true if the half-buffer has been silenced and not since written
+  private byte[] silence; // a whole half-buffer of silence in the native format
   
-  private static final float MAX_INT16 = (float) 0x00007FFF;
-  private static final float MAX_INT18 = (float) 0x0001FFFF;
-  private static final float MAX_INT20 = (float) 0x0007FFFF;
-  private static final float MAX_INT24 = (float) 0x007FFFFF;
-  private static final float MAX_INT32 = (float) 0x7FFFFFFF; // Integer.MAX_VALUE
-  
-  private AsioChannel(int index, boolean isInput, boolean isActive, int channelGroup, AsioSampleType sampleType, String name) {
+  AsioChannel(int index, boolean isInput, boolean isActive, int channelGroup, AsioSampleType sampleType, String name) {
     this.index = index;
     this.isInput = isInput;
     this.isActive = isActive;
@@ -54,6 +57,9 @@ public class AsioChannel {
     this.sampleType = sampleType;
     this.name = name;
     nativeBuffers = new ByteBuffer[2];
+    absoluteBuffers = new ByteBuffer[2];
+    isSilent = new boolean[2];
+    quantizer = new SampleQuantizer();
   }
   
   public int getChannelIndex() {
@@ -80,141 +86,170 @@ public class AsioChannel {
     return name;
   }
   
+  /**
+   * Returns the way in which samples written to this channel are quantized. The default is
+   * <code>AsioDitherType.NONE</code>.
+   */
+  public AsioDitherType getDitherType() {
+    return quantizer.getDitherType();
+  }
+  
+  /**
+   * Sets the way in which samples written to this channel are quantized, if it is an output with an
+   * integer sample type. Dither and noise shaping are computed in the audio callback at little more
+   * than the cost of plain conversion, and the dither type may be changed at any time, including while
+   * the driver is running. It takes effect from the next call to <code>write()</code>.
+   * @param ditherType  The new dither type.
+   * @throws NullPointerException  Thrown if <code>ditherType</code> is <code>null</code>.
+   */
+  public void setDitherType(AsioDitherType ditherType) {
+    if (ditherType == null) {
+      throw new NullPointerException("The dither type may not be null.");
+    }
+    quantizer.setDitherType(ditherType);
+  }
+  
+  /**
+   * Enables or disables metering of this input channel. While metering is enabled, the peak, RMS and
+   * true-peak levels of all samples read with <code>read()</code> or <code>readInterleaved()</code> are
+   * measured as they are read, and are available from <code>getLevelMeter()</code>. Metering may be
+   * enabled or disabled at any time, including while the driver is running. Enabling it again starts
+   * a new meter.
+   * @param enabled  <code>true</code> to enable metering.
+   * @throws IllegalStateException  Thrown if this is not an input channel.
+   */
+  public void setMeteringEnabled(boolean enabled) {
+    if (!isInput) {
+      throw new IllegalStateException("Only input channels can be metered.");
+    }
+    if (!enabled) {
+      levelMeter = null;
+    } else if (levelMeter == null) {
+      levelMeter = new AsioLevelMeter();
+    }
+  }
+  
+  public boolean isMeteringEnabled() {
+    return levelMeter != null;
+  }
+  
+  /**
+   * Returns the level meter of this channel, or <code>null</code> if metering is not enabled.
+   */
+  public AsioLevelMeter getLevelMeter() {
+    return levelMeter;
+  }
+  
   /**
    * Returns the current buffer to read or write from, with the position reset to zero. The endian-ness
    * of the buffer and of the underlying system has been accounted for. Note that input buffers 
    * <code>isInput()</code> are read-only.
    */
   public ByteBuffer getByteBuffer() {
+    markWritten();
     return nativeBuffers[bufferIndex];
   }
+  
+  /**
+   * Returns the index (0 or 1) of the half-buffer which is to be processed during the current
+   * <code>bufferSwitch()</code>.
+   */
+  public int getBufferIndex() {
+    return bufferIndex;
+  }
+  
+  /**
+   * Returns a view of one of the two half-buffers of this channel, for absolute access with methods
+   * such as <code>getFloat(int)</code> and <code>putInt(int, int)</code>. The views are created once
+   * when the buffers are attached, are in the byte order of the sample type, and are never
+   * repositioned by this library, so that no position state need be managed and no object is created
+   * per call. They address the driver's memory directly, and must not be used after the buffers have
+   * been disposed. Views of input buffers are read-only.<br>
+   * <br>
+   * Calling this method on an output marks it as written during the current <code>bufferSwitch()</code>
+   * (see <code>AsioDriver.setSilencingUnwrittenOutputs()</code>). If views are kept from one callback to
+   * the next, then either call this method in each callback, or disable silencing.
+   * @param bufferIndex  The index of the half-buffer, 0 or 1. The half-buffer to be processed during the
+   * current <code>bufferSwitch()</code> is given by <code>getBufferIndex()</code>.
+   * @throws IllegalStateException  Thrown if this channel is not active.
+   */
+  public ByteBuffer getByteBuffer(int bufferIndex) {
+    ByteBuffer buffer = absoluteBuffers[bufferIndex];
+    if (buffer == null) {
+      throw new IllegalStateException("This channel is not active: " + toString());
+    }
+    markWritten();
+    return buffer;
+  }
 
   protected void setBufferIndex(int bufferIndex) {
     this.bufferIndex = bufferIndex;
+    isWritten = false;
     nativeBuffers[bufferIndex].rewind(); // reset position to start of buffer
+    codec.setBufferIndex(bufferIndex);
   }
   
   protected void setByteBuffers(ByteBuffer buffer0, ByteBuffer buffer1) {
     if (buffer0 == null || buffer1 == null) {
       // the ByteBuffer references are cleared
       isActive = false;
+      codec = null;
       nativeBuffers[0] = null;
       nativeBuffers[1] = null;
+      absoluteBuffers[0] = null;
+      absoluteBuffers[1] = null;
+      silence = null;
     } else {
       nativeBuffers[0] = isInput ? buffer0.asReadOnlyBuffer() : buffer0;
       nativeBuffers[1] = isInput ? buffer1.asReadOnlyBuffer() : buffer1;
-      if (sampleType.name().contains("MSB")) {
-        nativeBuffers[0].order(ByteOrder.BIG_ENDIAN); // set the endian-ness of the buffers
-        nativeBuffers[1].order(ByteOrder.BIG_ENDIAN); // according to the sample type      
-      } else {
-        nativeBuffers[0].order(ByteOrder.LITTLE_ENDIAN);
-        nativeBuffers[1].order(ByteOrder.LITTLE_ENDIAN);
+      // set the endian-ness of the buffers according to the sample type
+      nativeBuffers[0].order(sampleType.getByteOrder());
+      nativeBuffers[1].order(sampleType.getByteOrder());
+      absoluteBuffers[0] = nativeBuffers[0].duplicate().order(sampleType.getByteOrder());
+      absoluteBuffers[1] = nativeBuffers[1].duplicate().order(sampleType.getByteOrder());
+      if (!isInput) {
+        silence = createSilence(sampleType, buffer0.capacity());
+        isSilent[0] = false;
+        isSilent[1] = false;
       }
+      codec = SampleCodec.create(sampleType, nativeBuffers[0], nativeBuffers[1], quantizer);
       isActive = true;
     }
   }
   
   /**
    * A convenience method to write a <code>float</code> array of samples to the output. The array 
-   * values are expected to be bounded to the range of [-1,1]. The need to convert to the correct 
-   * sample type is abstracted. The <code>output</code> array should be same size as the buffer.
-   * If it is larger, then a <code>BufferOverflowException</code> will be thrown. If it is smaller,
-   * the buffer will be incompletely filled.
+   * values are expected to be bounded to the range of [-1,1]. For integer sample types, values outside
+   * of this range are clipped, and samples are dithered according to <code>getDitherType()</code>.
+   * The need to convert to the correct sample type is abstracted. DSD channels are modulated from
+   * PCM with one sample per eight DSD samples (see <code>AsioSampleType.isDsd()</code>). The
+   * <code>output</code> array should be same size as the buffer. If it is larger, then a
+   * <code>BufferOverflowException</code> will be thrown. If it is smaller, the buffer will be
+   * incompletely filled.
    * 
    * If the ASIO host does not use <code>float</code>s to represent samples, then the <code>AsioChannel</code>'s
    * <code>ByteBuffer</code> should be directly manipulated. Use <code>getByteBuffer</code> to access the buffer.
    * @param output  A <code>float</code> array to write to the output.
    */
   public void write(float[] output) {
-    if (isInput) {
-      throw new IllegalStateException("Only output channels can be written to.");
-    }
-    if (!isActive) {
-      throw new IllegalStateException("This channel is not active: " + toString());
-    }
-    ByteBuffer outputBuffer = getByteBuffer();
-    switch (sampleType) {
-      case ASIOSTFloat64MSB:
-      case ASIOSTFloat64LSB: {
-        for (float sampleValue : output) {
-          outputBuffer.putDouble((double) sampleValue);          
-        }
-        break;
-      }
-      case ASIOSTFloat32MSB:
-      case ASIOSTFloat32LSB: {
-        for (float sampleValue : output) {
-          outputBuffer.putFloat(sampleValue);          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB:
-      case ASIOSTInt32LSB: {
-        for (float sampleValue : output) {
-          outputBuffer.putInt((int) (sampleValue * MAX_INT32));          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB16:
-      case ASIOSTInt32LSB16: {
-        for (float sampleValue : output) {
-          outputBuffer.putInt((int) (sampleValue * MAX_INT16));          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB18:
-      case ASIOSTInt32LSB18: {
-        for (float sampleValue : output) {
-          outputBuffer.putInt((int) (sampleValue * MAX_INT18));          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB20:
-      case ASIOSTInt32LSB20: {
-        for (float sampleValue : output) {
-          outputBuffer.putInt((int) (sampleValue * MAX_INT20));          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB24:
-      case ASIOSTInt32LSB24: {
-        for (float sampleValue : output) {
-          outputBuffer.putInt((int) (sampleValue * MAX_INT24));          
-        }
-        break;
-      }
-      case ASIOSTInt16MSB:
-      case ASIOSTInt16LSB: {
-        for (float sampleValue : output) {
-          outputBuffer.putShort((short) (sampleValue * MAX_INT16));          
-        }
-        break;
-      }
-      case ASIOSTInt24MSB: {
-        for (float sampleValue : output) {
-          int sampleValueInt = (int) (sampleValue * MAX_INT24);
-          outputBuffer.put((byte) ((sampleValueInt >> 16) & 0xFF));
-          outputBuffer.put((byte) ((sampleValueInt >> 8) & 0xFF));
-          outputBuffer.put((byte) (sampleValueInt & 0xFF));          
-        }
-        break;
-      }
-      case ASIOSTInt24LSB: {
-        for (float sampleValue : output) {
-          int sampleValueInt = (int) (sampleValue * MAX_INT24);
-          outputBuffer.put((byte) (sampleValueInt & 0xFF));
-          outputBuffer.put((byte) ((sampleValueInt >> 8) & 0xFF));
-          outputBuffer.put((byte) ((sampleValueInt >> 16) & 0xFF));
-        }
-        break;
-      }
-      case ASIOSTDSDInt8MSB1:
-      case ASIOSTDSDInt8LSB1:
-      case ASIOSTDSDInt8NER8: {
-        throw new IllegalStateException(
-            "The sample types ASIOSTDSDInt8MSB1, ASIOSTDSDInt8LSB1, and ASIOSTDSDInt8NER8 are not supported.");
-      }
-    }
+    writeSamples(output, 0, 1, output.length);
+  }
+  
+  /**
+   * Writes <code>length</code> samples from the <code>output</code> array, starting at <code>offset</code>.
+   * Samples are written to the buffer following any samples written since the start of this
+   * <code>bufferSwitch()</code>, such that a buffer may be filled with several calls. If the buffer does not
+   * have space for <code>length</code> more samples, then a <code>BufferOverflowException</code> is
+   * thrown and nothing is written.
+   * @param output  A <code>float</code> array to write to the output.
+   * @param offset  The index of the first sample in <code>output</code> to write.
+   * @param length  The number of samples to write.
+   * @throws IndexOutOfBoundsException  Thrown if <code>offset</code> and <code>length</code> do not
+   * describe a range of <code>output</code>.
+   */
+  public void write(float[] output, int offset, int length) {
+    checkBounds(output.length, offset, length, 1);
+    writeSamples(output, offset, 1, length);
   }
   
   /**
@@ -222,99 +257,349 @@ public class AsioChannel {
    * The argument array must have the same length as the configured buffer size. The returned samples
    * are bounded to within [-1,1]. The <code>input</code> array should be the same size as the input
    * array. If it larger, then a <code>BufferUnderflowException</code> will be thrown. If it is smaller,
-   * then the buffer will be incompletely read.
+   * then the buffer will be incompletely read. DSD channels are decimated to PCM with one sample per
+   * eight DSD samples.
    * @param input  A <code>float</code> array to read into.
    */
   public void read(float[] input) {
-    if (!isInput) {
-      throw new IllegalStateException("Only input channels can be read from.");
+    readSamples(input, 0, 1, input.length);
+  }
+  
+  /**
+   * Reads <code>length</code> samples into the <code>input</code> array, starting at <code>offset</code>.
+   * Samples are read from the buffer following any samples read since the start of this
+   * <code>bufferSwitch()</code>, such that a buffer may be consumed with several calls. If the buffer does
+   * not have <code>length</code> more samples, then a <code>BufferUnderflowException</code> is thrown and
+   * nothing is read.
+   * @param input  A <code>float</code> array to read into.
+   * @param offset  The index in <code>input</code> at which to store the first sample.
+   * @param length  The number of samples to read.
+   * @throws IndexOutOfBoundsException  Thrown if <code>offset</code> and <code>length</code> do not
+   * describe a range of <code>input</code>.
+   */
+  public void read(float[] input, int offset, int length) {
+    checkBounds(input.length, offset, length, 1);
+    readSamples(input, offset, 1, length);
+  }
+  
+  /**
+   * Writes a block of interleaved samples to several output channels. Frame <code>i</code> of the block
+   * starts at <code>output[offset + i * channels.length]</code>, and sample <code>c</code> of that frame
+   * is written to <code>channels[c]</code>. As with <code>write(float[], int, int)</code>, samples are
+   * written following any samples already written to each channel during this <code>bufferSwitch()</code>.
+   * @param channels  The active output channels to write to, in the order in which they are interleaved.
+   * @param output  The interleaved samples.
+   * @param offset  The index of the first sample of the first frame.
+   * @param frames  The number of frames to write.
+   * @throws IllegalStateException  Thrown if any of the channels is an input, or is not active. In this case
+   * no channel is written to.
+   */
+  public static void writeInterleaved(AsioChannel[] channels, float[] output, int offset, int frames) {
+    checkBounds(output.length, offset, frames, channels.length);
+    for (AsioChannel channel : channels) {
+      channel.getWritableCodec();
+    }
+    for (int i = 0; i < channels.length; i++) {
+      channels[i].writeSamples(output, offset + i, channels.length, frames);
+    }
+  }
+  
+  /**
+   * Reads samples from several input channels into a block of interleaved samples. Frame <code>i</code>
+   * of the block starts at <code>input[offset + i * channels.length]</code>, and sample <code>c</code> of
+   * that frame is read from <code>channels[c]</code>. As with <code>read(float[], int, int)</code>, samples
+   * are read following any samples already read from each channel during this <code>bufferSwitch()</code>.
+   * @param channels  The active input channels to read from, in the order in which they are interleaved.
+   * @param input  The array to store the interleaved samples in.
+   * @param offset  The index at which to store the first sample of the first frame.
+   * @param frames  The number of frames to read.
+   * @throws IllegalStateException  Thrown if any of the channels is an output, or is not active. In this case
+   * no channel is read from.
+   */
+  public static void readInterleaved(AsioChannel[] channels, float[] input, int offset, int frames) {
+    checkBounds(input.length, offset, frames, channels.length);
+    for (AsioChannel channel : channels) {
+      channel.getReadableCodec();
+    }
+    for (int i = 0; i < channels.length; i++) {
+      channels[i].readSamples(input, offset + i, channels.length, frames);
     }
-    if (!isActive) {
+  }
+  
+  /**
+   * Writes a <code>double</code> array of samples to the output. This is the double precision
+   * equivalent of <code>write(float[])</code>. Samples are converted directly to the sample type of the
+   * channel, such that <code>ASIOSTFloat64</code> channels receive the samples without loss of precision.
+   * @param output  A <code>double</code> array to write to the output.
+   */
+  public void write(double[] output) {
+    writeSamples(output, 0, 1, output.length);
+  }
+  
+  /**
+   * The double precision equivalent of <code>write(float[], int, int)</code>.
+   */
+  public void write(double[] output, int offset, int length) {
+    checkBounds(output.length, offset, length, 1);
+    writeSamples(output, offset, 1, length);
+  }
+  
+  /**
+   * Reads samples from the input buffer to a <code>double</code> array. This is the double precision
+   * equivalent of <code>read(float[])</code>. Samples are converted directly from the sample type of the
+   * channel, such that <code>ASIOSTFloat64</code> channels are read without loss of precision.
+   * @param input  A <code>double</code> array to read into.
+   */
+  public void read(double[] input) {
+    readSamples(input, 0, 1, input.length);
+  }
+  
+  /**
+   * The double precision equivalent of <code>read(float[], int, int)</code>.
+   */
+  public void read(double[] input, int offset, int length) {
+    checkBounds(input.length, offset, length, 1);
+    readSamples(input, offset, 1, length);
+  }
+  
+  /**
+   * The double precision equivalent of <code>writeInterleaved(AsioChannel[], float[], int, int)</code>.
+   */
+  public static void writeInterleaved(AsioChannel[] channels, double[] output, int offset, int frames) {
+    checkBounds(output.length, offset, frames, channels.length);
+    for (AsioChannel channel : channels) {
+      channel.getWritableCodec();
+    }
+    for (int i = 0; i < channels.length; i++) {
+      channels[i].writeSamples(output, offset + i, channels.length, frames);
+    }
+  }
+  
+  /**
+   * The double precision equivalent of <code>readInterleaved(AsioChannel[], float[], int, int)</code>.
+   */
+  public static void readInterleaved(AsioChannel[] channels, double[] input, int offset, int frames) {
+    checkBounds(input.length, offset, frames, channels.length);
+    for (AsioChannel channel : channels) {
+      channel.getReadableCodec();
+    }
+    for (int i = 0; i < channels.length; i++) {
+      channels[i].readSamples(input, offset + i, channels.length, frames);
+    }
+  }
+  
+  /**
+   * Writes packed 1-bit DSD samples to the output. Each byte holds eight samples, the earliest in the
+   * most significant bit (as in a DSDIFF file), regardless of the sample type of the channel. The bits
+   * are reordered for <code>ASIOSTDSDInt8LSB1</code>, and expanded to one byte per sample for
+   * <code>ASIOSTDSDInt8NER8</code>. As with <code>write(float[], int, int)</code>, samples are written
+   * following any samples already written during this <code>bufferSwitch()</code>.
+   * @param output  The packed DSD samples.
+   * @param offset  The index of the first byte in <code>output</code> to write.
+   * @param length  The number of bytes to write.
+   * @throws IllegalStateException  Thrown if the sample type of this channel is not a DSD type.
+   */
+  public void writeDsd(byte[] output, int offset, int length) {
+    checkBounds(output.length, offset, length, 1);
+    SampleCodec codec = getWritableCodec();
+    checkDsd();
+    ((SampleCodec.DsdCodec) codec).writeDsd(output, offset, length);
+  }
+  
+  /**
+   * Reads packed 1-bit DSD samples from the input. Each byte holds eight samples, the earliest in the
+   * most significant bit, regardless of the sample type of the channel. This is the inverse of
+   * <code>writeDsd()</code>.
+   * @param input  The array to read the packed DSD samples into.
+   * @param offset  The index in <code>input</code> at which to store the first byte.
+   * @param length  The number of bytes to read.
+   * @throws IllegalStateException  Thrown if the sample type of this channel is not a DSD type.
+   */
+  public void readDsd(byte[] input, int offset, int length) {
+    checkBounds(input.length, offset, length, 1);
+    SampleCodec codec = getReadableCodec();
+    checkDsd();
+    ((SampleCodec.DsdCodec) codec).readDsd(input, offset, length);
+  }
+  
+  private void checkDsd() {
+    if (!sampleType.isDsd()) {
+      throw new IllegalStateException("The sample type " + sampleType.toString() + " is not a DSD type.");
+    }
+  }
+  
+  private SampleCodec getWritableCodec() {
+    SampleCodec codec = this.codec;
+    if (isInput) {
+      throw new IllegalStateException("Only output channels can be written to.");
+    }
+    if (codec == null) {
       throw new IllegalStateException("This channel is not active: " + toString());
     }
-    ByteBuffer inputBuffer = getByteBuffer();
+    markWritten();
+    return codec;
+  }
+  
+  /**
+   * Converts samples into the current half-buffer of this output, or stores them in its capture if one
+   * is set.
+   */
+  private void writeSamples(float[] output, int offset, int stride, int length) {
+    SampleCodec codec = getWritableCodec();
+    SampleCapture capture = this.capture;
+    if (capture != null) {
+      capture.write(output, offset, stride, length);
+    } else {
+      codec.write(output, offset, stride, length);
+    }
+  }
+  
+  private void writeSamples(double[] output, int offset, int stride, int length) {
+    SampleCodec codec = getWritableCodec();
+    SampleCapture capture = this.capture;
+    if (capture != null) {
+      capture.write(output, offset, stride, length);
+    } else {
+      codec.write(output, offset, stride, length);
+    }
+  }  
+  /**
+   * Converts samples from the current half-buffer of this input, metering them in the same pass if
+   * metering is enabled and not suppressed.
+   */
+  private void readSamples(float[] input, int offset, int stride, int length) {
+    SampleCodec codec = getReadableCodec();
+    AsioLevelMeter levelMeter = this.levelMeter;
+    if (levelMeter == null || isMeteringSuppressed) {
+      codec.read(input, offset, stride, length);
+    } else {
+      codec.readMetered(input, offset, stride, length, levelMeter);
+    }
+  }
+  
+  private void readSamples(double[] input, int offset, int stride, int length) {
+    SampleCodec codec = getReadableCodec();
+    AsioLevelMeter levelMeter = this.levelMeter;
+    if (levelMeter == null || isMeteringSuppressed) {
+      codec.read(input, offset, stride, length);
+    } else {
+      codec.readMetered(input, offset, stride, length, levelMeter);
+    }
+  }
+
+  
+  private void markWritten() {
+    isWritten = true;
+    isSilent[bufferIndex] = false;
+  }
+  
+  /**
+   * Returns true if this output has been written since the last buffer switch.
+   */
+  boolean isWritten() {
+    return isWritten;
+  }
+  
+  /**
+   * Sets whether samples read from this input are metered. Metering is suppressed while the listeners of
+   * a crossfade read the same half-buffer for a second time.
+   */
+  void setMeteringSuppressed(boolean suppressed) {
+    isMeteringSuppressed = suppressed;
+  }
+  
+  /**
+   * Redirects <code>float</code> and <code>double</code> samples written to this output into the given
+   * capture, instead of converting them into the current half-buffer, or restores normal writes if
+   * <code>capture</code> is <code>null</code>. The output is still marked as written. Writes of DSD and
+   * to the <code>ByteBuffer</code>s are not captured.
+   */
+  void setCapture(SampleCapture capture) {
+    this.capture = capture;
+  }
+  
+  /**
+   * Reads back the first <code>length</code> samples of the current half-buffer of this output.
+   */
+  void readOutput(float[] dst, int length) {
+    codec.setBufferIndex(bufferIndex);
+    codec.read(dst, 0, 1, length);
+  }
+  
+  /**
+   * Replaces the first <code>length</code> samples of the current half-buffer of this output, which is
+   * then marked as written.
+   */
+  void writeOutput(float[] src, int length) {
+    codec.setBufferIndex(bufferIndex);
+    codec.write(src, 0, 1, length);
+    markWritten();
+  }
+  
+  /**
+   * Fills the current half-buffer with silence if this output has not been written since the last
+   * buffer switch. Nothing is done if the half-buffer is still silent from a previous cycle, so that
+   * an idle output costs nothing.
+   */
+  void silenceIfUnwritten() {
+    if (!isWritten && !isSilent[bufferIndex]) {
+      ByteBuffer buffer = nativeBuffers[bufferIndex];
+      buffer.rewind();
+      buffer.put(silence);
+      buffer.rewind();
+      isSilent[bufferIndex] = true;
+    }
+  }
+  
+  /**
+   * Returns an array of <code>length</code> bytes of silence in the given sample type. Silence is zero,
+   * except for DSD, for which it is the alternating idle pattern 0x69.
+   */
+  private static byte[] createSilence(AsioSampleType sampleType, int length) {
+    byte[] silence = new byte[length];
     switch (sampleType) {
-      case ASIOSTFloat64MSB:
-      case ASIOSTFloat64LSB: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = (float) inputBuffer.getDouble();          
-        }
-        break;
-      }
-      case ASIOSTFloat32MSB:
-      case ASIOSTFloat32LSB: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = inputBuffer.getFloat();          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB:
-      case ASIOSTInt32LSB: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = ((float) inputBuffer.getInt()) / MAX_INT32;          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB16:
-      case ASIOSTInt32LSB16: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = ((float) inputBuffer.getInt()) / MAX_INT16;          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB18:
-      case ASIOSTInt32LSB18: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = ((float) inputBuffer.getInt()) / MAX_INT18;          
-        }
-        break;
-      }
-      case ASIOSTInt32MSB20:
-      case ASIOSTInt32LSB20: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = ((float) inputBuffer.getInt()) / MAX_INT20;          
-        }
+      case ASIOSTDSDInt8MSB1: {
+        Arrays.fill(silence, DsdConverter.SILENCE);
         break;
       }
-      case ASIOSTInt32MSB24:
-      case ASIOSTInt32LSB24: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = ((float) inputBuffer.getInt()) / MAX_INT24;          
-        }
-        break;
-      }
-      case ASIOSTInt16MSB:
-      case ASIOSTInt16LSB: {
-        for (int i = 0; i < input.length; i++) {
-          input[i] = ((float) inputBuffer.getShort()) / MAX_INT16;          
-        }
-        break;
-      }
-      case ASIOSTInt24MSB: {
-        for (int i = 0; i < input.length; i++) {
-          int sampleValueInt = ((int) inputBuffer.get()) & 0xFFFF; sampleValueInt <<= 8;
-          sampleValueInt |= ((int) inputBuffer.get()) & 0xFF; sampleValueInt <<= 8;
-          sampleValueInt |= ((int) inputBuffer.get()) & 0xFF;
-          input[i] = ((float) sampleValueInt) / MAX_INT24;          
-        }
+      case ASIOSTDSDInt8LSB1: {
+        Arrays.fill(silence, DsdConverter.BIT_REVERSE[DsdConverter.SILENCE & 0xFF]);
         break;
       }
-      case ASIOSTInt24LSB: {
-        for (int i = 0; i < input.length; i++) {
-          int sampleValueInt = ((int) inputBuffer.get()) & 0xFF;
-          sampleValueInt |= (((int) inputBuffer.get()) & 0xFF) << 8;
-          sampleValueInt |= (((int) inputBuffer.get()) & 0xFFFF) << 16;
-          input[i] = ((float) sampleValueInt) / MAX_INT24;          
+      case ASIOSTDSDInt8NER8: {
+        for (int i = 0; i < length; i++) {
+          silence[i] = (byte) ((DsdConverter.SILENCE >> (7 - (i & 7))) & 1);
         }
         break;
       }
-      case ASIOSTDSDInt8MSB1:
-      case ASIOSTDSDInt8LSB1:
-      case ASIOSTDSDInt8NER8: {
-        throw new IllegalStateException(
-            "The sample types ASIOSTDSDInt8MSB1, ASIOSTDSDInt8LSB1, and ASIOSTDSDInt8NER8 are not supported.");
+      default: {
+        break; // all PCM types are signed, so silence is zero
       }
     }
+    return silence;
+  }
+  
+  private SampleCodec getReadableCodec() {
+    SampleCodec codec = this.codec;
+    if (!isInput) {
+      throw new IllegalStateException("Only input channels can be read from.");
+    }
+    if (codec == null) {
+      throw new IllegalStateException("This channel is not active: " + toString());
+    }
+    return codec;
+  }
+  
+  /**
+   * Checks that <code>length</code> samples, <code>stride</code> elements apart and starting at
+   * <code>offset</code>, fit into an array of length <code>arrayLength</code>.
+   */
+  private static void checkBounds(int arrayLength, int offset, int length, int stride) {
+    if (offset < 0 || length < 0 || offset + (long) length * stride > arrayLength) {
+      throw new IndexOutOfBoundsException("Cannot access " + Integer.toString(length) + " samples " +
+          "with stride " + Integer.toString(stride) + " at offset " + Integer.toString(offset) +
+          " of an array of length " + Integer.toString(arrayLength) + ".");
+    }
   }
 
   /*
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An unmodifiable, ordered set of <code>AsioChannel</code>s, backed by an array. The set of active
+ * channels passed to <code>AsioDriverListener.bufferSwitch()</code> is an <code>AsioChannelSet</code>,
+ * built once by <code>AsioDriver.createBuffers()</code>. Active inputs come first, followed by active
+ * outputs, each in order of channel index.<br>
+ * <br>
+ * Iterating over a <code>Set</code> creates an <code>Iterator</code>. In the audio callback, the set
+ * should instead be indexed with <code>get()</code>, which never allocates:
+ * <pre><code>
+ * AsioChannelSet channels = (AsioChannelSet) activeChannels;
+ * for (int i = 0; i &lt; channels.size(); i++) {
+ *   AsioChannel channel = channels.get(i);
+ *   ...
+ * }
+ * </code></pre>
+ */
+public final class AsioChannelSet extends AbstractSet<AsioChannel> {
+
+  /** The empty set, of a driver without buffers. */
+  static final AsioChannelSet EMPTY = new AsioChannelSet(new AsioChannel[0]);
+
+  private final AsioChannel[] channels;
+
+  /**
+   * @param channels  The channels of the set, without duplicates. The array is not copied, and must
+   * not be modified.
+   */
+  AsioChannelSet(AsioChannel[] channels) {
+    this.channels = channels;
+  }
+
+  /**
+   * Returns the channel at the given position in the set.
+   * @throws IndexOutOfBoundsException  Thrown if the index is not in [0, <code>size()</code>).
+   */
+  public AsioChannel get(int index) {
+    if (index < 0 || index >= channels.length) {
+      throw new IndexOutOfBoundsException("The index must be in [0," +
+          Integer.toString(channels.length) + "): " + Integer.toString(index));
+    }
+    return channels[index];
+  }
+
+  @Override
+  public int size() {
+    return channels.length;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    for (AsioChannel channel : channels) {
+      if (channel.equals(o)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Object[] toArray() {
+    return channels.clone();
+  }
+
+  @Override
+  public Iterator<AsioChannel> iterator() {
+    return new Iterator<AsioChannel>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < channels.length;
+      }
+
+      @Override
+      public AsioChannel next() {
+        if (index >= channels.length) {
+          throw new NoSuchElementException();
+        }
+        return channels[index++];
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("An AsioChannelSet may not be modified.");
+      }
+    };
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * This class enumerates the ways in which samples may be quantized when they are written to an output
+ * <code>AsioChannel</code> with an integer sample type. Samples are always saturated to the range of the
+ * sample type, such that values outside of [-1,1] are clipped instead of wrapping around. The dither type
+ * of a channel is set with <code>AsioChannel.setDitherType()</code>, and has no effect on floating point
+ * sample types.
+ */
+public enum AsioDitherType {
+
+  /**
+   * Samples are scaled and truncated without dither.
+   */
+  NONE,
+
+  /**
+   * Triangular probability density function (TPDF) dither of +/-1 LSB is added to each sample before
+   * it is rounded to the nearest integer. This decorrelates the quantization error from the signal.
+   */
+  TPDF,
+
+  /**
+   * TPDF dither with first-order noise shaping. The quantization error of each sample is subtracted
+   * from the next one, which moves the noise towards high frequencies where it is less audible.
+   */
+  TPDF_NOISE_SHAPED;
+}
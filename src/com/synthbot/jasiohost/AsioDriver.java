@@ -20,10 +20,25 @@
 
 package com.synthbot.jasiohost;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * The <code>AsioDriver</code> class represents an ASIO driver. Only one may be loaded at any
@@ -47,42 +62,102 @@ import java.util.Set;
  * state, call: <code>stop()</code>, <code>disposeBuffers()</code>, <code>exit()</code>, and 
  * finally <code>unloadDriver()</code> (if the driver should be fully unloaded from memory). Alternatively
  * <code>returnToState()</code> can also be used in order to return the <code>AsioDriver</code> to
- * a particular <code>AsioDriverState</code>.
+ * a particular <code>AsioDriverState</code>.<br>
+ * <br>
+ * Each thread which calls into the native driver must be registered with COM, and a control method
+ * blocks its caller while it holds the lock on the driver. Alternatively, all control operations may be
+ * made on a single control thread which is owned by this class, with the asynchronous methods such as
+ * <code>startAsync()</code>, <code>returnToStateAsync()</code> and <code>callAsync()</code>. These queue
+ * the operation and return a <code>CompletableFuture</code> at once, such that a UI thread or a virtual
+ * thread never waits for the driver. Operations are executed in the order in which they are queued.
+ * The control thread is a daemon thread, started with the first asynchronous operation. It is also a
+ * safe place from which to reset the driver in <code>AsioDriverListener.resetRequest()</code>.<br>
+ * <br>
+ * Alternatively, with <code>setAutoRecoveryEnabled()</code> the driver handles its own reset requests.
+ * The session is restored on the control thread without any intervention, and each
+ * <code>AsioRecoveryListener</code> is notified once audio is running again.<br>
+ * <br>
+ * Drivers are reached through an <code>AsioBackend</code>, which is the native ASIO host library unless
+ * another has been chosen with <code>setBackend()</code>. A <code>SimulatedAsioBackend</code> runs the
+ * same host code against a pure-Java device, without the native library.
  */
 public class AsioDriver {
   
-  private AsioDriverState currentState;
-  private final List<AsioDriverListener> listeners;
-  private final Set<AsioChannel> activeChannels;
+  private volatile AsioDriverState currentState;
+  private volatile RegisteredListener[] listeners; // copy-on-write, never modified once published
+  private final AtomicReference<ListenerCrossfade> crossfade; // the crossfade in progress, if any
+  private volatile int bufferSize; // the size of the created buffers
+  private final AsioTimeInfo timeInfo; // updated in place on every buffer switch
+  private final AsioCallbackTiming callbackTiming;
+  private final AsioDropoutDetector dropoutDetector;
+  private final AsioAllocationWatchdog allocationWatchdog;
+  private ObjectName callbackTimingName; // null if the timing is not registered with the MBean server
+  private volatile AsioChannelSet activeChannels;
+  private volatile AsioChannel[] activeInputs; // the active channels, split for the callback
+  private volatile AsioChannel[] activeOutputs;
   private final AsioChannel[] inputChannels;
   private final AsioChannel[] outputChannels;
   private final AsioDriverInfo driverInfo;
+  private final String driverName; // as loaded, which the driver may report differently in its info
+  private final AsioBackend backend; // the backend with which this driver was loaded
+  private volatile boolean isSilencingUnwrittenOutputs;
+  private volatile boolean isAutoRecoveryEnabled;
+  private final AtomicBoolean isRecoveryPending; // a recovery has been queued but has not yet begun
+  private final CopyOnWriteArrayList<AsioRecoveryListener> recoveryListeners;
+  
+  // properties cached from the driver, refreshed by control methods and by the driver's callbacks
+  private volatile double sampleRate;
+  private volatile int bufferPreferredSize;
+  private volatile int latencyInput;
+  private volatile int latencyOutput;
   
   private static AsioDriver asioDriver; // The currently loaded ASIO driver.
-  private static final Set<Thread> registeredThreads; // threads registered to access the native driver
+  private static AsioBackend selectedBackend; // the backend of new drivers, native unless set
+  // true for each thread which has been registered to access the native driver
+  private static final ThreadLocal<Boolean> isThreadRegistered = new ThreadLocal<Boolean>();
+  // the first thread to access the native driver is registered implicitly
+  private static final AtomicBoolean isFirstThreadRegistered = new AtomicBoolean();
+  private static ExecutorService controlExecutor; // the owned control thread, created on first use
   
-  private AsioDriver(String driverName) {
+  private AsioDriver(String driverName, AsioBackend backend) {
+    this.backend = backend;
+    this.driverName = driverName;
     registerThreadIfNecessary();
     
-    boolean driverLoaded = loadDriver(driverName); // load the driver into memory
-    if (!driverLoaded) {
-      throw new AsioException("The driver was not successfully loaded into memory. " +
-          "The Steinberg ASIO API does not indicate why.");
-    }
-    driverInfo = ASIOInit(); // initialise the driver
+    loadDriverIntoMemory();
+    driverInfo = backend.ASIOInit(this); // initialise the driver
+    refreshProperties();
     currentState = AsioDriverState.INITIALIZED;
-    activeChannels = new HashSet<AsioChannel>();
+    activeChannels = AsioChannelSet.EMPTY;
+    activeInputs = new AsioChannel[0];
+    activeOutputs = activeInputs;
     asioDriver = this;
     
-    listeners = new ArrayList<AsioDriverListener>();
+    listeners = new RegisteredListener[0];
+    crossfade = new AtomicReference<ListenerCrossfade>();
+    timeInfo = new AsioTimeInfo();
+    callbackTiming = new AsioCallbackTiming(this);
+    dropoutDetector = new AsioDropoutDetector(AsioDropoutDetector.DEFAULT_CAPACITY);
+    allocationWatchdog = new AsioAllocationWatchdog(this);
+    try {
+      ObjectName name = new ObjectName("com.synthbot.jasiohost:type=AsioCallbackTiming,driver=" +
+          ObjectName.quote(driverInfo.getDriverName()));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(callbackTiming, name);
+      callbackTimingName = name;
+    } catch (JMException e) {
+      // the timing is not essential, and remains available from getCallbackTiming()
+    }
+    isSilencingUnwrittenOutputs = true;
+    isRecoveryPending = new AtomicBoolean();
+    recoveryListeners = new CopyOnWriteArrayList<AsioRecoveryListener>();
     
-    inputChannels = new AsioChannel[ASIOGetChannels(true)];
+    inputChannels = new AsioChannel[backend.ASIOGetChannels(true)];
     for (int i = 0; i < inputChannels.length; i++) {
-      inputChannels[i] = ASIOGetChannelInfo(i, true);
+      inputChannels[i] = backend.ASIOGetChannelInfo(i, true);
     }
-    outputChannels = new AsioChannel[ASIOGetChannels(false)];
+    outputChannels = new AsioChannel[backend.ASIOGetChannels(false)];
     for (int i = 0; i < outputChannels.length; i++) {
-      outputChannels[i] = ASIOGetChannelInfo(i, false);
+      outputChannels[i] = backend.ASIOGetChannelInfo(i, false);
     }
   }
   
@@ -109,7 +184,7 @@ public class AsioDriver {
       }
     }
     if (getDriverNames().contains(driverName)) {
-      asioDriver = new AsioDriver(driverName);
+      asioDriver = new AsioDriver(driverName, getBackend());
       return asioDriver;
     } else {
       throw new IllegalArgumentException(
@@ -118,26 +193,76 @@ public class AsioDriver {
     }
   }
   
-  private static void registerThreadIfNecessary() {
-    if (registeredThreads.isEmpty()) {
-      // the first thread to access native code does not have to be registered
-      // ...it does so implicitly by accessing the ASIO code for the first time
-      registeredThreads.add(Thread.currentThread());
-    } else if (!registeredThreads.contains(Thread.currentThread())) {
-      registeredThreads.add(Thread.currentThread());
-      registerThread();
+  /**
+   * Loads the designated driver on the control thread, as with <code>getDriver()</code>.
+   * @param driverName  The name of the driver to load, as returned by <code>getDriverNames()</code>.
+   * @return  A future of the named driver.
+   */
+  public static CompletableFuture<AsioDriver> getDriverAsync(final String driverName) {
+    return submit(new Callable<AsioDriver>() {
+      public AsioDriver call() {
+        return getDriver(driverName);
+      }
+    });
+  }
+  
+  /**
+   * Loads the driver into memory, as it must be before every <code>ASIOInit()</code>, because
+   * <code>ASIOExit()</code> releases it.
+   * @throws AsioException  Thrown if the driver could not be loaded.
+   */
+  private void loadDriverIntoMemory() {
+    if (!backend.loadDriver(driverName)) {
+      throw new AsioException("The driver was not successfully loaded into memory. " +
+          "The Steinberg ASIO API does not indicate why.");
+    }
+  }
+  
+  /**
+   * Reads the cached properties from the driver. Called whenever the driver is initialised, and
+   * whenever buffers are created or disposed of.
+   */
+  private void refreshProperties() {
+    sampleRate = backend.ASIOGetSampleRate();
+    bufferPreferredSize = backend.ASIOGetBufferSize(2);
+    latencyInput = backend.ASIOGetLatencies(true);
+    latencyOutput = backend.ASIOGetLatencies(false);
+  }
+  
+  /**
+   * Returns the backend through which drivers are loaded. Unless another backend has been set with
+   * <code>setBackend()</code>, this is the native ASIO host library, which is loaded by this method.
+   */
+  public static synchronized AsioBackend getBackend() {
+    if (selectedBackend == null) {
+      selectedBackend = new JniAsioBackend();
     }
+    return selectedBackend;
   }
   
   /**
-   * Due to the way in which ASIO drivers are integrated into Windows (as COM objects),
-   * it is necessary to register each thread which accesses any ASIO methods. Such
-   * registration is done automatically for the thread which loads the <code>AsioDriver</code>
-   * class (usually the first thread to access any <code>AsioDriver</code> method). Failure to register 
-   * additional threads may cause exceptions, non-function of methods, or other arbitrary behaviour. 
-   * A thread may register itself more than once, but this is not necessary. Registration is lightweight.
+   * Sets the backend through which drivers are loaded, e.g. a <code>SimulatedAsioBackend</code>. The
+   * backend may only be changed while no driver is loaded.
+   * @param backend  The backend to use, or <code>null</code> for the native ASIO host library.
+   * @throws IllegalStateException  Thrown if a driver is loaded.
    */
-  private static native void registerThread();
+  public static synchronized void setBackend(AsioBackend backend) {
+    if (isDriverLoaded()) {
+      throw new IllegalStateException("The backend may not be changed while a driver is loaded.");
+    }
+    selectedBackend = backend;
+  }
+  
+  private static void registerThreadIfNecessary() {
+    if (isThreadRegistered.get() == null) {
+      isThreadRegistered.set(Boolean.TRUE);
+      // the first thread to access native code does not have to be registered
+      // ...it does so implicitly by accessing the ASIO code for the first time
+      if (!isFirstThreadRegistered.compareAndSet(false, true)) {
+        getBackend().registerThread();
+      }
+    }
+  }
   
   /**
    * Returns the currently loaded <code>AsioDriver</code>. If no driver is loaded, <code>null</code>
@@ -147,12 +272,6 @@ public class AsioDriver {
     return asioDriver;
   }
   
-  static {
-    // load jasiohost32.dll or jasiohost64.dll depending on the the bit-depth of the JVM
-    System.loadLibrary("jasiohost" + System.getProperty("sun.arch.data.model"));  
-    registeredThreads = new HashSet<Thread>();
-  }
-  
   /**
    * Returns <code>true</code> if a driver is currently loaded, <code>false</code> otherwise.
    */
@@ -166,14 +285,13 @@ public class AsioDriver {
   public static List<String> getDriverNames() {
     registerThreadIfNecessary();
     String[] driverNames = new String[32];
-    int numNames = getDriverNames(driverNames);
+    int numNames = getBackend().getDriverNames(driverNames);
     List<String> nameList = new ArrayList<String>(numNames);
     for (int i = 0; i < numNames; i++) {
       nameList.add(driverNames[i]);
     }
     return nameList;
   }
-  private static native int getDriverNames(String[] driverNames);
   
   /*
    * Normally the driver is shut down manually. But it is put into finalize() in order to properly
@@ -212,13 +330,12 @@ public class AsioDriver {
   }
   
   /**
-   * Returns the current state of the ASIO driver.
+   * Returns the current state of the ASIO driver. This method does not lock the driver.
    */
-  public synchronized AsioDriverState getCurrentState() {
+  public AsioDriverState getCurrentState() {
     return currentState;
   }
   
-  private native AsioDriverInfo ASIOInit();
   
   /**
    * Closes all data structures relating to the operation of the ASIO driver, though the driver
@@ -231,10 +348,9 @@ public class AsioDriver {
           "in order to be initialised. The current state is: " + currentState.toString());
     }
     registerThreadIfNecessary();
-    ASIOExit();
+    backend.ASIOExit();
     currentState = AsioDriverState.LOADED;
   }
-  private native void ASIOExit();
   
   /**
    * Open the native control panel, allowing the user to adjust the ASIO settings. A control panel
@@ -246,9 +362,8 @@ public class AsioDriver {
           currentState.toString());
     }
     registerThreadIfNecessary();
-    ASIOControlPanel();
+    backend.ASIOControlPanel();
   }
-  private static native void ASIOControlPanel();
   
   /**
    * Returns the number of available input channels. -1 is returned if there is an error.
@@ -273,21 +388,18 @@ public class AsioDriver {
     }
     return outputChannels.length;
   }
-  private static native int ASIOGetChannels(boolean isInput);
 
   /**
-   * Returns the current sample rate to which the host is set.
+   * Returns the current sample rate to which the host is set. The sample rate is cached, and updated
+   * by <code>setSampleRate()</code>, whenever the driver reports a change with
+   * <code>sampleRateDidChange()</code>, and whenever buffers are created or disposed of, such that this
+   * method neither locks the driver nor calls it.
    * @return  The current sample rate in Hz.
    */
-  public synchronized double getSampleRate() {
-    if (currentState.ordinal() < AsioDriverState.INITIALIZED.ordinal()) {
-      throw new IllegalStateException("The AsioDriver must be at least in the INITIALIZED state: " + 
-          currentState.toString());
-    }
-    registerThreadIfNecessary();
-    return ASIOGetSampleRate();
+  public double getSampleRate() {
+    checkInitialized();
+    return sampleRate;
   }
-  private static native double ASIOGetSampleRate();
   
   /**
    * Inquires of the hardware if a specific available sample rate is available.
@@ -300,9 +412,8 @@ public class AsioDriver {
           currentState.toString());
     }
     registerThreadIfNecessary();
-    return ASIOCanSampleRate(sampleRate);
+    return backend.ASIOCanSampleRate(sampleRate);
   }
-  private static native boolean ASIOCanSampleRate(double sampleRate);
   
   /**
    * Set the hardware to the requested sample Rate. If sampleRate == 0, enable external sync.
@@ -315,9 +426,12 @@ public class AsioDriver {
           currentState.toString());
     }
     registerThreadIfNecessary();
-    ASIOSetSampleRate(sampleRate);
+    backend.ASIOSetSampleRate(sampleRate);
+    // the latencies usually depend on the sample rate
+    this.sampleRate = backend.ASIOGetSampleRate();
+    latencyInput = backend.ASIOGetLatencies(true);
+    latencyOutput = backend.ASIOGetLatencies(false);
   }
-  private static native void ASIOSetSampleRate(double sampleRate);
   
   /**
    * Returns the minimum supported buffer size.
@@ -328,7 +442,7 @@ public class AsioDriver {
           currentState.toString());
     }
     registerThreadIfNecessary();
-    return ASIOGetBufferSize(0);
+    return backend.ASIOGetBufferSize(0);
   }
   
   /**
@@ -339,18 +453,32 @@ public class AsioDriver {
       throw new IllegalStateException("The AsioDriver must be at least in the INITIALIZED state: " + currentState.toString());
     }
     registerThreadIfNecessary();
-    return ASIOGetBufferSize(1);
+    return backend.ASIOGetBufferSize(1);
   }
   
   /**
-   * Returns the preferred buffer size. The host should attempt to use this buffer size.
+   * Returns the preferred buffer size. The host should attempt to use this buffer size. The size is
+   * cached, and updated whenever the driver reports a change with <code>bufferSizeChanged()</code> and
+   * whenever buffers are created or disposed of, such that this method neither locks the driver nor
+   * calls it.
    */
-  public synchronized int getBufferPreferredSize() {
-    if (currentState.ordinal() < AsioDriverState.INITIALIZED.ordinal()) {
-      throw new IllegalStateException("The AsioDriver must be at least in the INITIALIZED state: " + currentState.toString());
+  public int getBufferPreferredSize() {
+    checkInitialized();
+    return bufferPreferredSize;
+  }
+  
+  /**
+   * Returns the size of the buffers which have been created with <code>createBuffers()</code>, i.e. the
+   * number of samples of each channel in every <code>bufferSwitch()</code>. It differs from the
+   * preferred buffer size if the driver has changed that since. This method does not lock the driver.
+   */
+  public int getBufferSize() {
+    AsioDriverState currentState = this.currentState;
+    if (currentState.ordinal() < AsioDriverState.PREPARED.ordinal()) {
+      throw new IllegalStateException("The AsioDriver must be at least in the PREPARED state: " +
+          currentState.toString());
     }
-    registerThreadIfNecessary();
-    return ASIOGetBufferSize(2);
+    return bufferSize;
   }
   
   /**
@@ -364,41 +492,43 @@ public class AsioDriver {
           currentState.toString());
     }
     registerThreadIfNecessary();
-    return ASIOGetBufferSize(3);
+    return backend.ASIOGetBufferSize(3);
   }
   
-  private static native int ASIOGetBufferSize(int index);
   
   /**
    * Note: As <code>getLatencyInput()</code> will also have to include the audio buffer size of the 
    * <code>createBuffers()</code> call, the application should call this function after the buffer creation. 
    * In the case that the call occurs beforehand the driver should assume preferred buffer size. 
+   * The latency is cached, and updated by <code>createBuffers()</code> and <code>setSampleRate()</code>
+   * and whenever the driver reports a change with <code>latenciesChanged()</code>, such that this
+   * method neither locks the driver nor calls it.
    * @return  The input latency in samples.
    */
-  public synchronized int getLatencyInput() {
-    if (currentState.ordinal() < AsioDriverState.INITIALIZED.ordinal()) {
-      throw new IllegalStateException("The AsioDriver must be at least in the INITIALIZED state: " + 
-          currentState.toString());
-    }
-    registerThreadIfNecessary();
-    return ASIOGetLatencies(true);
+  public int getLatencyInput() {
+    checkInitialized();
+    return latencyInput;
   }
   
   /**
    * Note: As <code>getLatencyOutput()</code> will also have to include the audio buffer size of the 
    * <code>createBuffers()</code> call, the application should call this function after the buffer creation. 
    * In the case that the call occurs beforehand the driver should assume preferred buffer size.
+   * The latency is cached as for <code>getLatencyInput()</code>.
    * @return  The output latency in samples.
    */
-  public synchronized int getLatencyOutput() {
+  public int getLatencyOutput() {
+    checkInitialized();
+    return latencyOutput;
+  }
+  
+  private void checkInitialized() {
+    AsioDriverState currentState = this.currentState;
     if (currentState.ordinal() < AsioDriverState.INITIALIZED.ordinal()) {
       throw new IllegalStateException("The AsioDriver must be at least in the INITIALIZED state: " + 
-        currentState.toString());
+          currentState.toString());
     }
-    registerThreadIfNecessary();
-    return ASIOGetLatencies(false);
   }
-  private static native int ASIOGetLatencies(boolean isInput);
   
   /**
    * Get information about an input channel. The returned <code>AsioChannel</code> object
@@ -441,10 +571,10 @@ public class AsioDriver {
     }
     return outputChannels[index];
   }
-  private static native AsioChannel ASIOGetChannelInfo(int index, boolean isInput);
   
   /**
-   * Creates audio buffers for the set of designated channels. The buffer size is that as returned by
+   * Creates audio buffers for the set of designated channels. The buffer size is the preferred buffer
+   * size, which is read from the driver again first, and is then returned by
    * <code>getBufferPreferredSize()</code>.
    * @param channelsToInit  A <code>Set</code> of <code>AsioChannelInfo</code> objects designating the
    * input and output channels to initialise and create audio buffers for.
@@ -463,15 +593,44 @@ public class AsioDriver {
       throw new IllegalArgumentException("The set of channels to initialise may not be empty.");
     }
     
-    // make a defensive copy of the the channel initialisation set
-    activeChannels.addAll(channelsToInit);
+    // make a defensive copy of the the channel initialisation set, inputs first and in index order
+    AsioChannel[] channels = new HashSet<AsioChannel>(channelsToInit).toArray(new AsioChannel[0]);
+    Arrays.sort(channels, new Comparator<AsioChannel>() {
+      public int compare(AsioChannel a, AsioChannel b) {
+        if (a.isInput() != b.isInput()) {
+          return a.isInput() ? -1 : 1;
+        }
+        return a.getChannelIndex() - b.getChannelIndex();
+      }
+    });
+    int numInputs = 0;
+    while (numInputs < channels.length && channels[numInputs].isInput()) {
+      numInputs++;
+    }
     
     registerThreadIfNecessary();
-    ASIOCreateBuffers(activeChannels.toArray(new AsioChannel[0]), getBufferPreferredSize());
+    // the driver may have changed its properties without a callback, e.g. before a reset request
+    refreshProperties();
+    bufferSize = bufferPreferredSize;
+    backend.ASIOCreateBuffers(channels, bufferSize);
+    // the latencies include the size of the buffers
+    latencyInput = backend.ASIOGetLatencies(true);
+    latencyOutput = backend.ASIOGetLatencies(false);
     
+    activeInputs = Arrays.copyOfRange(channels, 0, numInputs);
+    activeOutputs = Arrays.copyOfRange(channels, numInputs, channels.length);
+    activeChannels = new AsioChannelSet(channels);
     currentState = AsioDriverState.PREPARED;
   }
-  private static native void ASIOCreateBuffers(AsioChannel[] channelsToInit, int bufferSize);
+  
+  /**
+   * Returns the channels for which buffers have been created with <code>createBuffers()</code>, inputs
+   * first, as an unmodifiable <code>AsioChannelSet</code>. The set is empty if no buffers exist. This is
+   * the same set which is passed to <code>AsioDriverListener.bufferSwitch()</code>.
+   */
+  public AsioChannelSet getActiveChannels() {
+    return activeChannels;
+  }
   
   /**
    * Remove the previously created audio buffers (with <code>createBuffers()</code>). The active
@@ -485,12 +644,15 @@ public class AsioDriver {
     for (AsioChannel channelInfo : activeChannels) {
       channelInfo.setByteBuffers(null, null); // clear the ByteBuffer references
     }
-    activeChannels.clear();
+    activeChannels = AsioChannelSet.EMPTY;
+    activeInputs = new AsioChannel[0];
+    activeOutputs = activeInputs;
+    crossfade.set(null);
     registerThreadIfNecessary();
-    ASIODisposeBuffers();
+    backend.ASIODisposeBuffers();
+    refreshProperties(); // e.g. the new buffer size of a driver which requested a reset
     currentState = AsioDriverState.INITIALIZED;
   }
-  private static native void ASIODisposeBuffers();
   
   /**
    * Start the driver. Input buffers are presented and output buffers consumed via calls to 
@@ -501,10 +663,12 @@ public class AsioDriver {
       throw new IllegalStateException();
     }
     registerThreadIfNecessary();
-    ASIOStart();
+    long periodNanos = (long) (bufferSize * 1e9 / getSampleRate());
+    callbackTiming.setPeriodNanos(periodNanos);
+    dropoutDetector.reset(periodNanos);
+    backend.ASIOStart();
     currentState = AsioDriverState.RUNNING;
   }
-  private static native void ASIOStart();
   
   /**
    * Stop the driver. Calls to <code>bufferSwitch()</code> will cease. The <code>AsioDriver</code> 
@@ -515,28 +679,29 @@ public class AsioDriver {
       throw new IllegalStateException();
     }
     registerThreadIfNecessary();
-    ASIOStop();
+    backend.ASIOStop();
     currentState = AsioDriverState.PREPARED;
   }
-  private static native void ASIOStop();
-  
-  /**
-   * Loads the named driver into memory.
-   * @param driverName  The ASIO driver to load.
-   * @return  True if the driver was successfully loaded. False otherwise.
-   */
-  private static native boolean loadDriver(String driverName);
   
   private synchronized void unloadDriver() {
     if (!AsioDriverState.LOADED.equals(currentState)) {
       throw new IllegalStateException();
     }
     registerThreadIfNecessary();
-    removeCurrentDriver();
+    backend.removeCurrentDriver();
+    dropoutDetector.shutdown();
+    allocationWatchdog.shutdown();
+    if (callbackTimingName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(callbackTimingName);
+      } catch (JMException e) {
+        // the timing has already been unregistered
+      }
+      callbackTimingName = null;
+    }
     currentState = AsioDriverState.UNLOADED;
     asioDriver = null;
   }
-  private static native void removeCurrentDriver();
   
   /**
    * Shutdown the ASIO driver, regardless of what state it is in. Unload it from memory. This is a 
@@ -587,82 +752,693 @@ public class AsioDriver {
     }
   }
   
+  public boolean isSilencingUnwrittenOutputs() {
+    return isSilencingUnwrittenOutputs;
+  }
+  
+  /**
+   * Sets whether active output channels which are not written during a <code>bufferSwitch()</code> are
+   * silenced, which is enabled by default. Otherwise the driver would play whatever stale data remains
+   * in the half-buffer. An output counts as written if any <code>write</code> method or
+   * <code>getByteBuffer()</code> is called on it. Unwritten outputs are filled with silence after all
+   * listeners have returned, and only when the half-buffer is not already silent, such that outputs
+   * which remain idle cost nothing. This setting may be changed at any time.
+   * @param enabled  <code>true</code> to silence unwritten outputs.
+   */
+  public void setSilencingUnwrittenOutputs(boolean enabled) {
+    isSilencingUnwrittenOutputs = enabled;
+  }
+  
+  /*
+   * Asynchronous control
+   */
+  
+  /**
+   * Creates the audio buffers on the control thread, as with <code>createBuffers()</code>. The set of
+   * channels is copied at once.
+   * @param channelsToInit  The input and output channels to create audio buffers for.
+   */
+  public CompletableFuture<Void> createBuffersAsync(Set<AsioChannel> channelsToInit) {
+    final Set<AsioChannel> channels =
+        (channelsToInit == null) ? null : new HashSet<AsioChannel>(channelsToInit);
+    return submit(new Callable<Void>() {
+      public Void call() {
+        createBuffers(channels);
+        return null;
+      }
+    });
+  }
+  
+  /**
+   * Disposes of the audio buffers on the control thread, as with <code>disposeBuffers()</code>.
+   */
+  public CompletableFuture<Void> disposeBuffersAsync() {
+    return submit(new Callable<Void>() {
+      public Void call() {
+        disposeBuffers();
+        return null;
+      }
+    });
+  }
+  
+  /**
+   * Starts the driver on the control thread, as with <code>start()</code>.
+   */
+  public CompletableFuture<Void> startAsync() {
+    return submit(new Callable<Void>() {
+      public Void call() {
+        start();
+        return null;
+      }
+    });
+  }
+  
+  /**
+   * Stops the driver on the control thread, as with <code>stop()</code>.
+   */
+  public CompletableFuture<Void> stopAsync() {
+    return submit(new Callable<Void>() {
+      public Void call() {
+        stop();
+        return null;
+      }
+    });
+  }
+  
+  /**
+   * Sets the sample rate on the control thread, as with <code>setSampleRate()</code>.
+   * @param sampleRate  The sample rate in Hz.
+   */
+  public CompletableFuture<Void> setSampleRateAsync(final double sampleRate) {
+    return submit(new Callable<Void>() {
+      public Void call() {
+        setSampleRate(sampleRate);
+        return null;
+      }
+    });
+  }
+  
+  /**
+   * Inquires on the control thread whether a sample rate is supported, as with
+   * <code>canSampleRate()</code>.
+   * @param sampleRate  The sample rate in Hz.
+   */
+  public CompletableFuture<Boolean> canSampleRateAsync(final double sampleRate) {
+    return submit(new Callable<Boolean>() {
+      public Boolean call() {
+        return canSampleRate(sampleRate);
+      }
+    });
+  }
+  
+  /**
+   * Opens the control panel on the control thread, as with <code>openControlPanel()</code>.
+   */
+  public CompletableFuture<Void> openControlPanelAsync() {
+    return submit(new Callable<Void>() {
+      public Void call() {
+        openControlPanel();
+        return null;
+      }
+    });
+  }
+  
+  /**
+   * Returns the driver to a given state on the control thread, as with <code>returnToState()</code>.
+   * @param targetState  The state to which the driver should return.
+   */
+  public CompletableFuture<Void> returnToStateAsync(final AsioDriverState targetState) {
+    return submit(new Callable<Void>() {
+      public Void call() {
+        returnToState(targetState);
+        return null;
+      }
+    });
+  }
+  
+  /**
+   * Executes any operation on the control thread, such as a sequence of calls to this driver or a
+   * query which is not otherwise available asynchronously, e.g. <code>getBufferMinSize()</code>. The
+   * future completes with the result of the operation, or exceptionally with the exception which it
+   * threw. An operation must not wait for another asynchronous operation, as that could only be
+   * executed after it.
+   * @param operation  The operation to execute.
+   */
+  public <T> CompletableFuture<T> callAsync(Callable<T> operation) {
+    if (operation == null) {
+      throw new NullPointerException("The operation may not be null.");
+    }
+    return submit(operation);
+  }
+  
+  private static <T> CompletableFuture<T> submit(final Callable<T> operation) {
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+    getControlExecutor().execute(new Runnable() {
+      public void run() {
+        try {
+          future.complete(operation.call());
+        } catch (Throwable t) {
+          future.completeExceptionally(t);
+        }
+      }
+    });
+    return future;
+  }
+  
+  private static synchronized ExecutorService getControlExecutor() {
+    if (controlExecutor == null) {
+      controlExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "AsioDriver control");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return controlExecutor;
+  }
+  
   /**
-   * Add a new <code>AsioDriverListener</code>. Listeners can only be updated while the driver
-   * is in the LOADED or INITIALIZED state.
+   * Add a new <code>AsioDriverListener</code>. Listeners may be added in any state, and from any
+   * thread. A listener added while the driver is running receives callbacks from the next
+   * <code>bufferSwitch()</code>. Adding a listener which is already registered has no effect.
    * @param listener  A new <code>AsioDriverListener</code> which should be sent callbacks.
    */
   public synchronized void addAsioDriverListener(AsioDriverListener listener) {
-    if (currentState.ordinal() < AsioDriverState.PREPARED.ordinal()) {
-      if (!listeners.contains(listener)) {
-        listeners.add(listener);
-      }
-    } else {
-      throw new IllegalStateException("AsioDriverListeners can only be updated while the " +
-          "AsioDriver is in the LOADED or INITIALIZED state.");
+    if (listener == null) {
+      throw new NullPointerException("The listener may not be null.");
+    }
+    if (indexOf(listeners, listener) < 0) {
+      RegisteredListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+      newListeners[listeners.length] = new RegisteredListener(listener);
+      crossfade.set(null);
+      listeners = newListeners;
     }
   }
   
   /**
-   * Unregister an <code>AsioDriverListener</code>. Listeners can only be updated while the driver
-   * is in the LOADED or INITIALIZED state.
+   * Unregister an <code>AsioDriverListener</code>. Listeners may be removed in any state, and from any
+   * thread. A listener removed while the driver is running may still receive the callback which is in
+   * progress, but no further callbacks.
    * @param listener  A previously registered <code>AsioDriverListener</code>.
    */
   public synchronized void removeAsioDriverListener(AsioDriverListener listener) {
-    if (currentState.ordinal() < AsioDriverState.PREPARED.ordinal()) {
-      listeners.remove(listener);
+    int index = indexOf(listeners, listener);
+    if (index >= 0) {
+      RegisteredListener[] newListeners = new RegisteredListener[listeners.length - 1];
+      System.arraycopy(listeners, 0, newListeners, 0, index);
+      System.arraycopy(listeners, index + 1, newListeners, index, newListeners.length - index);
+      crossfade.set(null);
+      listeners = newListeners;
+    }
+  }
+  
+  /**
+   * Replaces all registered listeners with the given ones, in the given order. If the driver is running
+   * and <code>crossfadeLength</code> is positive, then the output of the old listeners is crossfaded
+   * linearly into that of the new listeners over <code>crossfadeLength</code> samples, such that a
+   * processing chain may be exchanged without a click. The crossfade begins with the next
+   * <code>bufferSwitch()</code>, and this method does not wait for it to complete.<br>
+   * <br>
+   * During the crossfade, both sets of listeners receive every <code>bufferSwitch()</code>. The old
+   * listeners are called first and their output is kept, and then the new listeners are called with the
+   * same inputs and with fresh output buffers. An output written by only one of the sets is faded to or
+   * from silence. Samples written with <code>AsioChannel.write()</code> are mixed before they are
+   * converted to the sample type, such that integer outputs are quantized and dithered only once, while
+   * outputs written directly to their <code>ByteBuffer</code> are read back and quantized again. A
+   * listener which is in both sets is called twice per callback, and so it is best to exchange a whole
+   * chain as a single listener. Inputs are only metered once. DSD outputs are not crossfaded, and take
+   * the output of the new listeners. If another swap begins before the crossfade is complete, or if a
+   * listener is added or removed, then the crossfade is cut short. The buffers of the crossfade are
+   * allocated by this method, so that the audio thread does not allocate.
+   * @param newListeners  The listeners which should be sent callbacks from now on.
+   * @param crossfadeLength  The length of the crossfade in samples, or zero to swap immediately.
+   * @throws IllegalArgumentException  Thrown if <code>crossfadeLength</code> is negative.
+   */
+  public synchronized void swapAsioDriverListeners(List<AsioDriverListener> newListeners,
+      int crossfadeLength) {
+    if (newListeners == null) {
+      throw new NullPointerException("The list of listeners may not be null.");
+    }
+    if (newListeners.contains(null)) {
+      throw new IllegalArgumentException("The list of listeners may not contain a null value.");
+    }
+    if (crossfadeLength < 0) {
+      throw new IllegalArgumentException("The crossfade length may not be negative: " +
+          Integer.toString(crossfadeLength));
+    }
+    RegisteredListener[] oldListeners = listeners;
+    Set<AsioDriverListener> uniqueListeners = new LinkedHashSet<AsioDriverListener>(newListeners);
+    RegisteredListener[] swappedListeners = new RegisteredListener[uniqueListeners.size()];
+    int i = 0;
+    for (AsioDriverListener listener : uniqueListeners) {
+      // listeners which remain registered keep their timing
+      int index = indexOf(oldListeners, listener);
+      swappedListeners[i++] = (index >= 0) ? oldListeners[index] : new RegisteredListener(listener);
+    }
+    // the crossfade is published first, so that the audio thread never sees the new listeners alone
+    if (crossfadeLength > 0 && AsioDriverState.RUNNING.equals(currentState)) {
+      crossfade.set(new ListenerCrossfade(oldListeners, swappedListeners, crossfadeLength,
+          activeOutputs.length, bufferSize));
     } else {
-      throw new IllegalStateException("AsioDriverListeners can only be updated while the " +
-          "AsioDriver is in the LOADED or INITIALIZED state.");
+      crossfade.set(null);
+    }
+    listeners = swappedListeners;
+  }
+  
+  private static int indexOf(RegisteredListener[] listeners, AsioDriverListener listener) {
+    for (int i = 0; i < listeners.length; i++) {
+      if (listeners[i].listener.equals(listener)) {
+        return i;
+      }
     }
+    return -1;
+  }
+  
+  /**
+   * Returns the registered listeners, in the order in which they are called. The array must not be
+   * modified.
+   */
+  RegisteredListener[] getRegisteredListeners() {
+    return listeners;
+  }
+  
+  /**
+   * Returns the timing of the <code>bufferSwitch()</code> callbacks of this driver. The timing is also
+   * registered with the platform MBean server while the driver is loaded.
+   */
+  public AsioCallbackTiming getCallbackTiming() {
+    return callbackTiming;
   }
   
+  /**
+   * Returns the detector of dropouts and discontinuities in the <code>bufferSwitch()</code> callbacks of
+   * this driver.
+   */
+  public AsioDropoutDetector getDropoutDetector() {
+    return dropoutDetector;
+  }
+  
+  /**
+   * Returns the watchdog which detects listeners that allocate memory during <code>bufferSwitch()</code>.
+   * It is disabled by default.
+   */
+  public AsioAllocationWatchdog getAllocationWatchdog() {
+    return allocationWatchdog;
+  }
   
   /*
-   * Callbacks
+   * Automatic recovery
+   */
+  
+  public boolean isAutoRecoveryEnabled() {
+    return isAutoRecoveryEnabled;
+  }
+  
+  /**
+   * Sets whether the driver recovers from its own reset requests, which is disabled by default. When
+   * enabled, a reset request is not passed on to <code>AsioDriverListener.resetRequest()</code>.
+   * Instead the session is restored on the control thread: the active channels, the sample rate and
+   * the state of the driver are recorded, the driver is returned to the <code>LOADED</code> state and
+   * initialised again, and then the buffers are recreated for the same channels and the driver is
+   * restarted. The registered listeners and the <code>AsioChannel</code> objects, with their settings,
+   * are kept throughout. The buffers are recreated with the current preferred buffer size of the
+   * driver, as a change of the buffer size in the control panel is a common reason for a reset.
+   * Reset requests which arrive before the recovery has begun are covered by it. Each
+   * <code>AsioRecoveryListener</code> is notified once the recovery has completed or failed. This
+   * setting may be changed at any time.
+   * @param enabled  <code>true</code> to recover automatically from reset requests.
    */
+  public void setAutoRecoveryEnabled(boolean enabled) {
+    isAutoRecoveryEnabled = enabled;
+  }
   
-  private void fireSampleRateDidChange(double sampleRate) {
-    for (AsioDriverListener listener : listeners) {
-      listener.sampleRateDidChange(sampleRate);
+  /**
+   * Adds a listener which is notified of each automatic recovery. Adding a listener which is already
+   * registered has no effect.
+   * @param listener  The listener to add.
+   */
+  public void addRecoveryListener(AsioRecoveryListener listener) {
+    if (listener == null) {
+      throw new NullPointerException("The listener may not be null.");
     }
+    recoveryListeners.addIfAbsent(listener);
+  }
+  
+  public void removeRecoveryListener(AsioRecoveryListener listener) {
+    recoveryListeners.remove(listener);
   }
   
-  private void fireResetRequest() {
-    for (AsioDriverListener listener : listeners) {
-      listener.resetRequest();
+  /**
+   * Restores the session after a reset request, and notifies the recovery listeners. Executed on the
+   * control thread.
+   * @param requestTime  The value of <code>System.nanoTime()</code> when the reset was requested.
+   */
+  private void recover(long requestTime) {
+    AsioRecoveryEvent event = restoreSession(requestTime);
+    if (event != null) {
+      // the listeners are notified without holding the lock on the driver
+      for (AsioRecoveryListener listener : recoveryListeners) {
+        listener.driverRecovered(event);
+      }
     }
   }
   
-  private void fireResyncRequest() {
-    for (AsioDriverListener listener : listeners) {
-      listener.resyncRequest();
+  /**
+   * Resets the driver and returns it to its previous state.
+   * @return  The result of the recovery, or <code>null</code> if the driver was no longer initialised.
+   */
+  private synchronized AsioRecoveryEvent restoreSession(long requestTime) {
+    isRecoveryPending.set(false); // any later request needs another recovery
+    final AsioDriverState restoredState = currentState;
+    if (restoredState.ordinal() < AsioDriverState.INITIALIZED.ordinal()) {
+      return null; // the driver has been shut down in the meantime
+    }
+    final boolean hasBuffers = restoredState.ordinal() >= AsioDriverState.PREPARED.ordinal();
+    final AsioChannelSet channels = activeChannels;
+    final double sampleRate = this.sampleRate;
+    final int previousBufferSize = hasBuffers ? bufferSize : bufferPreferredSize;
+    RuntimeException failure = null;
+    try {
+      returnToState(AsioDriverState.LOADED);
+      registerThreadIfNecessary();
+      loadDriverIntoMemory(); // ASIOExit() has released the driver
+      backend.ASIOInit(this); // the driver information does not change
+      currentState = AsioDriverState.INITIALIZED;
+      refreshProperties();
+      checkChannels();
+      if (this.sampleRate != sampleRate && backend.ASIOCanSampleRate(sampleRate)) {
+        setSampleRate(sampleRate);
+      }
+      if (hasBuffers) {
+        createBuffers(channels);
+      }
+      if (AsioDriverState.RUNNING.equals(restoredState)) {
+        start();
+      }
+    } catch (RuntimeException e) {
+      failure = e;
     }
+    return new AsioRecoveryEvent(restoredState, requestTime, System.nanoTime() - requestTime,
+        this.sampleRate, previousBufferSize, hasBuffers ? bufferSize : bufferPreferredSize, failure);
   }
   
-  private void fireBufferSizeChanged(int bufferSize) {
-    for (AsioDriverListener listener : listeners) {
-      listener.bufferSizeChanged(bufferSize);
+  /**
+   * The existing <code>AsioChannel</code> objects are reused after a reset, which is only possible if
+   * the driver still has the same channels with the same sample types.
+   * @throws AsioException  Thrown if the channels of the driver have changed.
+   */
+  private void checkChannels() {
+    if (backend.ASIOGetChannels(true) != inputChannels.length ||
+        backend.ASIOGetChannels(false) != outputChannels.length) {
+      throw new AsioException("The number of channels has changed after the reset.");
+    }
+    for (int i = 0; i < inputChannels.length; i++) {
+      if (backend.ASIOGetChannelInfo(i, true).getSampleType() != inputChannels[i].getSampleType()) {
+        throw new AsioException("The sample type of input " + Integer.toString(i) +
+            " has changed after the reset.");
+      }
+    }
+    for (int i = 0; i < outputChannels.length; i++) {
+      if (backend.ASIOGetChannelInfo(i, false).getSampleType() != outputChannels[i].getSampleType()) {
+        throw new AsioException("The sample type of output " + Integer.toString(i) +
+            " has changed after the reset.");
+      }
     }
   }
   
-  private void fireLatenciesChanged(int inputLatency, int outputLatency) {
-    for (AsioDriverListener listener : listeners) {
-      listener.latenciesChanged(inputLatency, outputLatency);
+  
+  /*
+   * The native ASIO host library, which is only called through the JniAsioBackend. The library is
+   * loaded by the JniAsioBackend, and resolves these methods when they are first called.
+   */
+  
+  static native void registerThread();
+  static native int getDriverNames(String[] driverNames);
+  native AsioDriverInfo ASIOInit(); // the native callbacks are made on this AsioDriver
+  native void ASIOExit();
+  static native void ASIOControlPanel();
+  static native int ASIOGetChannels(boolean isInput);
+  static native double ASIOGetSampleRate();
+  static native boolean ASIOCanSampleRate(double sampleRate);
+  static native void ASIOSetSampleRate(double sampleRate);
+  static native int ASIOGetBufferSize(int index);
+  static native int ASIOGetLatencies(boolean isInput);
+  static native AsioChannel ASIOGetChannelInfo(int index, boolean isInput);
+  static native void ASIOCreateBuffers(AsioChannel[] channelsToInit, int bufferSize);
+  static native void ASIODisposeBuffers();
+  static native void ASIOStart();
+  static native void ASIOStop();
+  static native boolean loadDriver(String driverName);
+  static native void removeCurrentDriver();
+  
+  /*
+   * Callbacks, made by the backend on the threads of the driver
+   */
+  
+  void fireSampleRateDidChange(double sampleRate) {
+    this.sampleRate = sampleRate;
+    if (sampleRate > 0.0) {
+      long periodNanos = (long) (bufferSize * 1e9 / sampleRate);
+      callbackTiming.setPeriodNanos(periodNanos);
+      dropoutDetector.setPeriodNanos(periodNanos);
+    }
+    for (RegisteredListener registered : listeners) {
+      registered.listener.sampleRateDidChange(sampleRate);
     }
   }
   
-  private void fireBufferSwitch(long systemTime, long samplePosition, int bufferIndex) {
-    for (AsioChannel channel : inputChannels) {
-      if (channel.isActive()) channel.setBufferIndex(bufferIndex);
+  void fireResetRequest() {
+    if (isAutoRecoveryEnabled) {
+      final long requestTime = System.nanoTime();
+      if (isRecoveryPending.compareAndSet(false, true)) {
+        submit(new Callable<Void>() {
+          public Void call() {
+            recover(requestTime);
+            return null;
+          }
+        });
+      }
+      return;
+    }
+    for (RegisteredListener registered : listeners) {
+      registered.listener.resetRequest();
+    }
+  }
+  
+  void fireResyncRequest() {
+    for (RegisteredListener registered : listeners) {
+      registered.listener.resyncRequest();
+    }
+  }
+  
+  void fireBufferSizeChanged(int bufferSize) {
+    bufferPreferredSize = bufferSize;
+    for (RegisteredListener registered : listeners) {
+      registered.listener.bufferSizeChanged(bufferSize);
+    }
+  }
+  
+  void fireLatenciesChanged(int inputLatency, int outputLatency) {
+    latencyInput = inputLatency;
+    latencyOutput = outputLatency;
+    for (RegisteredListener registered : listeners) {
+      registered.listener.latenciesChanged(inputLatency, outputLatency);
+    }
+  }
+  
+  /**
+   * The callback of native libraries which pass only the system time and sample position, such as the
+   * prebuilt jasiohost32.dll and jasiohost64.dll. They look this method up as <code>(JJI)V</code>, and
+   * so it must be kept until they are rebuilt from the current JAsioHost.cpp.
+   */
+  void fireBufferSwitch(long systemTime, long samplePosition, int bufferIndex) {
+    fireBufferSwitch(systemTime, samplePosition, bufferIndex, sampleRate, 1.0,
+        AsioTimeInfo.SYSTEM_TIME_VALID | AsioTimeInfo.SAMPLE_POSITION_VALID, 0.0, 0L, 0);
+  }
+  
+  void fireBufferSwitch(long systemTime, long samplePosition, int bufferIndex,
+      double sampleRate, double speed, int flags,
+      double timeCodeSpeed, long timeCodeSamples, int timeCodeFlags) {
+    final long startTime = System.nanoTime();
+    timeInfo.set(systemTime, samplePosition, bufferIndex, sampleRate, speed, flags,
+        timeCodeSpeed, timeCodeSamples, timeCodeFlags);
+    dropoutDetector.check(timeInfo, bufferSize);
+    // only the active channels are visited, and arrays are iterated without creating iterator objects
+    final AsioChannel[] activeInputs = this.activeInputs;
+    final AsioChannel[] activeOutputs = this.activeOutputs;
+    final AsioChannelSet activeChannels = this.activeChannels;
+    for (int i = 0; i < activeInputs.length; i++) {
+      activeInputs[i].setBufferIndex(bufferIndex);
     }
-    for (AsioChannel channel : outputChannels) {
-      if (channel.isActive()) channel.setBufferIndex(bufferIndex);
+    for (int i = 0; i < activeOutputs.length; i++) {
+      activeOutputs[i].setBufferIndex(bufferIndex);
     }
-    // NOTE(mhroth): use a standard for loop in order to avoid implicitly creating iterator objects
-    // as this function is called very often
-    for (int i = 0; i < listeners.size(); i++) {
-      listeners.get(i).bufferSwitch(systemTime, samplePosition, activeChannels);
+    // the listeners are read once, such that they may be swapped during the callback
+    allocationWatchdog.begin();
+    final ListenerCrossfade crossfade = this.crossfade.get();
+    if (crossfade == null) {
+      final RegisteredListener[] listeners = this.listeners;
+      long time = System.nanoTime();
+      for (int i = 0; i < listeners.length; i++) {
+        time = fireBufferSwitch(listeners[i], activeChannels, time);
+      }
+    } else {
+      fireCrossfadedBufferSwitch(crossfade, bufferIndex);
+    }
+    // the native callback calls ASIOOutputReady() once this method returns
+    if (isSilencingUnwrittenOutputs) {
+      for (int i = 0; i < activeOutputs.length; i++) {
+        activeOutputs[i].silenceIfUnwritten();
+      }
+    }
+    callbackTiming.recordCallback(System.nanoTime() - startTime);
+    allocationWatchdog.end();
+  }
+  
+  /**
+   * Calls <code>bufferSwitchTimeInfo()</code> on a listener which accepts time information, and
+   * <code>bufferSwitch()</code> otherwise, and records how long it took.
+   * @param startTime  The value of <code>System.nanoTime()</code> just before this call.
+   * @return  The value of <code>System.nanoTime()</code> just after the listener has returned.
+   */
+  private long fireBufferSwitch(RegisteredListener registered, AsioChannelSet activeChannels,
+      long startTime) {
+    final AsioDriverListener listener = registered.listener;
+    if (listener instanceof AsioDriverTimeInfoListener) {
+      ((AsioDriverTimeInfoListener) listener).bufferSwitchTimeInfo(timeInfo, activeChannels);
+    } else {
+      listener.bufferSwitch(timeInfo.getSystemTime(), timeInfo.getSamplePosition(), activeChannels);
+    }
+    final long endTime = System.nanoTime();
+    registered.histogram.record(endTime - startTime);
+    allocationWatchdog.afterListener(registered);
+    return endTime;
+  }
+  
+  /**
+   * Calls <code>bufferSwitch()</code> on the old listeners of the crossfade, and then on the new
+   * listeners, and mixes their outputs. Samples written to the outputs by either set of listeners are
+   * captured before they are quantized, such that the mix is quantized (and dithered) only once.
+   */
+  private void fireCrossfadedBufferSwitch(ListenerCrossfade crossfade, int bufferIndex) {
+    final AsioChannel[] activeInputs = this.activeInputs;
+    final AsioChannel[] activeOutputs = this.activeOutputs;
+    final AsioChannelSet activeChannels = this.activeChannels;
+    final int length = bufferSize;
+    
+    capture(activeOutputs, crossfade.oldOutputs);
+    long time = System.nanoTime();
+    try {
+      for (int i = 0; i < crossfade.oldListeners.length; i++) {
+        time = fireBufferSwitch(crossfade.oldListeners[i], activeChannels, time);
+      }
+    } finally {
+      endCapture(activeOutputs, crossfade.oldOutputs, length);
+    }
+    // present all buffers afresh to the new listeners
+    for (int i = 0; i < activeOutputs.length; i++) {
+      activeOutputs[i].setBufferIndex(bufferIndex);
+    }
+    for (int i = 0; i < activeInputs.length; i++) {
+      activeInputs[i].setBufferIndex(bufferIndex);
+      activeInputs[i].setMeteringSuppressed(true);
+    }
+    capture(activeOutputs, crossfade.newOutputs);
+    try {
+      time = System.nanoTime();
+      for (int i = 0; i < crossfade.newListeners.length; i++) {
+        time = fireBufferSwitch(crossfade.newListeners[i], activeChannels, time);
+      }
+    } finally {
+      for (int i = 0; i < activeInputs.length; i++) {
+        activeInputs[i].setMeteringSuppressed(false);
+      }
+      endCapture(activeOutputs, crossfade.newOutputs, length);
+    }
+    
+    final float[] mix = crossfade.mix;
+    final float step = 1.0f / crossfade.length;
+    for (int i = 0; i < activeOutputs.length; i++) {
+      AsioChannel channel = activeOutputs[i];
+      if (channel.getSampleType().isDsd()) {
+        continue;
+      }
+      final SampleCapture oldOutput = crossfade.oldOutputs[i];
+      final SampleCapture newOutput = crossfade.newOutputs[i];
+      if (!oldOutput.isWritten() && !newOutput.isWritten()) {
+        continue; // left to be silenced
+      }
+      final float[] oldSamples = oldOutput.getSamples();
+      final float[] newSamples = newOutput.getSamples();
+      for (int j = 0, k = crossfade.position; j < length; j++, k++) {
+        final float gain = k < crossfade.length ? k * step : 1.0f;
+        mix[j] = oldSamples[j] + gain * (newSamples[j] - oldSamples[j]);
+      }
+      channel.writeOutput(mix, length);
+    }
+    crossfade.position += length;
+    if (crossfade.position >= crossfade.length) {
+      this.crossfade.compareAndSet(crossfade, null);
+    }
+  }
+  
+  /**
+   * Clears the captures, and redirects the writes to each PCM output into its capture.
+   */
+  private static void capture(AsioChannel[] outputs, SampleCapture[] captures) {
+    for (int i = 0; i < outputs.length; i++) {
+      if (!outputs[i].getSampleType().isDsd()) {
+        captures[i].clear();
+        outputs[i].setCapture(captures[i]);
+      }
+    }
+  }
+  
+  /**
+   * Restores normal writes to each PCM output. An output which was written directly to its
+   * <code>ByteBuffer</code> rather than captured is read back into its capture, and so is quantized
+   * twice.
+   */
+  private static void endCapture(AsioChannel[] outputs, SampleCapture[] captures, int length) {
+    for (int i = 0; i < outputs.length; i++) {
+      AsioChannel channel = outputs[i];
+      if (!channel.getSampleType().isDsd()) {
+        channel.setCapture(null);
+        if (channel.isWritten() && !captures[i].isWritten()) {
+          channel.readOutput(captures[i].getSamples(), length);
+          captures[i].markWritten();
+        }
+      }
+    }
+  }
+  
+  /**
+   * The state of a crossfade from an old set of listeners to a new one. It is created when the
+   * listeners are swapped, and is only modified by the audio thread.
+   */
+  private static final class ListenerCrossfade {
+    
+    private final RegisteredListener[] oldListeners;
+    private final RegisteredListener[] newListeners;
+    private final int length; // in samples
+    private int position; // the number of samples which have been crossfaded
+    private final SampleCapture[] oldOutputs; // the output of the old listeners, per active output
+    private final SampleCapture[] newOutputs; // the output of the new listeners, per active output
+    private final float[] mix;
+    
+    private ListenerCrossfade(RegisteredListener[] oldListeners, RegisteredListener[] newListeners,
+        int length, int numOutputs, int bufferSize) {
+      this.oldListeners = oldListeners;
+      this.newListeners = newListeners;
+      this.length = length;
+      oldOutputs = new SampleCapture[numOutputs];
+      newOutputs = new SampleCapture[numOutputs];
+      for (int i = 0; i < numOutputs; i++) {
+        oldOutputs[i] = new SampleCapture(bufferSize);
+        newOutputs[i] = new SampleCapture(bufferSize);
+      }
+      mix = new float[bufferSize];
     }
   }
 }
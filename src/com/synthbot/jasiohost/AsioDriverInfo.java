@@ -22,7 +22,7 @@ package com.synthbot.jasiohost;
 
 /**
  * This is a protected class meant only to encapsulate the returned values from 
- * <code>AsioDriver.ASIOInit()</code>.
+ * <code>AsioBackend.ASIOInit()</code>.
  */
 public class AsioDriverInfo {
 
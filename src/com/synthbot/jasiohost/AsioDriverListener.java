@@ -38,20 +38,18 @@ public interface AsioDriverListener {
    * The driver requests a reset in the case of an unexpected failure or a device
    * reconfiguration. As this request is being made in a callback, the driver should
    * only be reset after this callback method has returned. The recommended way to reset
-   * the driver is:
+   * the driver is on its control thread:
    * <pre><code>
    * public void resetRequest() {
-   *   new Thread() {
-   *     @Override
-   *     public void run() {
-   * 	     AsioDriver.getDriver().returnToState(AsioDriverState.INITIALIZED);
-   *     }
-   *   }.start();
+   *   AsioDriver.getCurrentDriver().returnToStateAsync(AsioDriverState.INITIALIZED);
    * }
    * </code></pre>
-   * Because all methods are synchronized, this approach will safely return the driver
-   * to the <code>INITIALIZED</code> state as soon as possible. The buffers must then be recreated
-   * and the driver restarted.
+   * The reset is only queued, and this method returns at once. The control thread performs it
+   * after the callback has returned, holding the lock on the driver like any control method, such
+   * that it is ordered with the other operations on the driver. The getters of the driver do not
+   * take the lock, and may be called here without waiting for the reset. Once the driver is in the
+   * <code>INITIALIZED</code> state, the buffers must be recreated and the driver restarted. This method is not called if the driver recovers automatically, as
+   * enabled with <code>AsioDriver.setAutoRecoveryEnabled()</code>.
    */
   public void resetRequest();
   
@@ -82,7 +80,9 @@ public interface AsioDriverListener {
    * @param samplePosition  Sample position since <code>start()</code> was called.
    * @param activeChannels  The set of channels which are active and have allocated buffers. Retrieve
    * the buffers with <code>AsioChannel.getBuffer()</code>, or use <code>AsioChannel.read()</code>
-   * and <code>AsioDriver.write()</code> in order to easily work with <code>float</code> arrays.
+   * and <code>AsioDriver.write()</code> in order to easily work with <code>float</code> arrays. The set
+   * is an unmodifiable <code>AsioChannelSet</code>, which may be indexed with <code>get()</code> in order
+   * to avoid creating an <code>Iterator</code>.
    */
   public void bufferSwitch(long sampleTime, long samplePosition, Set<AsioChannel> activeChannels);
 }
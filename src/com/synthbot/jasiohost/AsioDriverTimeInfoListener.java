@@ -0,0 +1,42 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.util.Set;
+
+/**
+ * An <code>AsioDriverListener</code> which receives the full timing information of each buffer switch,
+ * including the measured sample rate, speed and timecode. It is registered like any other listener with
+ * <code>AsioDriver.addAsioDriverListener()</code>. For a listener which implements this interface,
+ * <code>bufferSwitchTimeInfo()</code> is called <i>instead of</i> <code>bufferSwitch()</code>.
+ */
+public interface AsioDriverTimeInfoListener extends AsioDriverListener {
+
+  /**
+   * The next block of samples is ready. Input buffers are filled with new input, and output buffers
+   * should be filled at the end of this method.
+   * @param timeInfo  The timing information of this block. The same object is updated in place for
+   * every callback, and so it is only valid until this method returns.
+   * @param activeChannels  The set of channels which are active and have allocated buffers, as for
+   * <code>bufferSwitch()</code>.
+   */
+  public void bufferSwitchTimeInfo(AsioTimeInfo timeInfo, Set<AsioChannel> activeChannels);
+}
@@ -0,0 +1,288 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The <code>AsioDropoutDetector</code> compares the sample position and system time of each
+ * <code>bufferSwitch()</code> with those of the previous one. It reports skipped buffers, jumps in the
+ * sample position, and callbacks which arrive late (see <code>AsioDropoutType</code>). Each
+ * <code>AsioDriver</code> has one detector, returned by <code>getDropoutDetector()</code>, which is
+ * reset whenever the driver is started.<br>
+ * <br>
+ * The audio thread only compares a few numbers per callback. When it detects an event, it writes a
+ * fixed-size record into a bounded ring buffer in native memory and wakes the notification thread with
+ * <code>LockSupport.unpark()</code>, which neither blocks nor allocates. The notification thread then
+ * creates an <code>AsioDropoutEvent</code> and passes it to the <code>AsioDropoutListener</code>s. It is
+ * a daemon thread, started when the first listener is added. If the ring is full because the listeners
+ * are too slow, further events are counted but not recorded.
+ */
+public final class AsioDropoutDetector {
+
+  /** The default number of events which may be waiting for the notification thread. */
+  public static final int DEFAULT_CAPACITY = 256;
+
+  /** The default late threshold, as a multiple of the callback period. */
+  public static final double DEFAULT_LATE_THRESHOLD = 1.5;
+
+  // the layout of a record in the ring
+  private static final int TYPE = 0;
+  private static final int SAMPLE_POSITION = 8;
+  private static final int EXPECTED_SAMPLE_POSITION = 16;
+  private static final int SYSTEM_TIME = 24;
+  private static final int PREVIOUS_SYSTEM_TIME = 32;
+  private static final int DETECTION_TIME = 40;
+  private static final int RECORD_SIZE = 48;
+
+  private static final AsioDropoutType[] TYPES = AsioDropoutType.values();
+
+  private final ByteBuffer ring;
+  private final int capacity;
+  private final AtomicLong writeIndex; // written only by the audio thread
+  private final AtomicLong readIndex; // written only by the notification thread
+  private final CopyOnWriteArrayList<AsioDropoutListener> listeners;
+  private volatile Thread notifier;
+  private volatile boolean isShutdown;
+
+  // the state of the audio thread
+  private boolean hasPrevious;
+  private long previousSamplePosition;
+  private long previousSystemTime;
+  private boolean hasPreviousSystemTime; // false if the system time of the previous callback was invalid
+
+  private volatile long periodNanos;
+  private volatile long lateNanos;
+  private volatile double lateThreshold;
+  private volatile long dropoutCount;
+  private volatile long discontinuityCount;
+  private volatile long lateCallbackCount;
+  private volatile long overflowCount;
+
+  AsioDropoutDetector(int capacity) {
+    this.capacity = capacity;
+    ring = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+    writeIndex = new AtomicLong();
+    readIndex = new AtomicLong();
+    listeners = new CopyOnWriteArrayList<AsioDropoutListener>();
+    lateThreshold = DEFAULT_LATE_THRESHOLD;
+  }
+
+  /**
+   * Adds a listener, which is notified of all events detected from now on. The notification thread is
+   * started if necessary.
+   * @param listener  The listener to add.
+   */
+  public synchronized void addDropoutListener(AsioDropoutListener listener) {
+    if (listener == null) {
+      throw new NullPointerException("The listener may not be null.");
+    }
+    listeners.addIfAbsent(listener);
+    if (notifier == null && !isShutdown) {
+      Thread thread = new Thread("AsioDropoutDetector") {
+        @Override
+        public void run() {
+          notifyListeners();
+        }
+      };
+      thread.setDaemon(true);
+      // skip any events which were recorded before anyone was listening
+      readIndex.set(writeIndex.get());
+      notifier = thread;
+      thread.start();
+    }
+  }
+
+  public void removeDropoutListener(AsioDropoutListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns the multiple of the callback period after which a callback is reported as late.
+   */
+  public double getLateThreshold() {
+    return lateThreshold;
+  }
+
+  /**
+   * Sets the multiple of the callback period after which a callback is reported as late. The default
+   * is <code>DEFAULT_LATE_THRESHOLD</code>.
+   * @param threshold  The threshold, which must be greater than one.
+   * @throws IllegalArgumentException  Thrown if the threshold is not greater than one.
+   */
+  public void setLateThreshold(double threshold) {
+    if (!(threshold > 1.0)) {
+      throw new IllegalArgumentException("The late threshold must be greater than one: " +
+          Double.toString(threshold));
+    }
+    lateThreshold = threshold;
+    lateNanos = (long) (periodNanos * threshold);
+  }
+
+  /**
+   * Returns the number of <code>DROPOUT</code> events detected.
+   */
+  public long getDropoutCount() {
+    return dropoutCount;
+  }
+
+  /**
+   * Returns the number of <code>DISCONTINUITY</code> events detected.
+   */
+  public long getDiscontinuityCount() {
+    return discontinuityCount;
+  }
+
+  /**
+   * Returns the number of <code>LATE_CALLBACK</code> events detected.
+   */
+  public long getLateCallbackCount() {
+    return lateCallbackCount;
+  }
+
+  /**
+   * Returns the number of events which were detected while the ring was full, and which were
+   * therefore not passed to the listeners.
+   */
+  public long getOverflowCount() {
+    return overflowCount;
+  }
+
+  /**
+   * Forgets the previous callback, such that the next one is not compared with it. Called when the
+   * driver is started, while there are no callbacks.
+   */
+  void reset(long periodNanos) {
+    hasPrevious = false;
+    this.periodNanos = periodNanos;
+    lateNanos = (long) (periodNanos * lateThreshold);
+  }
+
+  /**
+   * Sets the callback period, i.e. the buffer size divided by the sample rate.
+   */
+  void setPeriodNanos(long periodNanos) {
+    this.periodNanos = periodNanos;
+    lateNanos = (long) (periodNanos * lateThreshold);
+  }
+
+  /**
+   * Checks one callback against the previous one. Called on the audio thread.
+   */
+  void check(AsioTimeInfo timeInfo, int bufferSize) {
+    if (!timeInfo.isSamplePositionValid()) {
+      hasPrevious = false; // nothing can be compared with this callback
+      return;
+    }
+    final long samplePosition = timeInfo.getSamplePosition();
+    final long systemTime = timeInfo.getSystemTime();
+    final boolean isSystemTimeValid = timeInfo.isSystemTimeValid();
+    if (hasPrevious) {
+      final long expected = previousSamplePosition + bufferSize;
+      final long delta = samplePosition - previousSamplePosition;
+      if (delta != bufferSize) {
+        if (delta > 0L && delta % bufferSize == 0L) {
+          dropoutCount++; // there is only one writer
+          record(AsioDropoutType.DROPOUT, samplePosition, expected, systemTime);
+        } else {
+          discontinuityCount++;
+          record(AsioDropoutType.DISCONTINUITY, samplePosition, expected, systemTime);
+        }
+      } else if (isSystemTimeValid && hasPreviousSystemTime && lateNanos > 0L &&
+          systemTime - previousSystemTime > lateNanos) {
+        lateCallbackCount++;
+        record(AsioDropoutType.LATE_CALLBACK, samplePosition, expected, systemTime);
+      }
+    }
+    hasPrevious = true;
+    previousSamplePosition = samplePosition;
+    previousSystemTime = isSystemTimeValid ? systemTime : 0L;
+    hasPreviousSystemTime = isSystemTimeValid;
+  }
+
+  private void record(AsioDropoutType type, long samplePosition, long expected, long systemTime) {
+    final Thread notifier = this.notifier;
+    if (notifier == null) {
+      return; // no one is listening
+    }
+    final long write = writeIndex.get();
+    if (write - readIndex.get() >= capacity) {
+      overflowCount++;
+      return;
+    }
+    final int offset = (int) (write % capacity) * RECORD_SIZE;
+    ring.putInt(offset + TYPE, type.ordinal());
+    ring.putLong(offset + SAMPLE_POSITION, samplePosition);
+    ring.putLong(offset + EXPECTED_SAMPLE_POSITION, expected);
+    ring.putLong(offset + SYSTEM_TIME, systemTime);
+    ring.putLong(offset + PREVIOUS_SYSTEM_TIME, previousSystemTime);
+    ring.putLong(offset + DETECTION_TIME, System.nanoTime());
+    writeIndex.lazySet(write + 1L); // publishes the record
+    LockSupport.unpark(notifier);
+  }
+
+  /**
+   * Stops the notification thread. Called when the driver is unloaded.
+   */
+  synchronized void shutdown() {
+    isShutdown = true;
+    if (notifier != null) {
+      LockSupport.unpark(notifier);
+      notifier = null;
+    }
+  }
+
+  /**
+   * The loop of the notification thread.
+   */
+  private void notifyListeners() {
+    while (!isShutdown) {
+      final long read = readIndex.get();
+      if (read == writeIndex.get()) {
+        // wait to be unparked by the audio thread; the timeout only guards against a missed wakeup
+        LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1L));
+        continue;
+      }
+      final int offset = (int) (read % capacity) * RECORD_SIZE;
+      AsioDropoutEvent event = new AsioDropoutEvent(
+          TYPES[ring.getInt(offset + TYPE)],
+          ring.getLong(offset + SAMPLE_POSITION),
+          ring.getLong(offset + EXPECTED_SAMPLE_POSITION),
+          ring.getLong(offset + SYSTEM_TIME),
+          ring.getLong(offset + PREVIOUS_SYSTEM_TIME),
+          ring.getLong(offset + DETECTION_TIME));
+      readIndex.lazySet(read + 1L); // frees the record
+      for (AsioDropoutListener listener : listeners) {
+        try {
+          listener.dropoutDetected(event);
+        } catch (RuntimeException e) {
+          // a failing listener must not stop the others from being notified
+          Thread.UncaughtExceptionHandler handler = Thread.currentThread().getUncaughtExceptionHandler();
+          handler.uncaughtException(Thread.currentThread(), e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * An irregularity in the sequence of <code>bufferSwitch()</code> callbacks, as detected by the
+ * <code>AsioDropoutDetector</code>. Sample positions and system times are as reported by the driver. The
+ * detection time is the value of <code>System.nanoTime()</code> on the audio thread when the event was
+ * detected, and may be compared with the timestamps of garbage collection logs or other measurements
+ * of the same JVM.
+ */
+public final class AsioDropoutEvent {
+
+  private final AsioDropoutType type;
+  private final long samplePosition;
+  private final long expectedSamplePosition;
+  private final long systemTime;
+  private final long previousSystemTime;
+  private final long detectionTime;
+
+  AsioDropoutEvent(AsioDropoutType type, long samplePosition, long expectedSamplePosition,
+      long systemTime, long previousSystemTime, long detectionTime) {
+    this.type = type;
+    this.samplePosition = samplePosition;
+    this.expectedSamplePosition = expectedSamplePosition;
+    this.systemTime = systemTime;
+    this.previousSystemTime = previousSystemTime;
+    this.detectionTime = detectionTime;
+  }
+
+  public AsioDropoutType getType() {
+    return type;
+  }
+
+  /**
+   * Returns the sample position of the callback at which the event was detected.
+   */
+  public long getSamplePosition() {
+    return samplePosition;
+  }
+
+  /**
+   * Returns the sample position which was expected, i.e. that of the previous callback plus the buffer
+   * size.
+   */
+  public long getExpectedSamplePosition() {
+    return expectedSamplePosition;
+  }
+
+  /**
+   * Returns the number of samples by which the sample position differs from the expected one. This is
+   * the number of samples lost in a <code>DROPOUT</code>, and zero for a <code>LATE_CALLBACK</code>.
+   */
+  public long getSampleOffset() {
+    return samplePosition - expectedSamplePosition;
+  }
+
+  /**
+   * Returns the system time of the callback at which the event was detected, in nanoseconds.
+   */
+  public long getSystemTime() {
+    return systemTime;
+  }
+
+  /**
+   * Returns the system time of the previous callback, in nanoseconds, or zero if the driver did not
+   * give a valid system time for it.
+   */
+  public long getPreviousSystemTime() {
+    return previousSystemTime;
+  }
+
+  /**
+   * Returns the time between the previous callback and the callback at which the event was detected,
+   * in nanoseconds.
+   */
+  public long getGapNanos() {
+    return systemTime - previousSystemTime;
+  }
+
+  /**
+   * Returns the value of <code>System.nanoTime()</code> when the event was detected.
+   */
+  public long getDetectionTime() {
+    return detectionTime;
+  }
+
+  @Override
+  public String toString() {
+    return type.toString() + " at sample " + Long.toString(samplePosition) +
+        " (expected " + Long.toString(expectedSamplePosition) + "), gap: " +
+        Long.toString(getGapNanos()) + "ns";
+  }
+}
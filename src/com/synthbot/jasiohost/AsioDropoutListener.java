@@ -0,0 +1,35 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * This interface receives the events of an <code>AsioDropoutDetector</code>.
+ */
+public interface AsioDropoutListener {
+
+  /**
+   * An irregularity was detected in the sequence of <code>bufferSwitch()</code> callbacks. This method
+   * is called on the detector's notification thread, never on the audio thread, and so it may block or
+   * allocate freely. Events are delivered in the order in which they were detected.
+   * @param event  The detected event.
+   */
+  public void dropoutDetected(AsioDropoutEvent event);
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * This class enumerates the irregularities in the sequence of <code>bufferSwitch()</code> callbacks which
+ * are reported by the <code>AsioDropoutDetector</code>.
+ */
+public enum AsioDropoutType {
+
+  /**
+   * The sample position advanced by a whole multiple of the buffer size greater than one. The driver
+   * skipped one or more buffers, and their audio was lost.
+   */
+  DROPOUT,
+
+  /**
+   * The sample position jumped by an amount which is not a multiple of the buffer size, or went
+   * backwards. This usually follows a resynchronisation of the driver.
+   */
+  DISCONTINUITY,
+
+  /**
+   * The system time advanced by more than the late threshold of the detector, although no samples
+   * were lost. The callback arrived late, and with it the deadline for the output.
+   */
+  LATE_CALLBACK;
+}
@@ -0,0 +1,549 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An <code>AsioDriverListener</code> which plays WAV or RF64 files into output channels, e.g. the stems
+ * of a multitrack session. Each file is a track, of which each channel plays into one output:
+ * <pre><code>
+ * AsioFilePlayer player = new AsioFilePlayer(driver);
+ * player.addTrack(new File("drums.wav"), driver.getChannelOutput(0), driver.getChannelOutput(1));
+ * player.addTrack(new File("bass.wav"), driver.getChannelOutput(2));
+ * driver.addAsioDriverListener(player);
+ * player.play();
+ * </code></pre>
+ * The samples of each file are memory-mapped in windows of a few megabytes. If the format of a file
+ * matches the sample type of its output, e.g. a 24-bit file and <code>ASIOSTInt24LSB</code>, then the
+ * samples are copied byte for byte from the mapping into the output buffer. Otherwise they are
+ * converted as by <code>AsioChannel.write()</code>, through a preallocated array. A background thread
+ * loads the windows ahead of the play position, and at the start of the loop, with
+ * <code>MappedByteBuffer.load()</code>, such that the audio thread does not wait for the disk.
+ * <code>seek()</code> and <code>setLoop()</code> load the windows at their target before they take
+ * effect.<br>
+ * <br>
+ * Seeking and looping are sample-accurate. A seek takes effect at the start of the next
+ * <code>bufferSwitch()</code>, and a loop returns to its start within the buffer in which it ends.
+ * Tracks which are shorter than the longest track are silent after their end. At the end of the
+ * longest track, playback pauses. While paused, the outputs of the player are not written, and so are
+ * silenced by the driver (see <code>AsioDriver.setSilencingUnwrittenOutputs()</code>). Files are not
+ * resampled, and should have the sample rate of the driver. Each output may be played by only one
+ * track.<br>
+ * <br>
+ * The mappings occupy address space for the whole of each file, which may limit the total size of the
+ * files on a 32-bit JVM. They are released by the garbage collector after <code>close()</code>.
+ */
+public final class AsioFilePlayer implements AsioDriverListener, Closeable {
+
+  // the size of a mapped window, which is rounded down to whole frames
+  private static final int WINDOW_BYTES = 1 << 22;
+  // the number of windows beyond the current one which are loaded ahead of the play position
+  private static final int PREFETCH_WINDOWS = 2;
+  private static final long PREFETCH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+
+  private final AsioDriver driver;
+  private volatile Track[] tracks;
+  private volatile Loop loop;
+  private volatile boolean isPlaying;
+  private volatile long position; // written only by the audio thread
+  private volatile long length;
+  private final AtomicLong pendingSeek; // a position to seek to, or -1
+  private Thread prefetcher;
+  private volatile boolean isClosed;
+
+  /**
+   * @param driver  The driver of the outputs. It must be at least in the <code>INITIALIZED</code>
+   * state.
+   */
+  public AsioFilePlayer(AsioDriver driver) {
+    if (driver == null) {
+      throw new NullPointerException("The driver may not be null.");
+    }
+    this.driver = driver;
+    tracks = new Track[0];
+    pendingSeek = new AtomicLong(-1L);
+  }
+
+  /**
+   * Adds a track, which plays from the current position onwards. Its windows at the current position
+   * are loaded before it is added.
+   * @param file  A WAV or RF64 file, of a format supported by <code>WavFileSource</code>.
+   * @param outputs  The outputs of the channels of the file, in order. Channels without an output, or
+   * whose output is <code>null</code>, are not played.
+   * @throws IllegalArgumentException  Thrown if an output is not an output channel, or is already
+   * played by another track.
+   * @throws IllegalStateException  Thrown if the player has been closed.
+   * @throws IOException  Thrown if the file cannot be read or mapped.
+   */
+  public synchronized void addTrack(File file, AsioChannel... outputs) throws IOException {
+    if (isClosed) {
+      throw new IllegalStateException("The player has been closed.");
+    }
+    for (AsioChannel output : outputs) {
+      if (output == null) {
+        continue;
+      }
+      if (output.isInput()) {
+        throw new IllegalArgumentException("Only outputs can be played into: " + output.toString());
+      }
+      for (Track track : tracks) {
+        if (Arrays.asList(track.outputs).contains(output)) {
+          throw new IllegalArgumentException("The output is already played: " + output.toString());
+        }
+      }
+    }
+    Track track = new Track(file, outputs,
+        Math.max(driver.getBufferMaxSize(), driver.getBufferPreferredSize()));
+    track.prefetch(getPosition(), loop);
+    Track[] newTracks = Arrays.copyOf(tracks, tracks.length + 1);
+    newTracks[tracks.length] = track;
+    tracks = newTracks;
+    length = Math.max(length, track.frameCount);
+    if (prefetcher == null) {
+      prefetcher = new Thread("AsioFilePlayer") {
+        @Override
+        public void run() {
+          prefetch();
+        }
+      };
+      prefetcher.setDaemon(true);
+      prefetcher.start();
+    }
+  }
+
+  /**
+   * Returns the length of the longest track, in frames.
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the play position, in frames. A requested seek is returned before it takes effect.
+   */
+  public long getPosition() {
+    final long seek = pendingSeek.get();
+    return (seek >= 0L) ? seek : position;
+  }
+
+  public boolean isPlaying() {
+    return isPlaying;
+  }
+
+  /**
+   * Starts playback at the next <code>bufferSwitch()</code>. Playback starts from the beginning if the
+   * position is at the end.
+   */
+  public void play() {
+    if (getPosition() >= length) {
+      seek(0L);
+    }
+    isPlaying = true;
+  }
+
+  /**
+   * Pauses playback at the next <code>bufferSwitch()</code>, keeping the position.
+   */
+  public void pause() {
+    isPlaying = false;
+  }
+
+  /**
+   * Moves the play position to the given frame at the start of the next <code>bufferSwitch()</code>.
+   * The windows at the new position are loaded before this method returns.
+   * @param frame  The new position, in [0, <code>getLength()</code>].
+   * @throws IllegalArgumentException  Thrown if the position is outside of the tracks.
+   */
+  public void seek(long frame) {
+    if (frame < 0L || frame > length) {
+      throw new IllegalArgumentException("The position must be in [0," + Long.toString(length) + "]: " +
+          Long.toString(frame));
+    }
+    for (Track track : tracks) {
+      track.load(frame);
+    }
+    pendingSeek.set(frame);
+    LockSupport.unpark(prefetcher);
+  }
+
+  /**
+   * Loops playback between the given frames. When the play position reaches <code>end</code>, it
+   * returns to <code>start</code> within the same buffer. A position after <code>end</code> plays on
+   * to the end of the tracks. The windows at the start of the loop are loaded before this method
+   * returns.
+   * @param start  The first frame of the loop.
+   * @param end  The frame after the last frame of the loop.
+   * @throws IllegalArgumentException  Thrown unless <code>0 <= start < end</code>.
+   */
+  public void setLoop(long start, long end) {
+    if (start < 0L || end <= start) {
+      throw new IllegalArgumentException("The loop must satisfy 0 <= start < end: " +
+          Long.toString(start) + ", " + Long.toString(end));
+    }
+    for (Track track : tracks) {
+      track.load(start);
+    }
+    loop = new Loop(start, end);
+  }
+
+  public void clearLoop() {
+    loop = null;
+  }
+
+  /**
+   * Stops playback and the prefetch thread, and releases the tracks. The player must be removed from
+   * the driver beforehand.
+   */
+  public synchronized void close() {
+    isPlaying = false;
+    isClosed = true;
+    tracks = new Track[0];
+    if (prefetcher != null) {
+      LockSupport.unpark(prefetcher);
+      prefetcher = null;
+    }
+  }
+
+  public void bufferSwitch(long systemTime, long samplePosition, Set<AsioChannel> activeChannels) {
+    long position = this.position;
+    final long seek = pendingSeek.getAndSet(-1L);
+    if (seek >= 0L) {
+      position = seek;
+    }
+    if (!isPlaying) {
+      this.position = position;
+      return;
+    }
+    final Track[] tracks = this.tracks;
+    final int bufferSize = driver.getBufferSize();
+    for (Track track : tracks) {
+      track.begin();
+    }
+    int offset = 0;
+    while (offset < bufferSize) {
+      final Loop loop = this.loop;
+      final boolean isLooping = loop != null && position < loop.end;
+      final long end = isLooping ? loop.end : length;
+      if (position >= end) {
+        // the end of the tracks
+        for (Track track : tracks) {
+          track.silence(offset, bufferSize - offset);
+        }
+        isPlaying = false;
+        break;
+      }
+      final int frames = (int) Math.min(bufferSize - offset, end - position);
+      for (Track track : tracks) {
+        track.play(position, offset, frames);
+      }
+      offset += frames;
+      position += frames;
+      if (isLooping && position == loop.end) {
+        position = loop.start;
+      }
+    }
+    this.position = position;
+  }
+
+  /**
+   * The loop of the prefetch thread.
+   */
+  private void prefetch() {
+    while (!isClosed) {
+      final long position = getPosition();
+      final Loop loop = this.loop;
+      for (Track track : tracks) {
+        track.prefetch(position, loop);
+      }
+      LockSupport.parkNanos(this, PREFETCH_INTERVAL_NANOS);
+    }
+  }
+
+  public void sampleRateDidChange(double sampleRate) {}
+
+  public void resetRequest() {}
+
+  public void resyncRequest() {}
+
+  public void bufferSizeChanged(int bufferSize) {}
+
+  public void latenciesChanged(int inputLatency, int outputLatency) {}
+
+  private static final class Loop {
+    private final long start;
+    private final long end;
+
+    private Loop(long start, long end) {
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  /**
+   * One mapped file, and the outputs of its channels.
+   */
+  private static final class Track {
+
+    private final AsioChannel[] outputs; // one per channel of the file, or null
+    private final int numChannels;
+    private final int bitsPerSample;
+    private final boolean isFloatingPoint;
+    private final int bytesPerSample;
+    private final int blockAlign;
+    private final long frameCount;
+    private final int windowFrames;
+    private final MappedByteBuffer[] windows;
+    private final boolean[] isLoaded; // of the prefetch thread
+
+    // the state of the audio thread
+    private final ByteBuffer[] windowViews;
+    private final boolean[] isDirect; // whether the samples of a channel are copied byte for byte
+    private final ByteBuffer[][] outputViews;
+    private final ByteBuffer[][] outputOrigins;
+    private final float[] samples;
+    private final ByteBuffer[] currentOutputs;
+
+    private Track(File file, AsioChannel[] outputs, int maxBufferSize) throws IOException {
+      WavFileSource source = new WavFileSource(file);
+      final long dataOffset;
+      try {
+        numChannels = source.getNumChannels();
+        bitsPerSample = source.getBitsPerSample();
+        isFloatingPoint = source.isFloatingPoint();
+        frameCount = source.getFrameCount();
+        dataOffset = source.getDataOffset();
+      } finally {
+        source.close();
+      }
+      this.outputs = Arrays.copyOf(outputs, numChannels);
+      bytesPerSample = bitsPerSample / 8;
+      blockAlign = numChannels * bytesPerSample;
+      windowFrames = Math.max(1, WINDOW_BYTES / blockAlign);
+      final int numWindows = (int) ((frameCount + windowFrames - 1) / windowFrames);
+      windows = new MappedByteBuffer[numWindows];
+      windowViews = new ByteBuffer[numWindows];
+      isLoaded = new boolean[numWindows];
+      RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+      try {
+        FileChannel channel = randomAccessFile.getChannel();
+        // the file may be shorter than its header claims
+        final long mappableFrames = Math.min(frameCount, (channel.size() - dataOffset) / blockAlign);
+        for (int i = 0; i < numWindows; i++) {
+          final long firstFrame = (long) i * windowFrames;
+          final long frames = Math.max(0L, Math.min(windowFrames, mappableFrames - firstFrame));
+          windows[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+              dataOffset + firstFrame * blockAlign, frames * blockAlign);
+          windows[i].order(ByteOrder.LITTLE_ENDIAN);
+          windowViews[i] = windows[i].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+      } finally {
+        randomAccessFile.close(); // the mappings remain valid
+      }
+      isDirect = new boolean[numChannels];
+      for (int c = 0; c < numChannels; c++) {
+        isDirect[c] = this.outputs[c] != null && matches(this.outputs[c].getSampleType());
+      }
+      outputViews = new ByteBuffer[numChannels][2];
+      outputOrigins = new ByteBuffer[numChannels][2];
+      currentOutputs = new ByteBuffer[numChannels];
+      samples = new float[maxBufferSize];
+    }
+
+    /**
+     * Returns true if the samples of the file have the format of the given sample type.
+     */
+    private boolean matches(AsioSampleType sampleType) {
+      switch (sampleType) {
+        case ASIOSTInt16LSB: return !isFloatingPoint && bitsPerSample == 16;
+        case ASIOSTInt24LSB: return !isFloatingPoint && bitsPerSample == 24;
+        case ASIOSTInt32LSB: return !isFloatingPoint && bitsPerSample == 32;
+        case ASIOSTFloat32LSB: return isFloatingPoint && bitsPerSample == 32;
+        case ASIOSTFloat64LSB: return isFloatingPoint && bitsPerSample == 64;
+        default: return false;
+      }
+    }
+
+    /**
+     * Loads the windows from the given frame onwards, which are not already loaded. Called by the
+     * prefetch thread, and by control methods before they take effect.
+     */
+    private synchronized void load(long frame) {
+      if (windows.length == 0) {
+        return;
+      }
+      final int first = (int) Math.min(frame / windowFrames, windows.length - 1);
+      final int last = Math.min(first + PREFETCH_WINDOWS, windows.length - 1);
+      for (int i = first; i <= last; i++) {
+        if (!isLoaded[i]) {
+          windows[i].load();
+          isLoaded[i] = true;
+        }
+      }
+    }
+
+    /**
+     * Loads the windows ahead of the play position and at the start of the loop, and forgets those
+     * which have been left behind, such that they are loaded again when they are next approached.
+     */
+    private synchronized void prefetch(long position, Loop loop) {
+      final int current = (int) (position / windowFrames);
+      final int loopStart = (loop == null) ? -1 : (int) (loop.start / windowFrames);
+      for (int i = 0; i < windows.length; i++) {
+        final boolean isAhead = i >= current && i <= current + PREFETCH_WINDOWS;
+        final boolean isAtLoop = i >= loopStart && i <= loopStart + PREFETCH_WINDOWS;
+        if (!isAhead && !isAtLoop) {
+          isLoaded[i] = false;
+        }
+      }
+      load(position);
+      if (loop != null) {
+        load(loop.start);
+      }
+    }
+
+    /**
+     * Prepares the outputs for the current <code>bufferSwitch()</code>. Called on the audio thread.
+     */
+    private void begin() {
+      for (int c = 0; c < numChannels; c++) {
+        final AsioChannel output = outputs[c];
+        if (output == null || !output.isActive()) {
+          currentOutputs[c] = null;
+          continue;
+        }
+        if (isDirect[c]) {
+          final int bufferIndex = output.getBufferIndex();
+          final ByteBuffer origin = output.getByteBuffer(bufferIndex); // marks the output as written
+          if (origin != outputOrigins[c][bufferIndex]) {
+            // the driver has created new buffers
+            outputOrigins[c][bufferIndex] = origin;
+            outputViews[c][bufferIndex] = origin.duplicate();
+          }
+          currentOutputs[c] = outputViews[c][bufferIndex];
+        } else {
+          currentOutputs[c] = null;
+        }
+      }
+    }
+
+    /**
+     * Plays the given frames of the track into the outputs, from the given offset in the buffer.
+     */
+    private void play(long position, int offset, int frames) {
+      final int available = (int) Math.max(0L, Math.min(frames, frameCount - position));
+      int done = 0;
+      while (done < available) {
+        final long frame = position + done;
+        final int window = (int) (frame / windowFrames);
+        final int windowOffset = (int) (frame % windowFrames);
+        final ByteBuffer view = windowViews[window];
+        // the window is shorter than the header claims if the file is truncated
+        final int length = Math.min(available - done,
+            Math.min(windowFrames, view.capacity() / blockAlign) - windowOffset);
+        if (length <= 0) {
+          break;
+        }
+        copy(view, windowOffset * blockAlign, offset + done, length);
+        done += length;
+      }
+      if (done < frames) {
+        silence(offset + done, frames - done);
+      }
+    }
+
+    private void copy(ByteBuffer view, int index, int offset, int frames) {
+      for (int c = 0; c < numChannels; c++) {
+        final AsioChannel output = outputs[c];
+        if (output == null || !output.isActive()) {
+          continue;
+        }
+        final int channelIndex = index + c * bytesPerSample;
+        if (isDirect[c]) {
+          final ByteBuffer out = currentOutputs[c];
+          if (numChannels == 1) {
+            view.limit(channelIndex + frames * bytesPerSample).position(channelIndex);
+            out.limit(out.capacity()).position(offset * bytesPerSample);
+            out.put(view);
+          } else {
+            for (int i = 0; i < frames; i++) {
+              final int from = channelIndex + i * blockAlign;
+              final int to = (offset + i) * bytesPerSample;
+              for (int b = 0; b < bytesPerSample; b++) {
+                out.put(to + b, view.get(from + b));
+              }
+            }
+          }
+        } else {
+          int done = 0;
+          while (done < frames) {
+            final int length = Math.min(frames - done, samples.length);
+            for (int i = 0; i < length; i++) {
+              samples[i] = WavFileSource.getSample(view, channelIndex + (done + i) * blockAlign,
+                  bitsPerSample, isFloatingPoint);
+            }
+            output.write(samples, 0, length);
+            done += length;
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes silence to the outputs, from the given offset in the buffer.
+     */
+    private void silence(int offset, int frames) {
+      for (int c = 0; c < numChannels; c++) {
+        final AsioChannel output = outputs[c];
+        if (output == null || !output.isActive()) {
+          continue;
+        }
+        if (isDirect[c]) {
+          final ByteBuffer out = currentOutputs[c];
+          for (int i = offset * bytesPerSample; i < (offset + frames) * bytesPerSample; i++) {
+            out.put(i, (byte) 0); // zero is silence in all of the direct formats
+          }
+        } else {
+          Arrays.fill(samples, 0.0f);
+          int done = 0;
+          while (done < frames) {
+            final int length = Math.min(frames - done, samples.length);
+            output.write(samples, 0, length);
+            done += length;
+          }
+        }
+      }
+    }
+  }
+}
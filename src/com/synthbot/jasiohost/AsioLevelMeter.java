@@ -0,0 +1,415 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * The <code>AsioLevelMeter</code> measures the peak, RMS and true-peak levels of an input
+ * <code>AsioChannel</code>. It is enabled with <code>AsioChannel.setMeteringEnabled()</code>, after
+ * which every block of samples read from the channel with <code>read()</code> or
+ * <code>readInterleaved()</code> is metered within the same call. For the <code>Float32</code>,
+ * <code>Int32</code> and packed <code>Int24</code> sample types, samples are metered in the same loop
+ * which converts them; for the other sample types, the converted block is metered afterwards. Samples
+ * which are not read are not metered. True-peak levels are measured by oversampling by four with
+ * the interpolation filter of ITU-R BS.1770.<br>
+ * <br>
+ * Levels are measured over consecutive windows of <code>getWindowLength()</code> samples. When a window
+ * is complete, its levels are published with a sequence lock: the audio thread increments a sequence
+ * number before and after writing them, and a reader retries if the number was odd or changed while it
+ * read. The audio thread therefore never waits or allocates, and a reader always sees the levels of one
+ * whole window. Levels may be read from any thread with <code>getLevels()</code>.
+ */
+public final class AsioLevelMeter {
+
+  /** The default window length, about 43ms at 48kHz. */
+  public static final int DEFAULT_WINDOW_LENGTH = 2048;
+
+  /**
+   * The 48-tap interpolation filter of ITU-R BS.1770-4, Annex 2, as four phases of 12 taps.
+   */
+  private static final float[][] PHASES = {
+    {0.0017089843750f, 0.0109863281250f, -0.0196533203125f, 0.0332031250000f, -0.0594482421875f,
+      0.1373291015625f, 0.9721679687500f, -0.1022949218750f, 0.0476074218750f, -0.0266113281250f,
+      0.0148925781250f, -0.0083007812500f},
+    {-0.0291748046875f, 0.0292968750000f, -0.0517578125000f, 0.0891113281250f, -0.1665039062500f,
+      0.4650878906250f, 0.7797851562500f, -0.2003173828125f, 0.1015625000000f, -0.0582275390625f,
+      0.0330810546875f, -0.0189208984375f},
+    {-0.0189208984375f, 0.0330810546875f, -0.0582275390625f, 0.1015625000000f, -0.2003173828125f,
+      0.7797851562500f, 0.4650878906250f, -0.1665039062500f, 0.0891113281250f, -0.0517578125000f,
+      0.0292968750000f, -0.0291748046875f},
+    {-0.0083007812500f, 0.0148925781250f, -0.0266113281250f, 0.0476074218750f, -0.1022949218750f,
+      0.9721679687500f, 0.1373291015625f, -0.0594482421875f, 0.0332031250000f, -0.0196533203125f,
+      0.0109863281250f, 0.0017089843750f}
+  };
+  private static final int TAPS = 12;
+  private static final float MAX_GAIN; // the greatest sum of the absolute taps of any phase
+  private static final int CHUNK = 256; // the number of samples copied into the history at once
+
+  static {
+    float maxGain = 0.0f;
+    for (float[] h : PHASES) {
+      float gain = 0.0f;
+      for (float tap : h) {
+        gain += Math.abs(tap);
+      }
+      maxGain = Math.max(maxGain, gain);
+    }
+    MAX_GAIN = maxGain;
+  }
+
+  // the state of the audio thread
+  private final float[] history; // the last TAPS-1 samples, followed by the current chunk
+  private float peak;
+  private double sumOfSquares;
+  private float truePeak;
+  private int count; // the number of samples in the current window
+  private int currentWindowLength;
+  private long windowIndex;
+
+  // the published levels, guarded by the sequence number
+  private volatile int sequence;
+  private volatile float publishedPeak;
+  private volatile float publishedRms;
+  private volatile float publishedTruePeak;
+  private volatile long publishedWindowIndex;
+
+  private volatile int windowLength;
+  private volatile boolean isTruePeakEnabled;
+
+  AsioLevelMeter() {
+    history = new float[TAPS - 1 + CHUNK];
+    windowLength = DEFAULT_WINDOW_LENGTH;
+    currentWindowLength = DEFAULT_WINDOW_LENGTH;
+    isTruePeakEnabled = true;
+  }
+
+  /**
+   * Returns the number of samples over which levels are measured.
+   */
+  public int getWindowLength() {
+    return windowLength;
+  }
+
+  /**
+   * Sets the number of samples over which levels are measured. The new length takes effect from the
+   * next window. A window somewhat shorter than the interval at which levels are read ensures that no
+   * peak is missed.
+   * @param windowLength  The new window length, in samples.
+   * @throws IllegalArgumentException  Thrown if <code>windowLength</code> is not positive.
+   */
+  public void setWindowLength(int windowLength) {
+    if (windowLength <= 0) {
+      throw new IllegalArgumentException("The window length must be positive: " +
+          Integer.toString(windowLength));
+    }
+    this.windowLength = windowLength;
+  }
+
+  public boolean isTruePeakEnabled() {
+    return isTruePeakEnabled;
+  }
+
+  /**
+   * Enables or disables the measurement of true-peak levels, which is enabled by default. Oversampling
+   * is by far the most expensive part of metering, costing 48 multiplications per sample, although it is
+   * skipped for blocks which are well below the true peak of the window so far. While it is disabled,
+   * the true-peak level is equal to the sample peak level.
+   * @param enabled  <code>true</code> to measure true-peak levels.
+   */
+  public void setTruePeakEnabled(boolean enabled) {
+    isTruePeakEnabled = enabled;
+  }
+
+  /**
+   * Returns the levels of the most recently completed window. This method never blocks the audio
+   * thread, and may be called from any thread.
+   */
+  public AsioLevels getLevels() {
+    while (true) {
+      int s = sequence;
+      if ((s & 1) == 0) {
+        float peak = publishedPeak;
+        float rms = publishedRms;
+        float truePeak = publishedTruePeak;
+        long windowIndex = publishedWindowIndex;
+        if (sequence == s) {
+          return new AsioLevels(peak, rms, truePeak, windowIndex);
+        }
+      }
+      Thread.yield(); // the audio thread is publishing, which takes a few nanoseconds
+    }
+  }
+
+  /**
+   * Meters <code>length</code> samples of <code>src</code>, starting at <code>offset</code> and
+   * <code>stride</code> elements apart, after they have been read. Called on the audio thread for the
+   * sample types without a metered read kernel. Each sample is copied into the history
+   * and accumulated into the peak and RMS levels in the same loop, such that the samples are only passed
+   * over once (twice with true-peak metering).
+   */
+  void process(float[] src, int offset, int stride, int length) {
+    final float[] history = this.history;
+    while (length > 0) {
+      final int n = Math.min(length, CHUNK);
+      for (int start = 0, end; start < n; start = end) {
+        end = Math.min(n, start + currentWindowLength - count);
+        float peak = 0.0f;
+        double sumOfSquares = this.sumOfSquares;
+        for (int i = TAPS - 1 + start, j = offset + start * stride; i < TAPS - 1 + end; i++, j += stride) {
+          final float x = src[j];
+          history[i] = x;
+          final float ax = Math.abs(x);
+          peak = ax > peak ? ax : peak;
+          sumOfSquares += x * x;
+        }
+        this.sumOfSquares = sumOfSquares;
+        accumulate(start, end, peak);
+      }
+      System.arraycopy(history, n, history, 0, TAPS - 1);
+      offset += n * stride;
+      length -= n;
+    }
+  }
+
+  /**
+   * The <code>double</code> equivalent of <code>process(float[], int, int, int)</code>.
+   */
+  void process(double[] src, int offset, int stride, int length) {
+    final float[] history = this.history;
+    while (length > 0) {
+      final int n = Math.min(length, CHUNK);
+      for (int start = 0, end; start < n; start = end) {
+        end = Math.min(n, start + currentWindowLength - count);
+        float peak = 0.0f;
+        double sumOfSquares = this.sumOfSquares;
+        for (int i = TAPS - 1 + start, j = offset + start * stride; i < TAPS - 1 + end; i++, j += stride) {
+          final float x = (float) src[j];
+          history[i] = x;
+          final float ax = Math.abs(x);
+          peak = ax > peak ? ax : peak;
+          sumOfSquares += x * x;
+        }
+        this.sumOfSquares = sumOfSquares;
+        accumulate(start, end, peak);
+      }
+      System.arraycopy(history, n, history, 0, TAPS - 1);
+      offset += n * stride;
+      length -= n;
+    }
+  }
+
+  /**
+   * Copies the first <code>length</code> samples of <code>src</code> into <code>dst</code>, starting at
+   * <code>offset</code> and <code>stride</code> elements apart, and meters them in the same loop. Called
+   * on the audio thread by the metered read kernels, with <code>src</code> holding the samples as they
+   * were transferred from the native buffer.
+   */
+  void process(float[] src, float[] dst, int offset, int stride, int length) {
+    final float[] history = this.history;
+    int position = 0; // the index in src of the first sample of the chunk
+    while (length > 0) {
+      final int n = Math.min(length, CHUNK);
+      for (int start = 0, end; start < n; start = end) {
+        end = Math.min(n, start + currentWindowLength - count);
+        float peak = 0.0f;
+        double sumOfSquares = this.sumOfSquares;
+        for (int i = TAPS - 1 + start, j = offset + start * stride, k = position + start;
+            i < TAPS - 1 + end; i++, j += stride, k++) {
+          final float x = src[k];
+          dst[j] = x;
+          history[i] = x;
+          final float ax = Math.abs(x);
+          peak = ax > peak ? ax : peak;
+          sumOfSquares += x * x;
+        }
+        this.sumOfSquares = sumOfSquares;
+        accumulate(start, end, peak);
+      }
+      System.arraycopy(history, n, history, 0, TAPS - 1);
+      position += n;
+      offset += n * stride;
+      length -= n;
+    }
+  }
+
+  /**
+   * As <code>process(float[], float[], int, int, int)</code>, but into <code>double</code> samples.
+   */
+  void process(float[] src, double[] dst, int offset, int stride, int length) {
+    final float[] history = this.history;
+    int position = 0; // the index in src of the first sample of the chunk
+    while (length > 0) {
+      final int n = Math.min(length, CHUNK);
+      for (int start = 0, end; start < n; start = end) {
+        end = Math.min(n, start + currentWindowLength - count);
+        float peak = 0.0f;
+        double sumOfSquares = this.sumOfSquares;
+        for (int i = TAPS - 1 + start, j = offset + start * stride, k = position + start;
+            i < TAPS - 1 + end; i++, j += stride, k++) {
+          final float x = src[k];
+          dst[j] = x;
+          history[i] = x;
+          final float ax = Math.abs(x);
+          peak = ax > peak ? ax : peak;
+          sumOfSquares += x * x;
+        }
+        this.sumOfSquares = sumOfSquares;
+        accumulate(start, end, peak);
+      }
+      System.arraycopy(history, n, history, 0, TAPS - 1);
+      position += n;
+      offset += n * stride;
+      length -= n;
+    }
+  }
+
+  /**
+   * Scales the first <code>length</code> integer samples of <code>src</code> by <code>scale</code> into
+   * <code>dst</code>, starting at <code>offset</code> and <code>stride</code> elements apart, and meters
+   * them in the same loop. Called on the audio thread by the metered read kernels.
+   */
+  void process(int[] src, float scale, float[] dst, int offset, int stride, int length) {
+    final float[] history = this.history;
+    int position = 0; // the index in src of the first sample of the chunk
+    while (length > 0) {
+      final int n = Math.min(length, CHUNK);
+      for (int start = 0, end; start < n; start = end) {
+        end = Math.min(n, start + currentWindowLength - count);
+        float peak = 0.0f;
+        double sumOfSquares = this.sumOfSquares;
+        for (int i = TAPS - 1 + start, j = offset + start * stride, k = position + start;
+            i < TAPS - 1 + end; i++, j += stride, k++) {
+          final float x = src[k] * scale;
+          dst[j] = x;
+          history[i] = x;
+          final float ax = Math.abs(x);
+          peak = ax > peak ? ax : peak;
+          sumOfSquares += x * x;
+        }
+        this.sumOfSquares = sumOfSquares;
+        accumulate(start, end, peak);
+      }
+      System.arraycopy(history, n, history, 0, TAPS - 1);
+      position += n;
+      offset += n * stride;
+      length -= n;
+    }
+  }
+
+  /**
+   * As <code>process(int[], float, float[], int, int, int)</code>, but into <code>double</code> samples.
+   * Samples are metered at single precision, as they are by <code>process(double[], int, int, int)</code>.
+   */
+  void process(int[] src, double scale, double[] dst, int offset, int stride, int length) {
+    final float[] history = this.history;
+    int position = 0; // the index in src of the first sample of the chunk
+    while (length > 0) {
+      final int n = Math.min(length, CHUNK);
+      for (int start = 0, end; start < n; start = end) {
+        end = Math.min(n, start + currentWindowLength - count);
+        float peak = 0.0f;
+        double sumOfSquares = this.sumOfSquares;
+        for (int i = TAPS - 1 + start, j = offset + start * stride, k = position + start;
+            i < TAPS - 1 + end; i++, j += stride, k++) {
+          final double y = src[k] * scale;
+          dst[j] = y;
+          final float x = (float) y;
+          history[i] = x;
+          final float ax = Math.abs(x);
+          peak = ax > peak ? ax : peak;
+          sumOfSquares += x * x;
+        }
+        this.sumOfSquares = sumOfSquares;
+        accumulate(start, end, peak);
+      }
+      System.arraycopy(history, n, history, 0, TAPS - 1);
+      position += n;
+      offset += n * stride;
+      length -= n;
+    }
+  }
+
+  /**
+   * Completes the metering of the history from <code>start</code> to <code>end</code>, which lies within
+   * one window and whose sample peak is <code>peak</code>, and publishes the window if it is complete.
+   * Oversampling is skipped if even the greatest possible interpolated value could not exceed the true
+   * peak so far.
+   */
+  private void accumulate(int start, int end, float peak) {
+    this.peak = Math.max(this.peak, peak);
+
+    if (isTruePeakEnabled) {
+      final int first = TAPS - 1 + start; // the index of the first sample in the history
+      final int last = TAPS - 1 + end;
+      float bound = peak;
+      for (int n = start; n < first; n++) {
+        final float ax = Math.abs(history[n]);
+        bound = ax > bound ? ax : bound;
+      }
+      float truePeak = this.truePeak;
+      if (MAX_GAIN * bound > truePeak) {
+        for (int p = 0; p < PHASES.length; p++) {
+          truePeak = interpolatePeak(PHASES[p], first, last, truePeak);
+        }
+        this.truePeak = truePeak;
+      }
+    }
+
+    count += end - start;
+    if (count == currentWindowLength) {
+      publish();
+    }
+  }
+
+  /**
+   * Returns the greater of <code>peak</code> and the greatest absolute value of one phase of the
+   * oversampled signal.
+   */
+  private float interpolatePeak(float[] h, int first, int last, float peak) {
+    final float[] x = history;
+    final float h0 = h[0], h1 = h[1], h2 = h[2], h3 = h[3], h4 = h[4], h5 = h[5];
+    final float h6 = h[6], h7 = h[7], h8 = h[8], h9 = h[9], h10 = h[10], h11 = h[11];
+    for (int n = first; n < last; n++) {
+      final float y = h0 * x[n] + h1 * x[n - 1] + h2 * x[n - 2] + h3 * x[n - 3] + h4 * x[n - 4] +
+          h5 * x[n - 5] + h6 * x[n - 6] + h7 * x[n - 7] + h8 * x[n - 8] + h9 * x[n - 9] +
+          h10 * x[n - 10] + h11 * x[n - 11];
+      final float ay = Math.abs(y);
+      peak = ay > peak ? ay : peak;
+    }
+    return peak;
+  }
+
+  private void publish() {
+    windowIndex++;
+    int s = sequence;
+    sequence = s + 1;
+    publishedPeak = peak;
+    publishedRms = (float) Math.sqrt(sumOfSquares / count);
+    publishedTruePeak = Math.max(peak, truePeak);
+    publishedWindowIndex = windowIndex;
+    sequence = s + 2;
+
+    peak = 0.0f;
+    sumOfSquares = 0.0;
+    truePeak = 0.0f;
+    count = 0;
+    currentWindowLength = windowLength;
+  }
+}
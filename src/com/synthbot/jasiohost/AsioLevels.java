@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * The levels of one input channel over one metering window, as returned by
+ * <code>AsioLevelMeter.getLevels()</code>. All levels are linear, relative to full scale.
+ */
+public final class AsioLevels {
+
+  private final float peak;
+  private final float rms;
+  private final float truePeak;
+  private final long windowIndex;
+
+  AsioLevels(float peak, float rms, float truePeak, long windowIndex) {
+    this.peak = peak;
+    this.rms = rms;
+    this.truePeak = truePeak;
+    this.windowIndex = windowIndex;
+  }
+
+  /**
+   * Returns the greatest absolute sample value in the window.
+   */
+  public float getPeak() {
+    return peak;
+  }
+
+  /**
+   * Returns the root mean square of the samples in the window.
+   */
+  public float getRms() {
+    return rms;
+  }
+
+  /**
+   * Returns the greatest absolute value of the signal in the window when oversampled by four, as
+   * specified by ITU-R BS.1770. This accounts for peaks which fall between samples, and is never
+   * less than <code>getPeak()</code>.
+   */
+  public float getTruePeak() {
+    return truePeak;
+  }
+
+  /**
+   * Returns the number of windows which had been completed when these levels were published,
+   * including this one. Zero indicates that no window has yet been completed, and that all levels
+   * are zero.
+   */
+  public long getWindowIndex() {
+    return windowIndex;
+  }
+
+  @Override
+  public String toString() {
+    return "peak: " + Float.toString(peak) + ", rms: " + Float.toString(rms) +
+        ", true peak: " + Float.toString(truePeak) + ", window: " + Long.toString(windowIndex);
+  }
+}
@@ -0,0 +1,523 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The <code>AsioRecorder</code> records input channels to disk while the driver is running, without
+ * blocking the audio thread. Each channel is recorded to its own mono WAV file, named after the
+ * recording and the channel number, e.g. <code>take1-3.wav</code> for the third input:
+ * <pre><code>
+ * AsioRecorder recorder = new AsioRecorder(driver, channels, directory, "take1");
+ * recorder.start();
+ * ...
+ * recorder.stop();
+ * </code></pre>
+ * In each <code>bufferSwitch()</code>, the recorder copies the native bytes of each input buffer into a
+ * ring in native memory, which is allocated by <code>start()</code>. The audio thread neither converts,
+ * allocates nor locks. A writer thread drains the ring into the files with gathering writes, and so
+ * writes data which wraps around the end of the ring in a single call. The sample types
+ * <code>ASIOSTInt16LSB</code>, <code>ASIOSTInt24LSB</code>, <code>ASIOSTInt32LSB</code>,
+ * <code>ASIOSTFloat32LSB</code> and <code>ASIOSTFloat64LSB</code> are written byte for byte. The other
+ * PCM types are byte-swapped or left-justified in place by the writer thread. DSD is not supported. A
+ * file which exceeds 4GB is written as RF64.<br>
+ * <br>
+ * If the writer falls behind such that a buffer does not fit into the ring, then the buffer is dropped
+ * from all files and counted by <code>getDroppedBufferCount()</code>. The files remain aligned with
+ * each other, but are shorter than the recording. <code>getRingFillLevel()</code> and
+ * <code>getMaxRingFillLevel()</code> show how close the writer has come to this. If the driver
+ * recreates its buffers, e.g. after a reset, then the audio thread allocates a view of each new buffer
+ * once. The sample rate is that of the driver when the recording is started.
+ */
+public final class AsioRecorder implements AsioDriverListener {
+
+  /** The default capacity of the ring, in frames. */
+  public static final int DEFAULT_RING_FRAMES = 1 << 17;
+
+  // the interval at which the writer polls the ring, unless it is woken earlier
+  private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+  private final AsioDriver driver;
+  private final AsioChannel[] channels;
+  private final File[] files;
+  private final int ringFrames;
+  private final AtomicLong writePosition; // in frames, written only by the audio thread
+  private final AtomicLong readPosition; // in frames, written only by the writer thread
+
+  private ByteBuffer[] rings; // the views of the audio thread
+  private ByteBuffer[][] segments; // the views of the writer thread, two per ring
+  private FileChannel[] fileChannels;
+  private long[] dataBytes;
+  private int sampleRate;
+  private Thread writer;
+  private volatile boolean isRecording;
+  private volatile boolean isInCallback;
+  private volatile boolean isStopping;
+  private volatile boolean isWriterPaused;
+  private volatile IOException failure;
+
+  private volatile long bufferCount;
+  private volatile long droppedBufferCount;
+  private volatile long maxFill;
+  private volatile long recordedFrameCount;
+
+  // the state of the audio thread: views of the half-buffers of each channel, and their origins
+  private final ByteBuffer[][] sources;
+  private final ByteBuffer[][] sourceOrigins;
+
+  /**
+   * Creates a recorder with a ring of <code>DEFAULT_RING_FRAMES</code>.
+   * @see #AsioRecorder(AsioDriver, Set, File, String, int)
+   */
+  public AsioRecorder(AsioDriver driver, Set<AsioChannel> channels, File directory, String name) {
+    this(driver, channels, directory, name, DEFAULT_RING_FRAMES);
+  }
+
+  /**
+   * @param driver  The driver of the channels.
+   * @param channels  The input channels to record. They are recorded when active.
+   * @param directory  The directory of the files.
+   * @param name  The name of the recording. The file of a channel is named <code>name</code>, followed
+   * by a hyphen and the one-based index of the channel.
+   * @param ringFrames  The capacity of the ring in frames, i.e. the number of frames which may await
+   * the writer thread. It must be at least twice the maximum buffer size of the driver.
+   * @throws IllegalArgumentException  Thrown if a channel is not an input, has a DSD sample type, or if
+   * the ring is too small.
+   */
+  public AsioRecorder(AsioDriver driver, Set<AsioChannel> channels, File directory, String name,
+      int ringFrames) {
+    if (driver == null || directory == null || name == null) {
+      throw new NullPointerException("The driver, directory and name may not be null.");
+    }
+    if (channels.isEmpty()) {
+      throw new IllegalArgumentException("At least one channel must be recorded.");
+    }
+    if (ringFrames < 2 * Math.max(driver.getBufferMaxSize(), driver.getBufferPreferredSize())) {
+      throw new IllegalArgumentException(
+          "The ring must hold at least two buffers of the maximum size: " + Integer.toString(ringFrames));
+    }
+    List<AsioChannel> channelList = new ArrayList<AsioChannel>(channels);
+    Collections.sort(channelList, new Comparator<AsioChannel>() {
+      public int compare(AsioChannel a, AsioChannel b) {
+        return a.getChannelIndex() - b.getChannelIndex();
+      }
+    });
+    this.driver = driver;
+    this.channels = channelList.toArray(new AsioChannel[channelList.size()]);
+    this.ringFrames = ringFrames;
+    files = new File[this.channels.length];
+    for (int i = 0; i < files.length; i++) {
+      AsioChannel channel = this.channels[i];
+      if (!channel.isInput()) {
+        throw new IllegalArgumentException("Only inputs can be recorded: " + channel.toString());
+      }
+      if (channel.getSampleType().isDsd()) {
+        throw new IllegalArgumentException("DSD channels cannot be recorded: " + channel.toString());
+      }
+      files[i] = new File(directory, name + "-" + Integer.toString(channel.getChannelIndex() + 1) +
+          ".wav");
+    }
+    writePosition = new AtomicLong();
+    readPosition = new AtomicLong();
+    sources = new ByteBuffer[files.length][2];
+    sourceOrigins = new ByteBuffer[files.length][2];
+  }
+
+  /**
+   * Returns the file to which the given channel is recorded, or <code>null</code> if it is not
+   * recorded.
+   */
+  public File getFile(AsioChannel channel) {
+    for (int i = 0; i < channels.length; i++) {
+      if (channels[i].equals(channel)) {
+        return files[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the capacity of the ring, in frames.
+   */
+  public int getRingFrames() {
+    return ringFrames;
+  }
+
+  /**
+   * Returns the fraction of the ring, in [0,1], which is waiting to be written to disk.
+   */
+  public double getRingFillLevel() {
+    return (double) (writePosition.get() - readPosition.get()) / ringFrames;
+  }
+
+  /**
+   * Returns the greatest fill level of the ring since the recording was started.
+   */
+  public double getMaxRingFillLevel() {
+    return (double) maxFill / ringFrames;
+  }
+
+  /**
+   * Returns the number of <code>bufferSwitch()</code> callbacks since the recording was started.
+   */
+  public long getBufferCount() {
+    return bufferCount;
+  }
+
+  /**
+   * Returns the number of buffers which have not been recorded, because the ring was full or the
+   * channels were not active.
+   */
+  public long getDroppedBufferCount() {
+    return droppedBufferCount;
+  }
+
+  /**
+   * Returns the number of frames which have been written to each file.
+   */
+  public long getRecordedFrameCount() {
+    return recordedFrameCount;
+  }
+
+  public boolean isRecording() {
+    return isRecording;
+  }
+
+  /**
+   * Pauses or resumes the writer thread. While it is paused, the ring fills up until buffers are
+   * dropped, as if the disk had stalled. The ring is still drained when the recording is stopped.
+   * Intended for tests.
+   */
+  void setWriterPaused(boolean paused) {
+    isWriterPaused = paused;
+    Thread writer = this.writer;
+    if (!paused && writer != null) {
+      LockSupport.unpark(writer);
+    }
+  }
+
+  /**
+   * Creates the files, allocates the ring, starts the writer thread and registers the recorder with the
+   * driver. The recording begins with the next <code>bufferSwitch()</code>. Existing files are
+   * replaced. A recorder can only be started once.
+   * @throws IllegalStateException  Thrown if the recorder has already been started.
+   * @throws IOException  Thrown if a file cannot be created.
+   */
+  public synchronized void start() throws IOException {
+    if (writer != null) {
+      throw new IllegalStateException("The recorder has already been started.");
+    }
+    sampleRate = (int) Math.round(driver.getSampleRate());
+    fileChannels = new FileChannel[channels.length];
+    dataBytes = new long[channels.length];
+    rings = new ByteBuffer[channels.length];
+    segments = new ByteBuffer[channels.length][];
+    ByteBuffer header = ByteBuffer.allocate(WavHeader.SIZE);
+    try {
+      for (int i = 0; i < channels.length; i++) {
+        AsioSampleType sampleType = channels[i].getSampleType();
+        RandomAccessFile file = new RandomAccessFile(files[i], "rw");
+        file.setLength(0L);
+        fileChannels[i] = file.getChannel();
+        header.clear();
+        writeHeader(header, sampleType, sampleRate, 0L);
+        header.flip();
+        while (header.hasRemaining()) {
+          fileChannels[i].write(header);
+        }
+        ByteBuffer ring = ByteBuffer.allocateDirect(ringFrames * sampleType.getBytesPerSample());
+        rings[i] = ring;
+        segments[i] = new ByteBuffer[] {
+            ring.duplicate().order(ByteOrder.LITTLE_ENDIAN),
+            ring.duplicate().order(ByteOrder.LITTLE_ENDIAN)};
+        if (channels[i].isActive()) {
+          for (int j = 0; j < 2; j++) {
+            sourceOrigins[i][j] = channels[i].getByteBuffer(j);
+            sources[i][j] = sourceOrigins[i][j].duplicate();
+          }
+        }
+      }
+    } catch (IOException e) {
+      closeFiles();
+      throw e;
+    }
+    writer = new Thread("AsioRecorder") {
+      @Override
+      public void run() {
+        drain();
+      }
+    };
+    writer.setDaemon(true);
+    writer.start();
+    isRecording = true;
+    driver.addAsioDriverListener(this);
+  }
+
+  /**
+   * Stops the recording and waits for the writer thread to write all recorded frames. The headers of
+   * the files are then completed and the files closed. Does nothing if the recorder is not recording.
+   * @throws IOException  Thrown if writing to a file failed, during or at the end of the recording.
+   */
+  public synchronized void stop() throws IOException {
+    if (writer == null || fileChannels == null) {
+      return;
+    }
+    isRecording = false;
+    driver.removeAsioDriverListener(this);
+    while (isInCallback) {
+      Thread.yield(); // a callback which began before the recording stopped may still be copying
+    }
+    isStopping = true;
+    LockSupport.unpark(writer);
+    boolean isInterrupted = false;
+    while (writer.isAlive()) {
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        isInterrupted = true;
+      }
+    }
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      if (failure == null) {
+        ByteBuffer header = ByteBuffer.allocate(WavHeader.SIZE);
+        for (int i = 0; i < channels.length; i++) {
+          if ((dataBytes[i] & 1L) != 0L) {
+            fileChannels[i].write(ByteBuffer.allocate(1), WavHeader.SIZE + dataBytes[i]);
+          }
+          header.clear();
+          writeHeader(header, channels[i].getSampleType(), sampleRate, dataBytes[i]);
+          header.flip();
+          long position = 0L;
+          while (header.hasRemaining()) {
+            position += fileChannels[i].write(header, position);
+          }
+        }
+      }
+    } finally {
+      closeFiles();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void closeFiles() throws IOException {
+    IOException exception = null;
+    for (FileChannel fileChannel : fileChannels) {
+      if (fileChannel != null) {
+        try {
+          fileChannel.close();
+        } catch (IOException e) {
+          exception = e;
+        }
+      }
+    }
+    fileChannels = null;
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  /**
+   * Writes the header of a file of <code>bytes</code> bytes of samples of the given type, which becomes
+   * an RF64 header once the file exceeds 4GB.
+   */
+  static void writeHeader(ByteBuffer header, AsioSampleType sampleType, int sampleRate, long bytes) {
+    WavHeader.write(header,
+        sampleType.isFloatingPoint() ? WavHeader.FORMAT_IEEE_FLOAT : WavHeader.FORMAT_PCM,
+        1, sampleRate, sampleType.getBytesPerSample() * 8, bytes);
+  }
+
+  public void bufferSwitch(long systemTime, long samplePosition, Set<AsioChannel> activeChannels) {
+    isInCallback = true;
+    if (isRecording) {
+      record();
+    }
+    isInCallback = false;
+  }
+
+  /**
+   * Copies the current input buffers into the ring. Called on the audio thread.
+   */
+  private void record() {
+    bufferCount++; // there is only one writer
+    final int bufferSize = driver.getBufferSize();
+    final long write = writePosition.get();
+    final long fill = write - readPosition.get();
+    if (ringFrames - fill < bufferSize) {
+      droppedBufferCount++;
+      return;
+    }
+    for (AsioChannel channel : channels) {
+      if (!channel.isActive()) {
+        droppedBufferCount++;
+        return;
+      }
+    }
+    final int offset = (int) (write % ringFrames);
+    for (int i = 0; i < channels.length; i++) {
+      final AsioChannel channel = channels[i];
+      final int bufferIndex = channel.getBufferIndex();
+      final ByteBuffer origin = channel.getByteBuffer(bufferIndex);
+      if (origin != sourceOrigins[i][bufferIndex]) {
+        // the driver has recreated its buffers
+        sourceOrigins[i][bufferIndex] = origin;
+        sources[i][bufferIndex] = origin.duplicate();
+      }
+      final int bytesPerSample = channel.getSampleType().getBytesPerSample();
+      final int first = Math.min(bufferSize, ringFrames - offset) * bytesPerSample;
+      final int bytes = bufferSize * bytesPerSample;
+      final ByteBuffer source = sources[i][bufferIndex];
+      final ByteBuffer ring = rings[i];
+      source.limit(first).position(0);
+      ring.limit(offset * bytesPerSample + first).position(offset * bytesPerSample);
+      ring.put(source);
+      if (first < bytes) {
+        source.limit(bytes);
+        ring.limit(bytes - first).position(0);
+        ring.put(source);
+      }
+    }
+    writePosition.lazySet(write + bufferSize); // publishes the buffer
+    final long newFill = fill + bufferSize;
+    if (newFill > maxFill) {
+      maxFill = newFill;
+    }
+    if (2L * newFill > ringFrames) {
+      LockSupport.unpark(writer); // do not wait for the writer to poll
+    }
+  }
+
+  /**
+   * The loop of the writer thread. The remaining frames are written after the recording has stopped.
+   */
+  private void drain() {
+    try {
+      while (true) {
+        final boolean isFinal = isStopping; // read before the positions, so as to see all frames
+        final long read = readPosition.get();
+        final long write = writePosition.get();
+        if (read == write || (isWriterPaused && !isFinal)) {
+          if (read == write && isFinal) {
+            return;
+          }
+          LockSupport.parkNanos(this, POLL_NANOS);
+          continue;
+        }
+        final int frames = (int) (write - read);
+        final int offset = (int) (read % ringFrames);
+        for (int i = 0; i < channels.length; i++) {
+          final AsioSampleType sampleType = channels[i].getSampleType();
+          final int bytesPerSample = sampleType.getBytesPerSample();
+          final int first = Math.min(frames, ringFrames - offset) * bytesPerSample;
+          final int bytes = frames * bytesPerSample;
+          final ByteBuffer[] segment = segments[i];
+          segment[0].limit(offset * bytesPerSample + first).position(offset * bytesPerSample);
+          segment[1].limit(bytes - first).position(0);
+          convert(segment[0], sampleType);
+          convert(segment[1], sampleType);
+          while (segment[0].hasRemaining() || segment[1].hasRemaining()) {
+            fileChannels[i].write(segment);
+          }
+          dataBytes[i] += bytes;
+        }
+        readPosition.lazySet(write); // frees the frames
+        recordedFrameCount += frames;
+      }
+    } catch (IOException e) {
+      failure = e;
+      isRecording = false;
+    }
+  }
+
+  /**
+   * Converts the samples between the position and limit of the little-endian buffer in place, from
+   * the given sample type to the WAV sample format of the same size.
+   */
+  private static void convert(ByteBuffer buffer, AsioSampleType sampleType) {
+    final boolean isSwapped = sampleType.getByteOrder() == ByteOrder.BIG_ENDIAN;
+    final int bytesPerSample = sampleType.getBytesPerSample();
+    // the shift which left-justifies the sample, e.g. 16 for ASIOSTInt32LSB16
+    final int shift = sampleType.isFloatingPoint() ? 0 :
+        8 * bytesPerSample - 33 + Integer.numberOfLeadingZeros((int) sampleType.getFullScale());
+    if (!isSwapped && shift == 0) {
+      return;
+    }
+    final int limit = buffer.limit();
+    switch (bytesPerSample) {
+      case 2: {
+        for (int i = buffer.position(); i < limit; i += 2) {
+          buffer.putShort(i, Short.reverseBytes(buffer.getShort(i)));
+        }
+        break;
+      }
+      case 3: {
+        for (int i = buffer.position(); i < limit; i += 3) {
+          byte b = buffer.get(i);
+          buffer.put(i, buffer.get(i + 2));
+          buffer.put(i + 2, b);
+        }
+        break;
+      }
+      case 4: {
+        for (int i = buffer.position(); i < limit; i += 4) {
+          int sample = buffer.getInt(i);
+          buffer.putInt(i, (isSwapped ? Integer.reverseBytes(sample) : sample) << shift);
+        }
+        break;
+      }
+      case 8: {
+        for (int i = buffer.position(); i < limit; i += 8) {
+          buffer.putLong(i, Long.reverseBytes(buffer.getLong(i)));
+        }
+        break;
+      }
+    }
+  }
+
+  public void sampleRateDidChange(double sampleRate) {}
+
+  public void resetRequest() {}
+
+  public void resyncRequest() {}
+
+  public void bufferSizeChanged(int bufferSize) {}
+
+  public void latenciesChanged(int inputLatency, int outputLatency) {}
+}
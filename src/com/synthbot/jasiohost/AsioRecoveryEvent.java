@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+/**
+ * The result of the automatic recovery of an <code>AsioDriver</code> from a reset request. The recovery
+ * time is measured from the reset request of the driver until the driver has been returned to its
+ * previous state, i.e. until audio is running again.
+ */
+public final class AsioRecoveryEvent {
+
+  private final AsioDriverState restoredState;
+  private final long requestTime;
+  private final long recoveryNanos;
+  private final double sampleRate;
+  private final int previousBufferSize;
+  private final int bufferSize;
+  private final RuntimeException failure;
+
+  AsioRecoveryEvent(AsioDriverState restoredState, long requestTime, long recoveryNanos,
+      double sampleRate, int previousBufferSize, int bufferSize, RuntimeException failure) {
+    this.restoredState = restoredState;
+    this.requestTime = requestTime;
+    this.recoveryNanos = recoveryNanos;
+    this.sampleRate = sampleRate;
+    this.previousBufferSize = previousBufferSize;
+    this.bufferSize = bufferSize;
+    this.failure = failure;
+  }
+
+  /**
+   * Returns <code>true</code> if the session was fully restored.
+   */
+  public boolean isRecovered() {
+    return failure == null;
+  }
+
+  /**
+   * Returns the exception which prevented the recovery, or <code>null</code> if it succeeded. After a
+   * failure, the driver is left in the state which the recovery had reached.
+   */
+  public RuntimeException getFailure() {
+    return failure;
+  }
+
+  /**
+   * Returns the state of the driver when the reset was requested, to which it has been returned.
+   */
+  public AsioDriverState getRestoredState() {
+    return restoredState;
+  }
+
+  /**
+   * Returns the value of <code>System.nanoTime()</code> when the driver requested the reset.
+   */
+  public long getRequestTime() {
+    return requestTime;
+  }
+
+  /**
+   * Returns the time from the reset request until the driver was restored, in nanoseconds.
+   */
+  public long getRecoveryNanos() {
+    return recoveryNanos;
+  }
+
+  /**
+   * Returns the sample rate of the restored session.
+   */
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Returns the buffer size of the session before the reset.
+   */
+  public int getPreviousBufferSize() {
+    return previousBufferSize;
+  }
+
+  /**
+   * Returns the buffer size of the restored session. It differs from the previous buffer size if the
+   * preferred buffer size of the driver was changed, which is a common reason for a reset request.
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  @Override
+  public String toString() {
+    return (isRecovered() ? "recovered to " : "failed to recover to ") + restoredState.toString() +
+        " in " + Long.toString(recoveryNanos / 1000000L) + "ms, sample rate: " +
+        Double.toString(sampleRate) + ", buffer size: " + Integer.toString(previousBufferSize) +
+        " -> " + Integer.toString(bufferSize) +
+        (isRecovered() ? "" : ", failure: " + failure.toString());
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+/**
+ * This interface is notified when an <code>AsioDriver</code> has recovered from a reset request of the
+ * driver. It is only used if automatic recovery is enabled with
+ * <code>AsioDriver.setAutoRecoveryEnabled()</code>.
+ */
+public interface AsioRecoveryListener {
+
+  /**
+   * The driver has been reset and its session restored, or the attempt has failed. This method is
+   * called once per recovery on the driver's control thread, after the driver has been restarted.
+   * @param event  A description of the recovery.
+   */
+  public void driverRecovered(AsioRecoveryEvent event);
+}
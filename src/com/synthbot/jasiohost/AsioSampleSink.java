@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.io.IOException;
+
+/**
+ * A destination of multichannel audio, such as a file, which collects the outputs of a
+ * <code>SimulatedAsioBackend</code> during an offline render.
+ */
+public interface AsioSampleSink {
+
+  /**
+   * Writes the next samples of each channel.
+   * @param samples  One array per channel. The arrays are reused after this method returns.
+   * @param length  The number of samples to write from each array.
+   */
+  public void write(float[][] samples, int length) throws IOException;
+}
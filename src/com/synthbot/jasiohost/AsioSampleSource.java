@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.io.IOException;
+
+/**
+ * A source of multichannel audio, such as a file or a signal generator, which feeds the inputs of a
+ * <code>SimulatedAsioBackend</code> during an offline render.
+ */
+public interface AsioSampleSource {
+
+  /**
+   * Reads the next samples of each channel.
+   * @param samples  One array to fill per channel. If the source has more channels, the others are
+   * skipped. If it has fewer, the remaining arrays are left unchanged.
+   * @param length  The number of samples to read into each array.
+   * @return  The number of samples read into each array, which is less than <code>length</code> only at
+   * the end of the source, or -1 if the source has already ended.
+   */
+  public int read(float[][] samples, int length) throws IOException;
+}
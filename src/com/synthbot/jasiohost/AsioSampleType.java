@@ -20,79 +20,141 @@
 
 package com.synthbot.jasiohost;
 
+import java.nio.ByteOrder;
+
 /**
  * This class enumerates the different types of sample formats supported by ASIO.
  * The API makes a distinction between Big-Endian (denoted by <code>MSB</code>) and 
- * Little-Endian (<code>LSB</code>) encodings, which are meaningless in Java, as all 
- * numbers are Big-Endian encoded. <code>AsioSampleType</code>s are exposed for informative 
+ * Little-Endian (<code>LSB</code>) encodings. <code>AsioSampleType</code>s are exposed for informative 
  * purposes, however they are most useful for determining the Java native type to use. 
- * The endianness of the sample is resolved in the native library.
+ * Each type also describes its memory layout (bytes per sample, byte order, full scale value
+ * and signedness), which <code>AsioChannel</code> uses to configure its buffers.
  */
 public enum AsioSampleType {
   
   /**
    * 16-bit data word
    */
-  ASIOSTInt16MSB(0),
+  ASIOSTInt16MSB(0, 2, ByteOrder.BIG_ENDIAN, 0x00007FFF, true, false),
   
   /**
    * This is the packed 24 bit format. 2 data words will spawn consecutive 6 bytes in memory.
    * (Used for 18 and 20 bits as well, if they use this packed format). In Java it is represented
    * the same as any of the <code>ASIOSTInt32MSB16</code> formats.
    */
-  ASIOSTInt24MSB(1),
+  ASIOSTInt24MSB(1, 3, ByteOrder.BIG_ENDIAN, 0x007FFFFF, true, false),
   
   /**
    * 32-bit data word.
    */
-  ASIOSTInt32MSB(2),
+  ASIOSTInt32MSB(2, 4, ByteOrder.BIG_ENDIAN, 0x7FFFFFFF, true, false),
   
   /**
    * IEEE 754 32 bit float, as found on Intel x86 architecture.
    */
-  ASIOSTFloat32MSB(3),
+  ASIOSTFloat32MSB(3, 4, ByteOrder.BIG_ENDIAN, 1, true, true),
   
   /**
    * IEEE 754 64 bit double float, as found on Intel x86 architecture
    */
-  ASIOSTFloat64MSB(4),
+  ASIOSTFloat64MSB(4, 8, ByteOrder.BIG_ENDIAN, 1, true, true),
   
   /**
    * Sample data fills the least significant 16 bits, the other bits are sign extended.
    */
-  ASIOSTInt32MSB16(8),
+  ASIOSTInt32MSB16(8, 4, ByteOrder.BIG_ENDIAN, 0x00007FFF, true, false),
   
   /**
    * Sample data fills the least significant 18 bits, the other bits are sign extended.
    */
-  ASIOSTInt32MSB18(9),
+  ASIOSTInt32MSB18(9, 4, ByteOrder.BIG_ENDIAN, 0x0001FFFF, true, false),
   
   /**
    * Sample data fills the least significant 20 bits, the other bits are sign extended.
    */
-  ASIOSTInt32MSB20(10),
+  ASIOSTInt32MSB20(10, 4, ByteOrder.BIG_ENDIAN, 0x0007FFFF, true, false),
   
   /**
    * Sample data fills the least significant 24 bits, the other bits are sign extended.
    */
-  ASIOSTInt32MSB24(11),
-  ASIOSTInt16LSB(16),
-  ASIOSTInt24LSB(17),
-  ASIOSTInt32LSB(18),
-  ASIOSTFloat32LSB(19),
-  ASIOSTFloat64LSB(20),
-  ASIOSTInt32LSB16(24),
-  ASIOSTInt32LSB18(25),
-  ASIOSTInt32LSB20(26),
-  ASIOSTInt32LSB24(27),
-  ASIOSTDSDInt8LSB1(32),
-  ASIOSTDSDInt8MSB1(33),
-  ASIOSTDSDInt8NER8(40);
-  
-  private int nativeEnum; // the native enum representing this type
-  
-  private AsioSampleType(int nativeEnum) {
+  ASIOSTInt32MSB24(11, 4, ByteOrder.BIG_ENDIAN, 0x007FFFFF, true, false),
+  ASIOSTInt16LSB(16, 2, ByteOrder.LITTLE_ENDIAN, 0x00007FFF, true, false),
+  ASIOSTInt24LSB(17, 3, ByteOrder.LITTLE_ENDIAN, 0x007FFFFF, true, false),
+  ASIOSTInt32LSB(18, 4, ByteOrder.LITTLE_ENDIAN, 0x7FFFFFFF, true, false),
+  ASIOSTFloat32LSB(19, 4, ByteOrder.LITTLE_ENDIAN, 1, true, true),
+  ASIOSTFloat64LSB(20, 8, ByteOrder.LITTLE_ENDIAN, 1, true, true),
+  ASIOSTInt32LSB16(24, 4, ByteOrder.LITTLE_ENDIAN, 0x00007FFF, true, false),
+  ASIOSTInt32LSB18(25, 4, ByteOrder.LITTLE_ENDIAN, 0x0001FFFF, true, false),
+  ASIOSTInt32LSB20(26, 4, ByteOrder.LITTLE_ENDIAN, 0x0007FFFF, true, false),
+  ASIOSTInt32LSB24(27, 4, ByteOrder.LITTLE_ENDIAN, 0x007FFFFF, true, false),
+  ASIOSTDSDInt8LSB1(32, 1, ByteOrder.LITTLE_ENDIAN, 1, false, false),
+  ASIOSTDSDInt8MSB1(33, 1, ByteOrder.BIG_ENDIAN, 1, false, false),
+  ASIOSTDSDInt8NER8(40, 1, ByteOrder.LITTLE_ENDIAN, 1, false, false);
+  
+  private final int nativeEnum; // the native enum representing this type
+  private final int bytesPerSample;
+  private final ByteOrder byteOrder;
+  private final double fullScale;
+  private final boolean isSigned;
+  private final boolean isFloatingPoint;
+  
+  private AsioSampleType(int nativeEnum, int bytesPerSample, ByteOrder byteOrder, double fullScale,
+      boolean isSigned, boolean isFloatingPoint) {
     this.nativeEnum = nativeEnum;
+    this.bytesPerSample = bytesPerSample;
+    this.byteOrder = byteOrder;
+    this.fullScale = fullScale;
+    this.isSigned = isSigned;
+    this.isFloatingPoint = isFloatingPoint;
+  }
+  
+  /**
+   * Returns the number of bytes that one sample occupies in a native buffer. The DSD types
+   * occupy one byte per buffer frame.
+   */
+  public int getBytesPerSample() {
+    return bytesPerSample;
+  }
+  
+  /**
+   * Returns the byte order of the samples in a native buffer.
+   */
+  public ByteOrder getByteOrder() {
+    return byteOrder;
+  }
+  
+  /**
+   * Returns the integer value which represents a sample of amplitude 1. This is <code>1.0</code>
+   * for the floating point types.
+   */
+  public double getFullScale() {
+    return fullScale;
+  }
+  
+  /**
+   * Returns <code>true</code> if the samples are signed (two's complement or floating point) values.
+   * The 1-bit DSD types are not.
+   */
+  public boolean isSigned() {
+    return isSigned;
+  }
+  
+  /**
+   * Returns <code>true</code> if the samples are IEEE 754 floating point values.
+   */
+  public boolean isFloatingPoint() {
+    return isFloatingPoint;
+  }
+  
+  /**
+   * Returns <code>true</code> if the samples are 1-bit DSD. <code>ASIOSTDSDInt8LSB1</code> and
+   * <code>ASIOSTDSDInt8MSB1</code> pack eight samples into each byte, the earliest in the least or most
+   * significant bit respectively. <code>ASIOSTDSDInt8NER8</code> stores one sample per byte. DSD channels
+   * may be accessed as packed bytes with <code>AsioChannel.readDsd()</code> and <code>writeDsd()</code>,
+   * or as PCM at one eighth of the DSD sample rate with <code>read()</code> and <code>write()</code>.
+   */
+  public boolean isDsd() {
+    return this == ASIOSTDSDInt8LSB1 || this == ASIOSTDSDInt8MSB1 || this == ASIOSTDSDInt8NER8;
   }
   
   public static AsioSampleType getSampleType(int nativeEnum) {
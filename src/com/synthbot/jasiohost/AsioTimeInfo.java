@@ -0,0 +1,219 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * The timing information of one <code>bufferSwitch()</code>, as reported by the driver in the
+ * <code>ASIOTime</code> structure. Each <code>AsioDriver</code> owns one <code>AsioTimeInfo</code>,
+ * which is updated in place before every callback and passed to
+ * <code>AsioDriverTimeInfoListener.bufferSwitchTimeInfo()</code>. No object is created per callback.
+ * The contents are therefore only valid during the callback, and only on the audio thread. Values
+ * which are needed later must be copied.<br>
+ * <br>
+ * A field is only meaningful if the driver has set its validity flag. Drivers which only support
+ * ASIO 1.0 report the system time and sample position alone.
+ */
+public final class AsioTimeInfo {
+
+  /** <code>getSystemTime()</code> is valid. */
+  public static final int SYSTEM_TIME_VALID = 1;
+  /** <code>getSamplePosition()</code> is valid. */
+  public static final int SAMPLE_POSITION_VALID = 1 << 1;
+  /** <code>getSampleRate()</code> is valid. */
+  public static final int SAMPLE_RATE_VALID = 1 << 2;
+  /** <code>getSpeed()</code> is valid. */
+  public static final int SPEED_VALID = 1 << 3;
+  /** The sample rate has changed since the last callback. */
+  public static final int SAMPLE_RATE_CHANGED = 1 << 4;
+  /** The clock source has changed since the last callback. */
+  public static final int CLOCK_SOURCE_CHANGED = 1 << 5;
+
+  /** The timecode is valid. */
+  public static final int TIME_CODE_VALID = 1;
+  /** The timecode is running. */
+  public static final int TIME_CODE_RUNNING = 1 << 1;
+  /** The timecode is running in reverse. */
+  public static final int TIME_CODE_REVERSE = 1 << 2;
+  /** The timecode is running at nominal speed. */
+  public static final int TIME_CODE_ON_SPEED = 1 << 3;
+  /** The timecode is stopped, i.e. still. */
+  public static final int TIME_CODE_STILL = 1 << 4;
+  /** <code>getTimeCodeSpeed()</code> is valid. */
+  public static final int TIME_CODE_SPEED_VALID = 1 << 8;
+
+  private int bufferIndex;
+  private long systemTime;
+  private long samplePosition;
+  private double sampleRate;
+  private double speed;
+  private int flags;
+  private double timeCodeSpeed;
+  private long timeCodeSamples;
+  private int timeCodeFlags;
+
+  AsioTimeInfo() {
+    // only created by the AsioDriver
+  }
+
+  void set(long systemTime, long samplePosition, int bufferIndex, double sampleRate, double speed,
+      int flags, double timeCodeSpeed, long timeCodeSamples, int timeCodeFlags) {
+    this.bufferIndex = bufferIndex;
+    this.systemTime = systemTime;
+    this.samplePosition = samplePosition;
+    this.sampleRate = sampleRate;
+    this.speed = speed;
+    this.flags = flags;
+    this.timeCodeSpeed = timeCodeSpeed;
+    this.timeCodeSamples = timeCodeSamples;
+    this.timeCodeFlags = timeCodeFlags;
+  }
+
+  /**
+   * Returns the index (0 or 1) of the half-buffer which is to be processed during this callback.
+   */
+  public int getBufferIndex() {
+    return bufferIndex;
+  }
+
+  /**
+   * Returns the system time at which the first sample of the half-buffer was, or will be, converted,
+   * in nanoseconds.
+   */
+  public long getSystemTime() {
+    return systemTime;
+  }
+
+  /**
+   * Returns the position of the first sample of the half-buffer since <code>start()</code> was called.
+   */
+  public long getSamplePosition() {
+    return samplePosition;
+  }
+
+  /**
+   * Returns the sample rate as measured by the driver, in Hz. This may differ slightly from the nominal
+   * sample rate when the device is synchronised to an external clock.
+   */
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Returns the speed of the driver relative to its nominal speed, where 1.0 is nominal speed and a
+   * negative value indicates reverse.
+   */
+  public double getSpeed() {
+    return speed;
+  }
+
+  /**
+   * Returns the validity and change flags of the time information, a combination of
+   * <code>SYSTEM_TIME_VALID</code>, <code>SAMPLE_POSITION_VALID</code>, <code>SAMPLE_RATE_VALID</code>,
+   * <code>SPEED_VALID</code>, <code>SAMPLE_RATE_CHANGED</code> and <code>CLOCK_SOURCE_CHANGED</code>.
+   */
+  public int getFlags() {
+    return flags;
+  }
+
+  public boolean isSystemTimeValid() {
+    return (flags & SYSTEM_TIME_VALID) != 0;
+  }
+
+  public boolean isSamplePositionValid() {
+    return (flags & SAMPLE_POSITION_VALID) != 0;
+  }
+
+  public boolean isSampleRateValid() {
+    return (flags & SAMPLE_RATE_VALID) != 0;
+  }
+
+  public boolean isSpeedValid() {
+    return (flags & SPEED_VALID) != 0;
+  }
+
+  public boolean isSampleRateChanged() {
+    return (flags & SAMPLE_RATE_CHANGED) != 0;
+  }
+
+  public boolean isClockSourceChanged() {
+    return (flags & CLOCK_SOURCE_CHANGED) != 0;
+  }
+
+  /**
+   * Returns the speed of the timecode relative to its nominal speed.
+   */
+  public double getTimeCodeSpeed() {
+    return timeCodeSpeed;
+  }
+
+  /**
+   * Returns the timecode position of the first sample of the half-buffer, in samples.
+   */
+  public long getTimeCodeSamples() {
+    return timeCodeSamples;
+  }
+
+  /**
+   * Returns the flags of the timecode, a combination of <code>TIME_CODE_VALID</code>,
+   * <code>TIME_CODE_RUNNING</code>, <code>TIME_CODE_REVERSE</code>, <code>TIME_CODE_ON_SPEED</code>,
+   * <code>TIME_CODE_STILL</code> and <code>TIME_CODE_SPEED_VALID</code>.
+   */
+  public int getTimeCodeFlags() {
+    return timeCodeFlags;
+  }
+
+  public boolean isTimeCodeValid() {
+    return (timeCodeFlags & TIME_CODE_VALID) != 0;
+  }
+
+  public boolean isTimeCodeRunning() {
+    return (timeCodeFlags & TIME_CODE_RUNNING) != 0;
+  }
+
+  public boolean isTimeCodeReverse() {
+    return (timeCodeFlags & TIME_CODE_REVERSE) != 0;
+  }
+
+  public boolean isTimeCodeOnSpeed() {
+    return (timeCodeFlags & TIME_CODE_ON_SPEED) != 0;
+  }
+
+  public boolean isTimeCodeStill() {
+    return (timeCodeFlags & TIME_CODE_STILL) != 0;
+  }
+
+  public boolean isTimeCodeSpeedValid() {
+    return (timeCodeFlags & TIME_CODE_SPEED_VALID) != 0;
+  }
+
+  @Override
+  public String toString() {
+    return "buffer index: " + Integer.toString(bufferIndex) +
+        ", system time: " + Long.toString(systemTime) +
+        ", sample position: " + Long.toString(samplePosition) +
+        ", sample rate: " + Double.toString(sampleRate) +
+        ", speed: " + Double.toString(speed) +
+        ", flags: 0x" + Integer.toHexString(flags) +
+        ", timecode samples: " + Long.toString(timeCodeSamples) +
+        ", timecode speed: " + Double.toString(timeCodeSpeed) +
+        ", timecode flags: 0x" + Integer.toHexString(timeCodeFlags);
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.util.Arrays;
+
+/**
+ * The <code>DsdConverter</code> converts between 1-bit DSD and PCM for one channel. DSD is handled as
+ * packed bytes of eight samples each, the earliest sample in the most significant bit. One PCM sample
+ * corresponds to one packed byte, i.e. the PCM sample rate is one eighth of the DSD rate (352.8kHz
+ * for DSD64). PCM full scale corresponds to 50% modulation, the SACD reference level.<br>
+ * <br>
+ * Decimation is a 128-tap low pass FIR filter. Because each input is +/-1, the contribution of a whole
+ * byte to the filter output depends only on the byte's value and its position in the filter, and is
+ * precomputed. Each PCM sample is then the sum of 16 table lookups. The tables occupy 16kB and remain in
+ * the L1 cache.<br>
+ * <br>
+ * Modulation is by a 4th-order sigma-delta modulator in error feedback form. The noise transfer function
+ * is (1 - z^-1)^4 / D(z), with D(z) placing the poles as a Butterworth high pass filter with a maximum
+ * gain of 1.5. PCM samples are linearly interpolated up to the DSD rate. The modulator is stable up to
+ * 60% modulation, and its input is limited to 50%. If it ever does become unstable, then its state is
+ * reset.
+ */
+final class DsdConverter {
+
+  /** Maps each byte to the byte with its bits in reverse order. */
+  static final byte[] BIT_REVERSE = new byte[256];
+
+  /** The DSD idle pattern, which has no content within the audio band. */
+  static final byte SILENCE = (byte) 0x69;
+
+  private static final int FILTER_BYTES = 16;
+  private static final float[] DECIMATION_TABLE = new float[FILTER_BYTES * 256];
+
+  // the coefficients of the feedback filter (NTF - 1) = B(z)/D(z)
+  private static final double D1 = -3.194364315776008;
+  private static final double D2 = 3.8920213877328376;
+  private static final double D3 = -2.1358363653772905;
+  private static final double D4 = 0.4444445977805335;
+  private static final double B1 = -4.0 - D1;
+  private static final double B2 = 6.0 - D2;
+  private static final double B3 = -4.0 - D3;
+  private static final double B4 = 1.0 - D4;
+
+  static {
+    for (int i = 0; i < 256; i++) {
+      BIT_REVERSE[i] = (byte) (Integer.reverse(i) >>> 24);
+    }
+
+    // Blackman windowed sinc, cutoff at 0.035 of the DSD rate (99kHz for DSD64)
+    final int numTaps = 8 * FILTER_BYTES;
+    final double cutoff = 0.035;
+    double[] h = new double[numTaps];
+    double sum = 0.0;
+    for (int i = 0; i < numTaps; i++) {
+      double t = i - (numTaps - 1) / 2.0;
+      double sinc = 2.0 * cutoff * Math.sin(2.0 * Math.PI * cutoff * t) / (2.0 * Math.PI * cutoff * t);
+      double w = 0.42 - 0.5 * Math.cos(2.0 * Math.PI * i / (numTaps - 1)) +
+          0.08 * Math.cos(4.0 * Math.PI * i / (numTaps - 1));
+      h[i] = sinc * w;
+      sum += h[i];
+    }
+    // unity gain at 50% modulation (a DC input of +/-0.5 decodes to +/-1)
+    for (int i = 0; i < numTaps; i++) {
+      h[i] *= 2.0 / sum;
+    }
+
+    // the byte j positions before the newest contains the taps 8j to 8j+7, the LSB being the latest
+    for (int j = 0; j < FILTER_BYTES; j++) {
+      for (int b = 0; b < 256; b++) {
+        double y = 0.0;
+        for (int bit = 0; bit < 8; bit++) {
+          y += ((b >> bit) & 1) == 1 ? h[8 * j + bit] : -h[8 * j + bit];
+        }
+        DECIMATION_TABLE[(j << 8) | b] = (float) y;
+      }
+    }
+  }
+
+  private final byte[] history; // the last FILTER_BYTES-1 bytes, followed by the current block
+  private double s1, s2, s3, s4; // the state of the modulator
+  private double lastSample; // the last PCM sample input to the modulator
+
+  /**
+   * @param capacity  The greatest number of packed bytes which will be converted at once.
+   */
+  DsdConverter(int capacity) {
+    history = new byte[FILTER_BYTES - 1 + capacity];
+    // start from silence, rather than from bytes of zero which would decode as twice negative full scale
+    Arrays.fill(history, SILENCE);
+  }
+
+  /**
+   * Returns the array into which the next packed bytes to be decimated should be placed, starting at
+   * <code>getDecimationOffset()</code>.
+   */
+  byte[] getDecimationBuffer() {
+    return history;
+  }
+
+  int getDecimationOffset() {
+    return FILTER_BYTES - 1;
+  }
+
+  /**
+   * Decimates <code>length</code> packed bytes, previously placed in the decimation buffer, into as many
+   * PCM samples in <code>dst</code>, starting at <code>offset</code> and <code>stride</code> elements apart.
+   */
+  void decimate(float[] dst, int offset, int stride, int length) {
+    final byte[] history = this.history;
+    final float[] table = DECIMATION_TABLE;
+    for (int n = 0, i = offset; n < length; n++, i += stride) {
+      float y = 0.0f;
+      for (int j = 0, k = FILTER_BYTES - 1 + n; j < FILTER_BYTES; j++, k--) {
+        y += table[(j << 8) | (history[k] & 0xFF)];
+      }
+      dst[i] = y;
+    }
+    System.arraycopy(history, length, history, 0, FILTER_BYTES - 1);
+  }
+
+  /**
+   * The <code>double</code> equivalent of <code>decimate(float[], int, int, int)</code>.
+   */
+  void decimate(double[] dst, int offset, int stride, int length) {
+    final byte[] history = this.history;
+    final float[] table = DECIMATION_TABLE;
+    for (int n = 0, i = offset; n < length; n++, i += stride) {
+      float y = 0.0f;
+      for (int j = 0, k = FILTER_BYTES - 1 + n; j < FILTER_BYTES; j++, k--) {
+        y += table[(j << 8) | (history[k] & 0xFF)];
+      }
+      dst[i] = y;
+    }
+    System.arraycopy(history, length, history, 0, FILTER_BYTES - 1);
+  }
+
+  /**
+   * Modulates <code>length</code> PCM samples from <code>src</code>, starting at <code>offset</code> and
+   * <code>stride</code> elements apart, into as many packed bytes in <code>dst</code>.
+   */
+  void modulate(float[] src, int offset, int stride, int length, byte[] dst) {
+    for (int n = 0, i = offset; n < length; n++, i += stride) {
+      dst[n] = modulate(src[i]);
+    }
+  }
+
+  /**
+   * The <code>double</code> equivalent of <code>modulate(float[], int, int, int, byte[])</code>.
+   */
+  void modulate(double[] src, int offset, int stride, int length, byte[] dst) {
+    for (int n = 0, i = offset; n < length; n++, i += stride) {
+      dst[n] = modulate(src[i]);
+    }
+  }
+
+  /**
+   * Modulates one PCM sample into eight DSD samples.
+   */
+  private byte modulate(double sample) {
+    double x = 0.5 * sample; // full scale is 50% modulation
+    x = x > 0.5 ? 0.5 : x;
+    x = x < -0.5 ? -0.5 : x;
+    final double x0 = lastSample;
+    final double dx = (x - x0) * 0.125;
+    lastSample = x;
+
+    double s1 = this.s1, s2 = this.s2, s3 = this.s3, s4 = this.s4;
+    int packed = 0;
+    for (int k = 1; k <= 8; k++) {
+      double u = s1;
+      double v = x0 + k * dx + u;
+      // the sign bit of v, inverted, without a (mispredicted) branch
+      int bit = (int) (Double.doubleToRawLongBits(v) >>> 63) ^ 1;
+      double q = (2 * bit - 1) - v;
+      s1 = B1 * q - D1 * u + s2;
+      s2 = B2 * q - D2 * u + s3;
+      s3 = B3 * q - D3 * u + s4;
+      s4 = B4 * q - D4 * u;
+      packed = (packed << 1) | bit;
+    }
+    if (!(Math.abs(s1) < 16.0)) {
+      // the modulator has become unstable (or the input was NaN)
+      s1 = s2 = s3 = s4 = 0.0;
+      lastSample = 0.0;
+    }
+    this.s1 = s1;
+    this.s2 = s2;
+    this.s3 = s3;
+    this.s4 = s4;
+    return (byte) packed;
+  }
+}
@@ -142,16 +142,11 @@ public class ExampleHost extends JFrame implements AsioDriverListener {
 
   public void resetRequest() {
     /*
-     * This thread will attempt to shut down the ASIO driver. However, it will
-     * block on the AsioDriver object at least until the current method has returned.
+     * The driver is returned to the INITIALIZED state on its control thread, once the current
+     * method has returned.
      */
-    new Thread() {
-      @Override
-      public void run() {
-        System.out.println("resetRequest() callback received. Returning driver to INITIALIZED state.");
-        asioDriver.returnToState(AsioDriverState.INITIALIZED);
-      }
-    }.start();
+    System.out.println("resetRequest() callback received. Returning driver to INITIALIZED state.");
+    asioDriver.returnToStateAsync(AsioDriverState.INITIALIZED);
   }
 
   public void resyncRequest() {
@@ -62,7 +62,7 @@ JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *localJvm, void *reserved) {
   // assign global references to callback methods
   fireBufferSwitchMid = env->GetMethodID(
       env->FindClass("com/synthbot/jasiohost/AsioDriver"), 
-      "fireBufferSwitch", "(JJI)V");
+      "fireBufferSwitch", "(JJIDDIDJI)V");
   fireLatenciesChangedMid = env->GetMethodID(
       env->FindClass("com/synthbot/jasiohost/AsioDriver"), 
       "fireLatenciesChanged", "(II)V");
@@ -101,17 +101,34 @@ JNIEXPORT void JNICALL JNI_OnUnload(JavaVM *jvm, void *reserved) {
  * Driver Callbacks
  */
 
+// An exception thrown by a Java callback would otherwise remain pending on the driver's thread, and no
+// further JNI calls may be made on it. The exception is printed and cleared, such that the driver continues.
+void clearPendingException(JNIEnv *env) {
+  if (env->ExceptionCheck()) {
+    env->ExceptionDescribe();
+    env->ExceptionClear();
+  }
+}
+
 // from ASIOv2
 ASIOTime* bufferSwitchTimeInfo(ASIOTime* asioTime, long bufferIndex, ASIOBool directProcess) {
   JNIEnv *env = NULL;
   jint res = jvm->AttachCurrentThreadAsDaemon((void **) &env, NULL);
   if (res == JNI_OK && env != NULL) {
+    // all fields are passed as primitives, such that no Java object need be created per callback
     env->CallVoidMethod(
         jAsioDriver,
         fireBufferSwitchMid,
         (jlong) ASIO64toLong(asioTime->timeInfo.systemTime),
         (jlong) ASIO64toLong(asioTime->timeInfo.samplePosition),
-        (jint) bufferIndex);
+        (jint) bufferIndex,
+        (jdouble) asioTime->timeInfo.sampleRate,
+        (jdouble) asioTime->timeInfo.speed,
+        (jint) asioTime->timeInfo.flags,
+        (jdouble) asioTime->timeCode.speed,
+        (jlong) ASIO64toLong(asioTime->timeCode.timeCodeSamples),
+        (jint) asioTime->timeCode.flags);
+    clearPendingException(env);
   }
   
   ASIOOutputReady();
@@ -137,6 +154,7 @@ void sampleRateDidChange(ASIOSampleRate sampleRate) {
         jAsioDriver,
         fireSampleRateDidChangeMid,
         (jdouble) sampleRate);
+    clearPendingException(env);
   }
 }
 long asioMessage(long selector, long value, void* message, double* opt) {
@@ -170,6 +188,7 @@ long asioMessage(long selector, long value, void* message, double* opt) {
         env->CallVoidMethod(
             jAsioDriver,
 			fireResetRequestMid);
+        clearPendingException(env);
       }
       return 1L;
     }
@@ -181,6 +200,7 @@ long asioMessage(long selector, long value, void* message, double* opt) {
         env->CallVoidMethod(
             jAsioDriver,
             fireResyncRequestMid);
+        clearPendingException(env);
       }
       return 1L;
     }
@@ -193,6 +213,7 @@ long asioMessage(long selector, long value, void* message, double* opt) {
             jAsioDriver,
             fireBufferSizeChangedMid,
             (jint) value);
+        clearPendingException(env);
       }
       return 1L; // the request is always accepted
     }
@@ -206,6 +227,7 @@ long asioMessage(long selector, long value, void* message, double* opt) {
 			fireLatenciesChangedMid,
             Java_com_synthbot_jasiohost_AsioDriver_ASIOGetLatencies(env, NULL, JNI_TRUE),
             Java_com_synthbot_jasiohost_AsioDriver_ASIOGetLatencies(env, NULL, JNI_FALSE));
+        clearPendingException(env);
       }
       return 1L;
     }
@@ -215,7 +237,7 @@ long asioMessage(long selector, long value, void* message, double* opt) {
     }
     
     case kAsioSupportsTimeCode: {
-      return 0L;
+      return 1L; // timecode is passed to the host in bufferSwitchTimeInfo()
     }
       
     default: {
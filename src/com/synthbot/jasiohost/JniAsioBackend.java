@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+/**
+ * The backend of the native ASIO host library, which is the default backend of the
+ * <code>AsioDriver</code>. The library is loaded when this class is initialised. Its methods are
+ * declared by the <code>AsioDriver</code>, such that the existing library binds to them, and the
+ * driver callbacks are made by the library directly on the <code>AsioDriver</code> which was
+ * initialised.
+ */
+final class JniAsioBackend extends AsioBackend {
+
+  static {
+    // load jasiohost32.dll or jasiohost64.dll depending on the the bit-depth of the JVM
+    System.loadLibrary("jasiohost" + System.getProperty("sun.arch.data.model"));
+  }
+
+  private AsioDriver driver; // the initialised driver, null otherwise
+
+  @Override
+  void registerThread() {
+    AsioDriver.registerThread();
+  }
+
+  @Override
+  int getDriverNames(String[] driverNames) {
+    return AsioDriver.getDriverNames(driverNames);
+  }
+
+  @Override
+  boolean loadDriver(String driverName) {
+    return AsioDriver.loadDriver(driverName);
+  }
+
+  @Override
+  void removeCurrentDriver() {
+    AsioDriver.removeCurrentDriver();
+  }
+
+  @Override
+  AsioDriverInfo ASIOInit(AsioDriver driver) {
+    AsioDriverInfo driverInfo = driver.ASIOInit();
+    this.driver = driver;
+    return driverInfo;
+  }
+
+  @Override
+  void ASIOExit() {
+    driver.ASIOExit();
+    driver = null;
+  }
+
+  @Override
+  void ASIOControlPanel() {
+    AsioDriver.ASIOControlPanel();
+  }
+
+  @Override
+  int ASIOGetChannels(boolean isInput) {
+    return AsioDriver.ASIOGetChannels(isInput);
+  }
+
+  @Override
+  double ASIOGetSampleRate() {
+    return AsioDriver.ASIOGetSampleRate();
+  }
+
+  @Override
+  boolean ASIOCanSampleRate(double sampleRate) {
+    return AsioDriver.ASIOCanSampleRate(sampleRate);
+  }
+
+  @Override
+  void ASIOSetSampleRate(double sampleRate) {
+    AsioDriver.ASIOSetSampleRate(sampleRate);
+  }
+
+  @Override
+  int ASIOGetBufferSize(int index) {
+    return AsioDriver.ASIOGetBufferSize(index);
+  }
+
+  @Override
+  int ASIOGetLatencies(boolean isInput) {
+    return AsioDriver.ASIOGetLatencies(isInput);
+  }
+
+  @Override
+  AsioChannel ASIOGetChannelInfo(int index, boolean isInput) {
+    return AsioDriver.ASIOGetChannelInfo(index, isInput);
+  }
+
+  @Override
+  void ASIOCreateBuffers(AsioChannel[] channelsToInit, int bufferSize) {
+    AsioDriver.ASIOCreateBuffers(channelsToInit, bufferSize);
+  }
+
+  @Override
+  void ASIODisposeBuffers() {
+    AsioDriver.ASIODisposeBuffers();
+  }
+
+  @Override
+  void ASIOStart() {
+    AsioDriver.ASIOStart();
+  }
+
+  @Override
+  void ASIOStop() {
+    AsioDriver.ASIOStop();
+  }
+}
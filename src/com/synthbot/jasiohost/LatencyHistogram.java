@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds, with a fixed size of about 5kB. Buckets are log-linear:
+ * each power of two is divided into 16 linear buckets, such that any value is recorded with a
+ * relative error of at most 1/16, from 1ns up to 2^41ns (about 36 minutes). Greater values are
+ * recorded in the last bucket.<br>
+ * <br>
+ * Values are recorded by a single thread (the audio thread), which never locks or allocates. As there
+ * is only one writer, counts are incremented with an ordered store rather than an atomic
+ * read-modify-write. Any thread may read the histogram. A reader sees every value recorded before the
+ * last store which it observes, but the count, total and buckets are not read atomically together.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  private static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  // the buckets, followed by the count, total and maximum
+  private static final int COUNT = NUM_BUCKETS;
+  private static final int TOTAL = NUM_BUCKETS + 1;
+  private static final int MAX = NUM_BUCKETS + 2;
+
+  private final AtomicLongArray values;
+
+  LatencyHistogram() {
+    values = new AtomicLongArray(NUM_BUCKETS + 3);
+  }
+
+  /**
+   * Records one duration. May only be called by one thread.
+   */
+  void record(long nanos) {
+    if (nanos < 0L) {
+      nanos = 0L; // nanoTime() is monotonic, but be safe
+    }
+    final int index = indexOf(nanos);
+    values.lazySet(index, values.get(index) + 1L);
+    values.lazySet(TOTAL, values.get(TOTAL) + nanos);
+    if (nanos > values.get(MAX)) {
+      values.lazySet(MAX, nanos);
+    }
+    values.lazySet(COUNT, values.get(COUNT) + 1L);
+  }
+
+  /**
+   * Clears the histogram. Values which are recorded concurrently may be lost.
+   */
+  void reset() {
+    for (int i = 0; i < values.length(); i++) {
+      values.set(i, 0L);
+    }
+  }
+
+  long getCount() {
+    return values.get(COUNT);
+  }
+
+  long getMax() {
+    return values.get(MAX);
+  }
+
+  /**
+   * Returns the mean of all recorded values, or zero if there are none.
+   */
+  double getMean() {
+    long count = values.get(COUNT);
+    return (count == 0L) ? 0.0 : (double) values.get(TOTAL) / count;
+  }
+
+  /**
+   * Returns an upper bound of the given quantile of the recorded values, i.e. the upper bound of the
+   * bucket containing it, but no more than the maximum. Returns zero if there are no values.
+   * @param quantile  The quantile, in [0,1].
+   */
+  long getQuantile(double quantile) {
+    long count = 0L;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      count += values.get(i);
+    }
+    if (count == 0L) {
+      return 0L;
+    }
+    long rank = (long) Math.ceil(quantile * count);
+    rank = Math.max(1L, Math.min(count, rank));
+    long cumulative = 0L;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      cumulative += values.get(i);
+      if (cumulative >= rank) {
+        return Math.min(upperBoundOf(i), values.get(MAX));
+      }
+    }
+    return values.get(MAX);
+  }
+
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return NUM_BUCKETS - 1;
+    }
+    final int shift = exponent - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) | (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  private static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    if (index == NUM_BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    final int shift = (index >> SUB_BUCKET_BITS) - 1;
+    final long lowerBound = (long) (SUB_BUCKETS | (index & (SUB_BUCKETS - 1))) << shift;
+    return lowerBound + (1L << shift) - 1L;
+  }
+}
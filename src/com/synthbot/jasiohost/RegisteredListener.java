@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * An <code>AsioDriverListener</code> registered with the <code>AsioDriver</code>, together with the
+ * histogram of the time which it takes to process each <code>bufferSwitch()</code> and the memory which
+ * it allocates. These are kept for as long as the listener remains registered.
+ */
+final class RegisteredListener {
+
+  final AsioDriverListener listener;
+  final LatencyHistogram histogram;
+
+  // allocation during bufferSwitch(), written by the audio thread if the watchdog is enabled
+  volatile long allocatedBytes;
+  volatile long allocatingCallbacks;
+
+  // the totals at the last report of the watchdog, used only by its reporting thread
+  long reportedBytes;
+  long reportedCallbacks;
+
+  RegisteredListener(AsioDriverListener listener) {
+    this.listener = listener;
+    histogram = new LatencyHistogram();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+
+package com.synthbot.jasiohost;
+
+import java.nio.BufferOverflowException;
+import java.util.Arrays;
+
+/**
+ * A <code>SampleCapture</code> stores the <code>float</code> or <code>double</code> samples written to an
+ * output in place of converting them, such that they may be processed further and then quantized only
+ * once. It is not a codec: it holds no half-buffers and cannot be read from as a channel. Samples which
+ * are not written remain zero.
+ */
+final class SampleCapture {
+
+  private final float[] samples;
+  private int position;
+  private boolean isWritten;
+
+  SampleCapture(int capacity) {
+    samples = new float[capacity];
+  }
+
+  /**
+   * Returns the captured samples. Samples which were not written are zero.
+   */
+  float[] getSamples() {
+    return samples;
+  }
+
+  /**
+   * Returns true if any samples have been written since the last <code>clear()</code>.
+   */
+  boolean isWritten() {
+    return isWritten;
+  }
+
+  /**
+   * Marks the capture as written, after its samples have been filled directly.
+   */
+  void markWritten() {
+    isWritten = true;
+  }
+
+  /**
+   * Zeroes all samples and rewinds the capture.
+   */
+  void clear() {
+    Arrays.fill(samples, 0.0f);
+    position = 0;
+    isWritten = false;
+  }
+
+  /**
+   * Stores <code>length</code> samples from <code>src</code>, starting at <code>offset</code> and
+   * <code>stride</code> elements apart, following any samples already stored since the last
+   * <code>clear()</code>.
+   * @throws BufferOverflowException  Thrown if the capture does not have space for all samples.
+   */
+  void write(float[] src, int offset, int stride, int length) {
+    if (length > samples.length - position) {
+      throw new BufferOverflowException();
+    }
+    for (int i = position, j = offset; i < position + length; i++, j += stride) {
+      samples[i] = src[j];
+    }
+    position += length;
+    isWritten = true;
+  }
+
+  /**
+   * As <code>write(float[], int, int, int)</code>, but from <code>double</code> samples.
+   */
+  void write(double[] src, int offset, int stride, int length) {
+    if (length > samples.length - position) {
+      throw new BufferOverflowException();
+    }
+    for (int i = position, j = offset; i < position + length; i++, j += stride) {
+      samples[i] = (float) src[j];
+    }
+    position += length;
+    isWritten = true;
+  }
+}
@@ -0,0 +1,558 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * A <code>SampleCodec</code> converts between <code>float</code> or <code>double</code> samples and
+ * the native sample format of one channel. A codec is created by <code>AsioChannel</code> when its
+ * buffers are attached, and holds everything needed to convert samples (typed views of both
+ * half-buffers, the full scale value and scratch space), so that no decision about the sample type
+ * must be made in the audio callback. All channels call their codecs from the same few call sites
+ * in <code>AsioChannel</code>. Those sites see one receiver type if every active channel has sample
+ * types converted by the same codec, as is usual for one device, and the conversion can then be
+ * inlined; channels of mixed sample types make them polymorphic.
+ */
+abstract class SampleCodec {
+
+  /**
+   * Returns a new codec for the given sample type, operating on the two given half-buffers. The
+   * buffers must already be in the byte order of the sample type. Integer sample types are written
+   * with the given quantizer, which belongs to the channel and outlives the codec.
+   */
+  static SampleCodec create(AsioSampleType sampleType, ByteBuffer buffer0, ByteBuffer buffer1,
+      SampleQuantizer quantizer) {
+    switch (sampleType) {
+      case ASIOSTFloat64MSB:
+      case ASIOSTFloat64LSB: {
+        return new Float64Codec(buffer0, buffer1);
+      }
+      case ASIOSTFloat32MSB:
+      case ASIOSTFloat32LSB: {
+        return new Float32Codec(buffer0, buffer1);
+      }
+      case ASIOSTInt32MSB:
+      case ASIOSTInt32LSB:
+      case ASIOSTInt32MSB16:
+      case ASIOSTInt32LSB16:
+      case ASIOSTInt32MSB18:
+      case ASIOSTInt32LSB18:
+      case ASIOSTInt32MSB20:
+      case ASIOSTInt32LSB20:
+      case ASIOSTInt32MSB24:
+      case ASIOSTInt32LSB24: {
+        return new Int32Codec(buffer0, buffer1, sampleType.getFullScale(), quantizer);
+      }
+      case ASIOSTInt16MSB:
+      case ASIOSTInt16LSB: {
+        return new Int16Codec(buffer0, buffer1, sampleType.getFullScale(), quantizer);
+      }
+      case ASIOSTInt24MSB:
+      case ASIOSTInt24LSB: {
+        return new Int24Codec(buffer0, buffer1, sampleType.getFullScale(), quantizer);
+      }
+      case ASIOSTDSDInt8LSB1:
+      case ASIOSTDSDInt8MSB1:
+      case ASIOSTDSDInt8NER8: {
+        return new DsdCodec(buffer0, buffer1, sampleType);
+      }
+      default: {
+        throw new IllegalArgumentException("Unknown sample type " + sampleType.toString() + ".");
+      }
+    }
+  }
+
+  /**
+   * Selects the half-buffer which subsequent calls to <code>read()</code> and <code>write()</code>
+   * operate on, and resets its position to the start of the buffer.
+   */
+  abstract void setBufferIndex(int bufferIndex);
+
+  /**
+   * Converts <code>length</code> samples from <code>src</code>, starting at <code>offset</code> and
+   * <code>stride</code> elements apart, into the current half-buffer at its current position.
+   * @throws BufferOverflowException  Thrown if the buffer does not have space for all samples.
+   */
+  abstract void write(float[] src, int offset, int stride, int length);
+
+  /**
+   * Converts <code>length</code> samples from the current position of the current half-buffer into
+   * <code>dst</code>, starting at <code>offset</code> and <code>stride</code> elements apart.
+   * @throws BufferUnderflowException  Thrown if the buffer does not have that many samples remaining.
+   */
+  abstract void read(float[] dst, int offset, int stride, int length);
+
+  /**
+   * As <code>write(float[], int, int, int)</code>, but from <code>double</code> samples.
+   */
+  abstract void write(double[] src, int offset, int stride, int length);
+
+  /**
+   * As <code>read(float[], int, int, int)</code>, but into <code>double</code> samples.
+   */
+  abstract void read(double[] dst, int offset, int stride, int length);
+
+  /**
+   * As <code>read(float[], int, int, int)</code>, and also meters the samples with
+   * <code>levelMeter</code>. The <code>Float32</code>, <code>Int32</code> and packed <code>Int24</code>
+   * codecs meter each sample in the same loop which converts it; the others meter the converted block
+   * afterwards.
+   */
+  abstract void readMetered(float[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter);
+
+  /**
+   * As <code>readMetered(float[], int, int, int, AsioLevelMeter)</code>, but into <code>double</code>
+   * samples.
+   */
+  abstract void readMetered(double[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter);
+
+  private static final class Float32Codec extends SampleCodec {
+
+    private final FloatBuffer[] buffers;
+    private final float[] scratch;
+    private FloatBuffer buffer;
+
+    private Float32Codec(ByteBuffer buffer0, ByteBuffer buffer1) {
+      buffers = new FloatBuffer[] {buffer0.asFloatBuffer(), buffer1.asFloatBuffer()};
+      buffer = buffers[0];
+      scratch = new float[buffer.capacity()]; // only needed for interleaved or metered access
+    }
+
+    @Override
+    void setBufferIndex(int bufferIndex) {
+      buffer = buffers[bufferIndex];
+      buffer.rewind();
+    }
+
+    @Override
+    void write(float[] src, int offset, int stride, int length) {
+      SampleKernels.writeFloat32(buffer, scratch, src, offset, stride, length);
+    }
+
+    @Override
+    void read(float[] dst, int offset, int stride, int length) {
+      SampleKernels.readFloat32(buffer, scratch, dst, offset, stride, length);
+    }
+
+    @Override
+    void write(double[] src, int offset, int stride, int length) {
+      SampleKernels.writeFloat32(buffer, scratch, src, offset, stride, length);
+    }
+
+    @Override
+    void read(double[] dst, int offset, int stride, int length) {
+      SampleKernels.readFloat32(buffer, scratch, dst, offset, stride, length);
+    }
+
+    @Override
+    void readMetered(float[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      SampleKernels.readFloat32Metered(buffer, scratch, dst, offset, stride, length, levelMeter);
+    }
+
+    @Override
+    void readMetered(double[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      SampleKernels.readFloat32Metered(buffer, scratch, dst, offset, stride, length, levelMeter);
+    }
+  }
+
+  private static final class Float64Codec extends SampleCodec {
+
+    private final DoubleBuffer[] buffers;
+    private final double[] scratch;
+    private DoubleBuffer buffer;
+
+    private Float64Codec(ByteBuffer buffer0, ByteBuffer buffer1) {
+      buffers = new DoubleBuffer[] {buffer0.asDoubleBuffer(), buffer1.asDoubleBuffer()};
+      buffer = buffers[0];
+      scratch = new double[buffer.capacity()];
+    }
+
+    @Override
+    void setBufferIndex(int bufferIndex) {
+      buffer = buffers[bufferIndex];
+      buffer.rewind();
+    }
+
+    @Override
+    void write(float[] src, int offset, int stride, int length) {
+      SampleKernels.writeFloat64(buffer, scratch, src, offset, stride, length);
+    }
+
+    @Override
+    void read(float[] dst, int offset, int stride, int length) {
+      SampleKernels.readFloat64(buffer, scratch, dst, offset, stride, length);
+    }
+
+    @Override
+    void write(double[] src, int offset, int stride, int length) {
+      SampleKernels.writeFloat64(buffer, scratch, src, offset, stride, length);
+    }
+
+    @Override
+    void read(double[] dst, int offset, int stride, int length) {
+      SampleKernels.readFloat64(buffer, scratch, dst, offset, stride, length);
+    }
+
+    @Override
+    void readMetered(float[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      read(dst, offset, stride, length);
+      levelMeter.process(dst, offset, stride, length);
+    }
+
+    @Override
+    void readMetered(double[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      read(dst, offset, stride, length);
+      levelMeter.process(dst, offset, stride, length);
+    }
+  }
+
+  private static final class Int32Codec extends SampleCodec {
+
+    private final IntBuffer[] buffers;
+    private final int[] scratch;
+    private final float fullScale;
+    private final double fullScaleDouble;
+    private final SampleQuantizer quantizer;
+    private IntBuffer buffer;
+
+    private Int32Codec(ByteBuffer buffer0, ByteBuffer buffer1, double fullScale,
+        SampleQuantizer quantizer) {
+      buffers = new IntBuffer[] {buffer0.asIntBuffer(), buffer1.asIntBuffer()};
+      buffer = buffers[0];
+      scratch = new int[buffer.capacity()];
+      this.fullScale = (float) fullScale;
+      fullScaleDouble = fullScale;
+      this.quantizer = quantizer;
+    }
+
+    @Override
+    void setBufferIndex(int bufferIndex) {
+      buffer = buffers[bufferIndex];
+      buffer.rewind();
+    }
+
+    @Override
+    void write(float[] src, int offset, int stride, int length) {
+      SampleKernels.writeInt32(buffer, scratch, src, offset, stride, length, fullScale, quantizer);
+    }
+
+    @Override
+    void read(float[] dst, int offset, int stride, int length) {
+      SampleKernels.readInt32(buffer, scratch, dst, offset, stride, length, fullScale);
+    }
+
+    @Override
+    void write(double[] src, int offset, int stride, int length) {
+      SampleKernels.writeInt32(buffer, scratch, src, offset, stride, length, fullScaleDouble, quantizer);
+    }
+
+    @Override
+    void read(double[] dst, int offset, int stride, int length) {
+      SampleKernels.readInt32(buffer, scratch, dst, offset, stride, length, fullScaleDouble);
+    }
+
+    @Override
+    void readMetered(float[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      SampleKernels.readInt32Metered(buffer, scratch, dst, offset, stride, length, fullScale, levelMeter);
+    }
+
+    @Override
+    void readMetered(double[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      SampleKernels.readInt32Metered(buffer, scratch, dst, offset, stride, length, fullScaleDouble, levelMeter);
+    }
+  }
+
+  private static final class Int16Codec extends SampleCodec {
+
+    private final ShortBuffer[] buffers;
+    private final int[] scratch;
+    private final short[] shorts;
+    private final float fullScale;
+    private final double fullScaleDouble;
+    private final SampleQuantizer quantizer;
+    private ShortBuffer buffer;
+
+    private Int16Codec(ByteBuffer buffer0, ByteBuffer buffer1, double fullScale,
+        SampleQuantizer quantizer) {
+      buffers = new ShortBuffer[] {buffer0.asShortBuffer(), buffer1.asShortBuffer()};
+      buffer = buffers[0];
+      scratch = new int[buffer.capacity()];
+      shorts = new short[buffer.capacity()];
+      this.fullScale = (float) fullScale;
+      fullScaleDouble = fullScale;
+      this.quantizer = quantizer;
+    }
+
+    @Override
+    void setBufferIndex(int bufferIndex) {
+      buffer = buffers[bufferIndex];
+      buffer.rewind();
+    }
+
+    @Override
+    void write(float[] src, int offset, int stride, int length) {
+      SampleKernels.writeInt16(buffer, scratch, shorts, src, offset, stride, length, fullScale, quantizer);
+    }
+
+    @Override
+    void read(float[] dst, int offset, int stride, int length) {
+      SampleKernels.readInt16(buffer, shorts, dst, offset, stride, length, fullScale);
+    }
+
+    @Override
+    void write(double[] src, int offset, int stride, int length) {
+      SampleKernels.writeInt16(buffer, scratch, shorts, src, offset, stride, length, fullScaleDouble, quantizer);
+    }
+
+    @Override
+    void read(double[] dst, int offset, int stride, int length) {
+      SampleKernels.readInt16(buffer, shorts, dst, offset, stride, length, fullScaleDouble);
+    }
+
+    @Override
+    void readMetered(float[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      read(dst, offset, stride, length);
+      levelMeter.process(dst, offset, stride, length);
+    }
+
+    @Override
+    void readMetered(double[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      read(dst, offset, stride, length);
+      levelMeter.process(dst, offset, stride, length);
+    }
+  }
+
+  /**
+   * Packed 24-bit samples, three bytes per sample.
+   */
+  private static final class Int24Codec extends SampleCodec {
+
+    private final ByteBuffer[] buffers;
+    private final IntBuffer[] wordBuffers; // views of the buffers as whole 32-bit words
+    private final int[] words;
+    private final int[] scratch;
+    private final float fullScale;
+    private final double fullScaleDouble;
+    private final SampleQuantizer quantizer;
+    private ByteBuffer buffer;
+    private IntBuffer wordBuffer;
+
+    private Int24Codec(ByteBuffer buffer0, ByteBuffer buffer1, double fullScale,
+        SampleQuantizer quantizer) {
+      buffers = new ByteBuffer[] {buffer0, buffer1};
+      wordBuffers = new IntBuffer[] {buffer0.asIntBuffer(), buffer1.asIntBuffer()};
+      buffer = buffers[0];
+      wordBuffer = wordBuffers[0];
+      words = new int[wordBuffer.capacity()];
+      scratch = new int[buffer.capacity() / 3];
+      this.fullScale = (float) fullScale;
+      fullScaleDouble = fullScale;
+      this.quantizer = quantizer;
+    }
+
+    @Override
+    void setBufferIndex(int bufferIndex) {
+      buffer = buffers[bufferIndex];
+      wordBuffer = wordBuffers[bufferIndex];
+      buffer.rewind();
+    }
+
+    @Override
+    void write(float[] src, int offset, int stride, int length) {
+      SampleKernels.writeInt24(buffer, wordBuffer, words, scratch, src, offset, stride, length, fullScale, quantizer);
+    }
+
+    @Override
+    void read(float[] dst, int offset, int stride, int length) {
+      SampleKernels.readInt24(buffer, wordBuffer, words, scratch, dst, offset, stride, length, fullScale);
+    }
+
+    @Override
+    void write(double[] src, int offset, int stride, int length) {
+      SampleKernels.writeInt24(buffer, wordBuffer, words, scratch, src, offset, stride, length, fullScaleDouble, quantizer);
+    }
+
+    @Override
+    void read(double[] dst, int offset, int stride, int length) {
+      SampleKernels.readInt24(buffer, wordBuffer, words, scratch, dst, offset, stride, length, fullScaleDouble);
+    }
+
+    @Override
+    void readMetered(float[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      SampleKernels.readInt24Metered(buffer, wordBuffer, words, scratch, dst, offset, stride, length, fullScale,
+          levelMeter);
+    }
+
+    @Override
+    void readMetered(double[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      SampleKernels.readInt24Metered(buffer, wordBuffer, words, scratch, dst, offset, stride, length,
+          fullScaleDouble, levelMeter);
+    }
+  }
+
+  /**
+   * 1-bit DSD samples. Packed bytes hold eight samples, the earliest in the most significant bit. They
+   * are stored as they are for <code>ASIOSTDSDInt8MSB1</code>, with their bits reversed for
+   * <code>ASIOSTDSDInt8LSB1</code>, and as eight bytes of one sample each (in the least significant bit)
+   * for <code>ASIOSTDSDInt8NER8</code>. <code>float</code> and <code>double</code> samples are converted
+   * with a <code>DsdConverter</code>, one PCM sample per packed byte. Packed bytes are accessed with
+   * <code>readDsd()</code> and <code>writeDsd()</code>, which <code>AsioChannel</code> calls on this type
+   * once it has checked that the sample type is a DSD type.
+   */
+  static final class DsdCodec extends SampleCodec {
+
+    private final ByteBuffer[] buffers;
+    private final boolean isLsbFirst;
+    private final int bytesPerPackedByte; // the number of buffer bytes holding eight samples
+    private final byte[] raw; // the contents of the buffer, for NER8
+    private final byte[] packed;
+    private final DsdConverter converter;
+    private ByteBuffer buffer;
+
+    private DsdCodec(ByteBuffer buffer0, ByteBuffer buffer1, AsioSampleType sampleType) {
+      buffers = new ByteBuffer[] {buffer0, buffer1};
+      buffer = buffers[0];
+      isLsbFirst = sampleType == AsioSampleType.ASIOSTDSDInt8LSB1;
+      bytesPerPackedByte = (sampleType == AsioSampleType.ASIOSTDSDInt8NER8) ? 8 : 1;
+      raw = new byte[buffer.capacity()];
+      packed = new byte[buffer.capacity() / bytesPerPackedByte];
+      converter = new DsdConverter(packed.length);
+    }
+
+    @Override
+    void setBufferIndex(int bufferIndex) {
+      buffer = buffers[bufferIndex];
+      buffer.rewind();
+    }
+
+    @Override
+    void write(float[] src, int offset, int stride, int length) {
+      checkRemaining(length, true);
+      converter.modulate(src, offset, stride, length, packed);
+      writeDsd(packed, 0, length);
+    }
+
+    @Override
+    void read(float[] dst, int offset, int stride, int length) {
+      readDsd(converter.getDecimationBuffer(), converter.getDecimationOffset(), length);
+      converter.decimate(dst, offset, stride, length);
+    }
+
+    @Override
+    void write(double[] src, int offset, int stride, int length) {
+      checkRemaining(length, true);
+      converter.modulate(src, offset, stride, length, packed);
+      writeDsd(packed, 0, length);
+    }
+
+    @Override
+    void read(double[] dst, int offset, int stride, int length) {
+      readDsd(converter.getDecimationBuffer(), converter.getDecimationOffset(), length);
+      converter.decimate(dst, offset, stride, length);
+    }
+
+    @Override
+    void readMetered(float[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      read(dst, offset, stride, length);
+      levelMeter.process(dst, offset, stride, length);
+    }
+
+    @Override
+    void readMetered(double[] dst, int offset, int stride, int length, AsioLevelMeter levelMeter) {
+      read(dst, offset, stride, length);
+      levelMeter.process(dst, offset, stride, length);
+    }
+
+    /**
+     * Reads <code>length</code> bytes of packed DSD samples into <code>dst</code>, starting at
+     * <code>offset</code>.
+     * @throws BufferUnderflowException  Thrown if the buffer does not have that many samples remaining.
+     */
+    void readDsd(byte[] dst, int offset, int length) {
+      checkRemaining(length, false);
+      if (bytesPerPackedByte == 8) {
+        buffer.get(raw, 0, 8 * length);
+        for (int n = 0, i = 0; n < length; n++, i += 8) {
+          dst[offset + n] = (byte) (((raw[i] & 1) << 7) | ((raw[i + 1] & 1) << 6) |
+              ((raw[i + 2] & 1) << 5) | ((raw[i + 3] & 1) << 4) | ((raw[i + 4] & 1) << 3) |
+              ((raw[i + 5] & 1) << 2) | ((raw[i + 6] & 1) << 1) | (raw[i + 7] & 1));
+        }
+      } else {
+        buffer.get(dst, offset, length);
+        if (isLsbFirst) {
+          for (int i = offset; i < offset + length; i++) {
+            dst[i] = DsdConverter.BIT_REVERSE[dst[i] & 0xFF];
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes <code>length</code> bytes of packed DSD samples from <code>src</code>, starting at
+     * <code>offset</code>.
+     * @throws BufferOverflowException  Thrown if the buffer does not have space for all samples.
+     */
+    void writeDsd(byte[] src, int offset, int length) {
+      checkRemaining(length, true);
+      if (bytesPerPackedByte == 8) {
+        for (int n = 0, i = 0; n < length; n++, i += 8) {
+          int b = src[offset + n];
+          raw[i] = (byte) ((b >> 7) & 1);
+          raw[i + 1] = (byte) ((b >> 6) & 1);
+          raw[i + 2] = (byte) ((b >> 5) & 1);
+          raw[i + 3] = (byte) ((b >> 4) & 1);
+          raw[i + 4] = (byte) ((b >> 3) & 1);
+          raw[i + 5] = (byte) ((b >> 2) & 1);
+          raw[i + 6] = (byte) ((b >> 1) & 1);
+          raw[i + 7] = (byte) (b & 1);
+        }
+        buffer.put(raw, 0, 8 * length);
+      } else if (isLsbFirst) {
+        for (int n = 0; n < length; n++) {
+          raw[n] = DsdConverter.BIT_REVERSE[src[offset + n] & 0xFF];
+        }
+        buffer.put(raw, 0, length);
+      } else {
+        buffer.put(src, offset, length);
+      }
+    }
+
+    /**
+     * Checks that the buffer has <code>length</code> packed bytes remaining, before any state is changed.
+     */
+    private void checkRemaining(int length, boolean isWrite) {
+      if (length > buffer.remaining() / bytesPerPackedByte) {
+        if (isWrite) {
+          throw new BufferOverflowException();
+        } else {
+          throw new BufferUnderflowException();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,544 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Bulk sample conversion kernels used by <code>AsioChannel</code>. Each kernel moves a whole block
+ * between a <code>float</code> array and a typed view of a native buffer. Samples are first converted
+ * in a simple counted loop over primitive arrays (which the JIT compiles to SIMD instructions), and
+ * then transferred to or from the native buffer with a single bulk <code>put()</code> or
+ * <code>get()</code>. The bulk transfers are intrinsic memory copies, including any byte swapping
+ * required by the byte order of the view.<br>
+ * <br>
+ * Samples in the <code>float</code> array are <code>stride</code> elements apart, starting at
+ * <code>offset</code>. A stride of one is a contiguous block, and is handled by a separate loop so
+ * that it remains vectorizable. A larger stride reads or writes one channel of an interleaved block.
+ * The caller is responsible for checking that the array is large enough.<br>
+ * <br>
+ * The metered read kernels, used while metering is enabled on the channel, always transfer the block
+ * into the scratch array, and then convert and meter it in a single loop with
+ * <code>AsioLevelMeter.process()</code>, such that the converted samples are not passed over again.
+ */
+final class SampleKernels {
+
+  private SampleKernels() {}
+
+  static void writeFloat32(FloatBuffer dst, float[] scratch, float[] src, int offset, int stride,
+      int length) {
+    if (stride == 1) {
+      dst.put(src, offset, length);
+    } else {
+      if (length > dst.remaining()) {
+        throw new BufferOverflowException();
+      }
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        scratch[i] = src[j];
+      }
+      dst.put(scratch, 0, length);
+    }
+  }
+
+  static void readFloat32(FloatBuffer src, float[] scratch, float[] dst, int offset, int stride,
+      int length) {
+    if (stride == 1) {
+      src.get(dst, offset, length);
+    } else {
+      if (length > src.remaining()) {
+        throw new BufferUnderflowException();
+      }
+      src.get(scratch, 0, length);
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i];
+      }
+    }
+  }
+
+  static void writeFloat64(DoubleBuffer dst, double[] scratch, float[] src, int offset, int stride,
+      int length) {
+    if (length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        scratch[i] = src[offset + i];
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        scratch[i] = src[j];
+      }
+    }
+    dst.put(scratch, 0, length);
+  }
+
+  static void readFloat64(DoubleBuffer src, double[] scratch, float[] dst, int offset, int stride,
+      int length) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = (float) scratch[i];
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = (float) scratch[i];
+      }
+    }
+  }
+
+  /**
+   * Writes samples to a 32-bit integer buffer. The same kernel serves all of the <code>Int32</code>
+   * variants, which differ only in their full scale value. Samples are converted to integers by the
+   * channel's <code>SampleQuantizer</code>, as they are for all integer sample types.
+   */
+  static void writeInt32(IntBuffer dst, int[] scratch, float[] src, int offset, int stride, int length,
+      float fullScale, SampleQuantizer quantizer) {
+    if (length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    quantizer.quantize(src, offset, stride, length, fullScale, scratch);
+    dst.put(scratch, 0, length);
+  }
+
+  static void readInt32(IntBuffer src, int[] scratch, float[] dst, int offset, int stride, int length,
+      float fullScale) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    final float scale = 1.0f / fullScale;
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = scratch[i] * scale;
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i] * scale;
+      }
+    }
+  }
+
+  static void writeInt16(ShortBuffer dst, int[] scratch, short[] shorts, float[] src, int offset, int stride,
+      int length, float fullScale, SampleQuantizer quantizer) {
+    if (length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    quantizer.quantize(src, offset, stride, length, fullScale, scratch);
+    for (int i = 0; i < length; i++) {
+      shorts[i] = (short) scratch[i];
+    }
+    dst.put(shorts, 0, length);
+  }
+
+  static void readInt16(ShortBuffer src, short[] scratch, float[] dst, int offset, int stride, int length,
+      float fullScale) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    final float scale = 1.0f / fullScale;
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = scratch[i] * scale;
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i] * scale;
+      }
+    }
+  }
+
+  /*
+   * double precision
+   */
+
+  static void writeFloat32(FloatBuffer dst, float[] scratch, double[] src, int offset, int stride,
+      int length) {
+    if (length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        scratch[i] = (float) src[offset + i];
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        scratch[i] = (float) src[j];
+      }
+    }
+    dst.put(scratch, 0, length);
+  }
+
+  static void readFloat32(FloatBuffer src, float[] scratch, double[] dst, int offset, int stride,
+      int length) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = scratch[i];
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i];
+      }
+    }
+  }
+
+  static void writeFloat64(DoubleBuffer dst, double[] scratch, double[] src, int offset, int stride,
+      int length) {
+    if (stride == 1) {
+      dst.put(src, offset, length);
+    } else {
+      if (length > dst.remaining()) {
+        throw new BufferOverflowException();
+      }
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        scratch[i] = src[j];
+      }
+      dst.put(scratch, 0, length);
+    }
+  }
+
+  static void readFloat64(DoubleBuffer src, double[] scratch, double[] dst, int offset, int stride,
+      int length) {
+    if (stride == 1) {
+      src.get(dst, offset, length);
+    } else {
+      if (length > src.remaining()) {
+        throw new BufferUnderflowException();
+      }
+      src.get(scratch, 0, length);
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i];
+      }
+    }
+  }
+
+  static void writeInt32(IntBuffer dst, int[] scratch, double[] src, int offset, int stride, int length,
+      double fullScale, SampleQuantizer quantizer) {
+    if (length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    quantizer.quantize(src, offset, stride, length, fullScale, scratch);
+    dst.put(scratch, 0, length);
+  }
+
+  static void readInt32(IntBuffer src, int[] scratch, double[] dst, int offset, int stride, int length,
+      double fullScale) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    final double scale = 1.0 / fullScale;
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = scratch[i] * scale;
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i] * scale;
+      }
+    }
+  }
+
+  static void writeInt16(ShortBuffer dst, int[] scratch, short[] shorts, double[] src, int offset, int stride,
+      int length, double fullScale, SampleQuantizer quantizer) {
+    if (length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    quantizer.quantize(src, offset, stride, length, fullScale, scratch);
+    for (int i = 0; i < length; i++) {
+      shorts[i] = (short) scratch[i];
+    }
+    dst.put(shorts, 0, length);
+  }
+
+  static void readInt16(ShortBuffer src, short[] scratch, double[] dst, int offset, int stride, int length,
+      double fullScale) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    final double scale = 1.0 / fullScale;
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = scratch[i] * scale;
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i] * scale;
+      }
+    }
+  }
+
+  /*
+   * packed 24-bit
+   */
+
+  static void writeInt24(ByteBuffer dst, IntBuffer dstWords, int[] words, int[] scratch, float[] src,
+      int offset, int stride, int length, float fullScale, SampleQuantizer quantizer) {
+    if (3 * length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    quantizer.quantize(src, offset, stride, length, fullScale, scratch);
+    packInt24(dst, dstWords, words, scratch, length);
+  }
+
+  static void readInt24(ByteBuffer src, IntBuffer srcWords, int[] words, int[] scratch, float[] dst,
+      int offset, int stride, int length, float fullScale) {
+    if (3 * length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    unpackInt24(src, srcWords, words, scratch, length);
+    final float scale = 1.0f / fullScale;
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = scratch[i] * scale;
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i] * scale;
+      }
+    }
+  }
+
+  static void writeInt24(ByteBuffer dst, IntBuffer dstWords, int[] words, int[] scratch, double[] src,
+      int offset, int stride, int length, double fullScale, SampleQuantizer quantizer) {
+    if (3 * length > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    quantizer.quantize(src, offset, stride, length, fullScale, scratch);
+    packInt24(dst, dstWords, words, scratch, length);
+  }
+
+  static void readInt24(ByteBuffer src, IntBuffer srcWords, int[] words, int[] scratch, double[] dst,
+      int offset, int stride, int length, double fullScale) {
+    if (3 * length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    unpackInt24(src, srcWords, words, scratch, length);
+    final double scale = 1.0 / fullScale;
+    if (stride == 1) {
+      for (int i = 0; i < length; i++) {
+        dst[offset + i] = scratch[i] * scale;
+      }
+    } else {
+      for (int i = 0, j = offset; i < length; i++, j += stride) {
+        dst[j] = scratch[i] * scale;
+      }
+    }
+  }
+
+  /**
+   * Packs the low 24 bits of <code>length</code> integers into <code>dst</code>, starting at its
+   * current position, in the byte order of the buffer. Every four samples are combined into three whole
+   * 32-bit words. If the position is word aligned (as it is at the start of a buffer), then the words are
+   * collected in <code>words</code> and stored with one bulk <code>put()</code> to <code>dstWords</code>,
+   * an <code>IntBuffer</code> view of <code>dst</code>. Otherwise each word is stored with an absolute
+   * <code>putInt()</code>. Any remaining samples are stored byte by byte. The position of <code>dst</code>
+   * is advanced past the written samples.
+   */
+  static void packInt24(ByteBuffer dst, IntBuffer dstWords, int[] words, int[] samples, int length) {
+    int position = dst.position();
+    final int blocks = length & ~3;
+    final boolean isBigEndian = dst.order() == ByteOrder.BIG_ENDIAN;
+    if ((position & 3) == 0) {
+      final int numWords = (blocks >> 2) * 3;
+      if (isBigEndian) {
+        for (int i = 0, w = 0; w < numWords; i += 4, w += 3) {
+          words[w] = (samples[i] << 8) | ((samples[i + 1] >>> 16) & 0xFF);
+          words[w + 1] = (samples[i + 1] << 16) | ((samples[i + 2] >>> 8) & 0xFFFF);
+          words[w + 2] = (samples[i + 2] << 24) | (samples[i + 3] & 0xFFFFFF);
+        }
+      } else {
+        for (int i = 0, w = 0; w < numWords; i += 4, w += 3) {
+          words[w] = (samples[i] & 0xFFFFFF) | (samples[i + 1] << 24);
+          words[w + 1] = ((samples[i + 1] >>> 8) & 0xFFFF) | (samples[i + 2] << 16);
+          words[w + 2] = ((samples[i + 2] >>> 16) & 0xFF) | (samples[i + 3] << 8);
+        }
+      }
+      dstWords.position(position >> 2);
+      dstWords.put(words, 0, numWords);
+    } else {
+      for (int i = 0, p = position; i < blocks; i += 4, p += 12) {
+        int s0 = samples[i];
+        int s1 = samples[i + 1];
+        int s2 = samples[i + 2];
+        int s3 = samples[i + 3];
+        if (isBigEndian) {
+          dst.putInt(p, (s0 << 8) | ((s1 >>> 16) & 0xFF));
+          dst.putInt(p + 4, (s1 << 16) | ((s2 >>> 8) & 0xFFFF));
+          dst.putInt(p + 8, (s2 << 24) | (s3 & 0xFFFFFF));
+        } else {
+          dst.putInt(p, (s0 & 0xFFFFFF) | (s1 << 24));
+          dst.putInt(p + 4, ((s1 >>> 8) & 0xFFFF) | (s2 << 16));
+          dst.putInt(p + 8, ((s2 >>> 16) & 0xFF) | (s3 << 8));
+        }
+      }
+    }
+    position += 3 * blocks;
+    for (int i = blocks; i < length; i++, position += 3) {
+      int s = samples[i];
+      if (isBigEndian) {
+        dst.put(position, (byte) (s >> 16));
+        dst.put(position + 1, (byte) (s >> 8));
+        dst.put(position + 2, (byte) s);
+      } else {
+        dst.put(position, (byte) s);
+        dst.put(position + 1, (byte) (s >> 8));
+        dst.put(position + 2, (byte) (s >> 16));
+      }
+    }
+    dst.position(position);
+  }
+
+  /**
+   * Unpacks <code>length</code> sign-extended 24-bit samples from <code>src</code>, starting at its
+   * current position, in the byte order of the buffer. Every four samples are extracted from three whole
+   * 32-bit words. If the position is word aligned, then the words are loaded with one bulk
+   * <code>get()</code> from <code>srcWords</code>, an <code>IntBuffer</code> view of <code>src</code>.
+   * Otherwise each word is loaded with an absolute <code>getInt()</code>. Any remaining samples are loaded
+   * byte by byte. The position of <code>src</code> is advanced past the read samples.
+   */
+  static void unpackInt24(ByteBuffer src, IntBuffer srcWords, int[] words, int[] samples, int length) {
+    int position = src.position();
+    final int blocks = length & ~3;
+    final boolean isBigEndian = src.order() == ByteOrder.BIG_ENDIAN;
+    if ((position & 3) == 0) {
+      final int numWords = (blocks >> 2) * 3;
+      srcWords.position(position >> 2);
+      srcWords.get(words, 0, numWords);
+      if (isBigEndian) {
+        for (int i = 0, w = 0; w < numWords; i += 4, w += 3) {
+          samples[i] = words[w] >> 8;
+          samples[i + 1] = ((words[w] << 24) >> 8) | (words[w + 1] >>> 16);
+          samples[i + 2] = ((words[w + 1] << 16) >> 8) | (words[w + 2] >>> 24);
+          samples[i + 3] = (words[w + 2] << 8) >> 8;
+        }
+      } else {
+        for (int i = 0, w = 0; w < numWords; i += 4, w += 3) {
+          samples[i] = (words[w] << 8) >> 8;
+          samples[i + 1] = (words[w] >>> 24) | ((words[w + 1] << 16) >> 8);
+          samples[i + 2] = (words[w + 1] >>> 16) | ((words[w + 2] << 24) >> 8);
+          samples[i + 3] = words[w + 2] >> 8;
+        }
+      }
+    } else {
+      for (int i = 0, p = position; i < blocks; i += 4, p += 12) {
+        int w0 = src.getInt(p);
+        int w1 = src.getInt(p + 4);
+        int w2 = src.getInt(p + 8);
+        if (isBigEndian) {
+          samples[i] = w0 >> 8;
+          samples[i + 1] = ((w0 << 24) >> 8) | (w1 >>> 16);
+          samples[i + 2] = ((w1 << 16) >> 8) | (w2 >>> 24);
+          samples[i + 3] = (w2 << 8) >> 8;
+        } else {
+          samples[i] = (w0 << 8) >> 8;
+          samples[i + 1] = (w0 >>> 24) | ((w1 << 16) >> 8);
+          samples[i + 2] = (w1 >>> 16) | ((w2 << 24) >> 8);
+          samples[i + 3] = w2 >> 8;
+        }
+      }
+    }
+    position += 3 * blocks;
+    for (int i = blocks; i < length; i++, position += 3) {
+      if (isBigEndian) {
+        samples[i] = (src.get(position) << 16) | ((src.get(position + 1) & 0xFF) << 8) |
+            (src.get(position + 2) & 0xFF);
+      } else {
+        samples[i] = (src.get(position) & 0xFF) | ((src.get(position + 1) & 0xFF) << 8) |
+            (src.get(position + 2) << 16);
+      }
+    }
+    src.position(position);
+  }
+
+  /*
+   * metered
+   */
+
+  static void readFloat32Metered(FloatBuffer src, float[] scratch, float[] dst, int offset, int stride,
+      int length, AsioLevelMeter levelMeter) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    levelMeter.process(scratch, dst, offset, stride, length);
+  }
+
+  static void readFloat32Metered(FloatBuffer src, float[] scratch, double[] dst, int offset, int stride,
+      int length, AsioLevelMeter levelMeter) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    levelMeter.process(scratch, dst, offset, stride, length);
+  }
+
+  static void readInt32Metered(IntBuffer src, int[] scratch, float[] dst, int offset, int stride,
+      int length, float fullScale, AsioLevelMeter levelMeter) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    levelMeter.process(scratch, 1.0f / fullScale, dst, offset, stride, length);
+  }
+
+  static void readInt32Metered(IntBuffer src, int[] scratch, double[] dst, int offset, int stride,
+      int length, double fullScale, AsioLevelMeter levelMeter) {
+    if (length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    src.get(scratch, 0, length);
+    levelMeter.process(scratch, 1.0 / fullScale, dst, offset, stride, length);
+  }
+
+  static void readInt24Metered(ByteBuffer src, IntBuffer srcWords, int[] words, int[] scratch, float[] dst,
+      int offset, int stride, int length, float fullScale, AsioLevelMeter levelMeter) {
+    if (3 * length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    unpackInt24(src, srcWords, words, scratch, length);
+    levelMeter.process(scratch, 1.0f / fullScale, dst, offset, stride, length);
+  }
+
+  static void readInt24Metered(ByteBuffer src, IntBuffer srcWords, int[] words, int[] scratch, double[] dst,
+      int offset, int stride, int length, double fullScale, AsioLevelMeter levelMeter) {
+    if (3 * length > src.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    unpackInt24(src, srcWords, words, scratch, length);
+    levelMeter.process(scratch, 1.0 / fullScale, dst, offset, stride, length);
+  }
+}
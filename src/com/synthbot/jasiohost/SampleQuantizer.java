@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.synthbot.jasiohost;
+
+/**
+ * The <code>SampleQuantizer</code> converts <code>float</code> or <code>double</code> samples to
+ * integers for one output channel, according to the channel's <code>AsioDitherType</code>. Integers are
+ * always saturated to the range of the sample type.<br>
+ * <br>
+ * Dither is generated with a 32-bit xorshift generator, which costs three shifts and three exclusive ors
+ * per sample. The difference of the lower and upper halves of each output is the difference of two
+ * independent uniform values, and so has a triangular distribution over (-1,1) LSB. Dithered samples
+ * are rounded by adding and subtracting 1.5*2^52, which leaves the nearest integer in the low bits of the
+ * <code>double</code> and avoids the cost of <code>Math.floor()</code>. The only state is the generator
+ * and the last quantization error (for noise shaping), so a quantizer never allocates.
+ */
+final class SampleQuantizer {
+
+  private static final double ROUND = 0x1.8p52; // 1.5*2^52
+
+  private volatile AsioDitherType ditherType;
+  private int seed; // the state of the dither generator, never zero
+  private double error; // the quantization error of the last sample, used for noise shaping
+
+  SampleQuantizer() {
+    ditherType = AsioDitherType.NONE;
+    seed = 0x2545F491;
+  }
+
+  AsioDitherType getDitherType() {
+    return ditherType;
+  }
+
+  void setDitherType(AsioDitherType ditherType) {
+    this.ditherType = ditherType;
+  }
+
+  /**
+   * Quantizes <code>length</code> samples from <code>src</code>, starting at <code>offset</code> and
+   * <code>stride</code> elements apart, into <code>dst</code>. Samples are scaled by
+   * <code>fullScale</code> and saturated to [-fullScale-1, fullScale]. <code>NaN</code>s become zero.
+   */
+  void quantize(float[] src, int offset, int stride, int length, float fullScale, int[] dst) {
+    switch (ditherType) {
+      case NONE: {
+        // the cast saturates to the range of int, and min/max then saturate to the sample type
+        final int max = (int) fullScale;
+        final int min = -max - 1;
+        if (stride == 1) {
+          for (int i = 0; i < length; i++) {
+            dst[i] = Math.max(min, Math.min(max, (int) (src[offset + i] * fullScale)));
+          }
+        } else {
+          for (int i = 0, j = offset; i < length; i++, j += stride) {
+            dst[i] = Math.max(min, Math.min(max, (int) (src[j] * fullScale)));
+          }
+        }
+        break;
+      }
+      case TPDF: {
+        // float does not have the precision to dither a 24-bit sample, so convert in double
+        final double scale = fullScale;
+        final double max = (int) fullScale;
+        final double min = -max - 1.0;
+        int seed = this.seed;
+        for (int i = 0, j = offset; i < length; i++, j += stride) {
+          seed ^= seed << 13;
+          seed ^= seed >>> 17;
+          seed ^= seed << 5;
+          double v = src[j] * scale + ((seed & 0xFFFF) - (seed >>> 16)) * (1.0 / 65536.0);
+          v = v > max ? max : v;
+          v = v < min ? min : v;
+          dst[i] = (int) Double.doubleToRawLongBits(v + ROUND);
+        }
+        this.seed = seed;
+        break;
+      }
+      case TPDF_NOISE_SHAPED: {
+        final double scale = fullScale;
+        final double max = (int) fullScale;
+        final double min = -max - 1.0;
+        int seed = this.seed;
+        double error = this.error;
+        for (int i = 0, j = offset; i < length; i++, j += stride) {
+          seed ^= seed << 13;
+          seed ^= seed >>> 17;
+          seed ^= seed << 5;
+          double v = src[j] * scale - error;
+          double q = (v + ((seed & 0xFFFF) - (seed >>> 16)) * (1.0 / 65536.0) + ROUND) - ROUND;
+          // the error is taken before saturation, so that a clipped signal does not accumulate error
+          error = q - v;
+          if (!(error < 2.0 && error > -2.0)) {
+            error = 0.0; // NaN, or a sample too large to round
+          }
+          q = q > max ? max : q;
+          q = q < min ? min : q;
+          dst[i] = (int) q;
+        }
+        this.seed = seed;
+        this.error = error;
+        break;
+      }
+    }
+  }
+
+  /**
+   * The <code>double</code> equivalent of <code>quantize(float[], int, int, int, float, int[])</code>.
+   */
+  void quantize(double[] src, int offset, int stride, int length, double fullScale, int[] dst) {
+    switch (ditherType) {
+      case NONE: {
+        final int max = (int) fullScale;
+        final int min = -max - 1;
+        if (stride == 1) {
+          for (int i = 0; i < length; i++) {
+            dst[i] = Math.max(min, Math.min(max, (int) (src[offset + i] * fullScale)));
+          }
+        } else {
+          for (int i = 0, j = offset; i < length; i++, j += stride) {
+            dst[i] = Math.max(min, Math.min(max, (int) (src[j] * fullScale)));
+          }
+        }
+        break;
+      }
+      case TPDF: {
+        final double max = (int) fullScale;
+        final double min = -max - 1.0;
+        int seed = this.seed;
+        for (int i = 0, j = offset; i < length; i++, j += stride) {
+          seed ^= seed << 13;
+          seed ^= seed >>> 17;
+          seed ^= seed << 5;
+          double v = src[j] * fullScale + ((seed & 0xFFFF) - (seed >>> 16)) * (1.0 / 65536.0);
+          v = v > max ? max : v;
+          v = v < min ? min : v;
+          dst[i] = (int) Double.doubleToRawLongBits(v + ROUND);
+        }
+        this.seed = seed;
+        break;
+      }
+      case TPDF_NOISE_SHAPED: {
+        final double max = (int) fullScale;
+        final double min = -max - 1.0;
+        int seed = this.seed;
+        double error = this.error;
+        for (int i = 0, j = offset; i < length; i++, j += stride) {
+          seed ^= seed << 13;
+          seed ^= seed >>> 17;
+          seed ^= seed << 5;
+          double v = src[j] * fullScale - error;
+          double q = (v + ((seed & 0xFFFF) - (seed >>> 16)) * (1.0 / 65536.0) + ROUND) - ROUND;
+          error = q - v;
+          if (!(error < 2.0 && error > -2.0)) {
+            error = 0.0;
+          }
+          q = q > max ? max : q;
+          q = q < min ? min : q;
+          dst[i] = (int) q;
+        }
+        this.seed = seed;
+        this.error = error;
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,684 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A pure-Java ASIO device, which requires neither Windows nor the native library. It offers one driver,
+ * with a configurable number of channels, sample type, buffer sizes and sample rates. Once started,
+ * <code>bufferSwitch()</code> is called from a timer thread at the rate of a real device, i.e. once per
+ * buffer period, or as quickly as possible if pacing is disabled for benchmarks. The timer can inject
+ * random jitter into each callback, and outputs can be looped back to the inputs of the same index. The
+ * simulated device is used by setting it as the backend before a driver is loaded:
+ * <pre><code>
+ * SimulatedAsioBackend backend = new SimulatedAsioBackend();
+ * backend.setChannels(2, 2);
+ * backend.setLoopback(true);
+ * AsioDriver.setBackend(backend);
+ * AsioDriver driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+ * </code></pre>
+ * The number of channels and the sample type may only be changed while the driver is not initialised.
+ * Other settings may be changed at any time. The driver's requests to the host, such as a reset, can
+ * be simulated with <code>requestReset()</code> and similar methods.<br>
+ * <br>
+ * In offline mode, the same listeners render faster than real time, e.g. for mixdowns and regression
+ * tests. <code>start()</code> then does not start the timer. Instead each call of <code>render()</code>
+ * makes the callbacks back to back on the calling thread, with the system time and sample position
+ * advanced as by a real device. The inputs are fed from an <code>AsioSampleSource</code>, such as a
+ * <code>WavFileSource</code> or a generator, and the outputs are collected by an
+ * <code>AsioSampleSink</code>, such as a <code>WavFileSink</code>:
+ * <pre><code>
+ * backend.setOffline(true);
+ * backend.setInputSource(new WavFileSource(new File("in.wav")));
+ * WavFileSink sink = new WavFileSink(new File("out.wav"), 2, 48000);
+ * backend.setOutputSink(sink);
+ * driver.createBuffers(channels);
+ * driver.start();
+ * backend.render(Long.MAX_VALUE); // until the end of the input
+ * driver.stop();
+ * sink.close();
+ * </code></pre>
+ */
+public final class SimulatedAsioBackend extends AsioBackend {
+
+  public static final String DEFAULT_DRIVER_NAME = "JAsioHost Simulated Device";
+
+  // the time information which a real driver reports
+  private static final int FLAGS = AsioTimeInfo.SYSTEM_TIME_VALID | AsioTimeInfo.SAMPLE_POSITION_VALID |
+      AsioTimeInfo.SAMPLE_RATE_VALID | AsioTimeInfo.SPEED_VALID;
+  // the final part of the wait before a callback is spun, as parking is not precise enough
+  private static final long SPIN_NANOS = 100000L;
+
+  private final String driverName;
+  private int numInputs;
+  private int numOutputs;
+  private AsioSampleType sampleType;
+  private volatile int bufferMinSize;
+  private volatile int bufferMaxSize;
+  private volatile int bufferPreferredSize;
+  private volatile int bufferGranularity;
+  private volatile double[] sampleRates;
+  private volatile double sampleRate;
+  private volatile long jitterNanos;
+  private volatile boolean isPaced;
+  private volatile boolean isLoopback;
+  private volatile boolean isOffline;
+  private volatile AsioSampleSource inputSource;
+  private volatile AsioSampleSink outputSink;
+
+  private boolean isLoaded;
+  private volatile AsioDriver driver; // the driver receiving callbacks, null unless initialised
+  private int bufferSize;
+  private ByteBuffer[][] inputBuffers; // views of the buffers of each channel, null if inactive
+  private ByteBuffer[][] outputBuffers;
+  private Thread timerThread;
+  private volatile boolean isRunning;
+  private long offlineSamplePosition; // the position of the next offline callback
+
+  /**
+   * Creates a simulated device named <code>DEFAULT_DRIVER_NAME</code>.
+   */
+  public SimulatedAsioBackend() {
+    this(DEFAULT_DRIVER_NAME);
+  }
+
+  /**
+   * Creates a simulated device with two inputs and two outputs of <code>ASIOSTFloat32LSB</code>
+   * samples, buffer sizes of 32 to 4096 in powers of two with a preferred size of 256, and a sample
+   * rate of 48kHz. Callbacks are paced in real time, without jitter or loopback.
+   * @param driverName  The name of the only driver of the device.
+   */
+  public SimulatedAsioBackend(String driverName) {
+    if (driverName == null) {
+      throw new NullPointerException("The driver name cannot be null.");
+    }
+    this.driverName = driverName;
+    numInputs = 2;
+    numOutputs = 2;
+    sampleType = AsioSampleType.ASIOSTFloat32LSB;
+    bufferMinSize = 32;
+    bufferMaxSize = 4096;
+    bufferPreferredSize = 256;
+    bufferGranularity = -1;
+    sampleRates = new double[] {44100.0, 48000.0, 88200.0, 96000.0, 176400.0, 192000.0};
+    sampleRate = 48000.0;
+    isPaced = true;
+  }
+
+  public String getDriverName() {
+    return driverName;
+  }
+
+  /**
+   * Sets the number of input and output channels.
+   * @throws IllegalStateException  Thrown if the driver is initialised.
+   */
+  public synchronized void setChannels(int numInputs, int numOutputs) {
+    checkNotInitialized();
+    if (numInputs < 0 || numOutputs < 0) {
+      throw new IllegalArgumentException("The number of channels may not be negative.");
+    }
+    this.numInputs = numInputs;
+    this.numOutputs = numOutputs;
+  }
+
+  /**
+   * Sets the sample type of all channels.
+   * @throws IllegalStateException  Thrown if the driver is initialised.
+   */
+  public synchronized void setSampleType(AsioSampleType sampleType) {
+    checkNotInitialized();
+    if (sampleType == null) {
+      throw new NullPointerException("The sample type may not be null.");
+    }
+    this.sampleType = sampleType;
+  }
+
+  /**
+   * Sets the buffer sizes which the device supports, with the same meaning as the values returned by
+   * <code>AsioDriver.getBufferMinSize()</code> and related methods. The preferred size is not reported
+   * to the driver, for which see <code>setBufferPreferredSize()</code>.
+   */
+  public void setBufferSizes(int minSize, int maxSize, int preferredSize, int granularity) {
+    if (minSize <= 0 || maxSize < minSize || preferredSize < minSize || preferredSize > maxSize) {
+      throw new IllegalArgumentException("The buffer sizes must satisfy 0 < min <= preferred <= max.");
+    }
+    bufferMinSize = minSize;
+    bufferMaxSize = maxSize;
+    bufferPreferredSize = preferredSize;
+    bufferGranularity = granularity;
+  }
+
+  /**
+   * Sets the sample rates which the device supports. The current sample rate is not changed.
+   * @param sampleRates  The supported sample rates in Hz.
+   */
+  public void setSupportedSampleRates(double[] sampleRates) {
+    if (sampleRates.length == 0) {
+      throw new IllegalArgumentException("At least one sample rate must be supported.");
+    }
+    this.sampleRates = sampleRates.clone();
+  }
+
+  public long getJitterNanos() {
+    return jitterNanos;
+  }
+
+  /**
+   * Sets the maximum jitter of the callbacks. Each callback is delayed by a random time of up to the
+   * given duration after its nominal time, without delaying those which follow it.
+   * @param jitterNanos  The maximum delay in nanoseconds, or zero for no jitter.
+   */
+  public void setJitterNanos(long jitterNanos) {
+    if (jitterNanos < 0L) {
+      throw new IllegalArgumentException("The jitter may not be negative.");
+    }
+    this.jitterNanos = jitterNanos;
+  }
+
+  public boolean isPaced() {
+    return isPaced;
+  }
+
+  /**
+   * Sets whether callbacks are made in real time, once per buffer period, which is the default.
+   * Otherwise each callback follows the previous one immediately, such that the host runs as fast as
+   * it can.
+   */
+  public void setPaced(boolean isPaced) {
+    this.isPaced = isPaced;
+  }
+
+  public boolean isLoopback() {
+    return isLoopback;
+  }
+
+  /**
+   * Sets whether each active output is copied to the active input of the same index, which then
+   * receives it in the following callback. Inputs are otherwise zero.
+   */
+  public void setLoopback(boolean isLoopback) {
+    this.isLoopback = isLoopback;
+  }
+
+  public boolean isOffline() {
+    return isOffline;
+  }
+
+  /**
+   * Sets whether the device renders offline with <code>render()</code>, rather than in real time.
+   * @throws IllegalStateException  Thrown if the device is running.
+   */
+  public synchronized void setOffline(boolean isOffline) {
+    if (isRunning) {
+      throw new IllegalStateException(
+          "The offline mode may not be changed while the device is running.");
+    }
+    this.isOffline = isOffline;
+  }
+
+  /**
+   * Sets the source of the active inputs during an offline render. Channel <code>i</code> of the source
+   * feeds the <code>i</code>th active input, in order of channel index. Inputs are otherwise silent,
+   * or looped back from the outputs if enabled.
+   * @param source  The source, or <code>null</code> for none.
+   */
+  public void setInputSource(AsioSampleSource source) {
+    inputSource = source;
+  }
+
+  /**
+   * Sets the sink of the active outputs during an offline render. The <code>i</code>th active output,
+   * in order of channel index, is written to channel <code>i</code> of the sink.
+   * @param sink  The sink, or <code>null</code> for none.
+   */
+  public void setOutputSink(AsioSampleSink sink) {
+    outputSink = sink;
+  }
+
+  /**
+   * Renders offline on the calling thread, by making callbacks back to back until the given number of
+   * frames has been rendered, the input source has ended, or the driver has been stopped. If the input
+   * source ends within a buffer, then the rest of the buffer is silent, and only the frames up to the
+   * end of the input are written to the output sink. A render may be continued by calling this method
+   * again, e.g. without an input source in order to render the tail of effects.
+   * @param frames  The maximum number of frames to render.
+   * @return  The number of frames rendered.
+   * @throws IllegalStateException  Thrown if the device is not offline, or the driver is not running.
+   * @throws IOException  Thrown if the input source or output sink fails.
+   * @throws AssertionError  Thrown if the allocation watchdog of the driver is strict, and a listener has
+   * allocated during a callback.
+   */
+  public long render(long frames) throws IOException {
+    final AsioDriver driver;
+    final ByteBuffer[][] inputBuffers;
+    final ByteBuffer[][] outputBuffers;
+    final int bufferSize;
+    synchronized (this) {
+      if (!isOffline || !isRunning) {
+        throw new IllegalStateException(
+            "The driver must be started in offline mode in order to render.");
+      }
+      if (sampleType.isDsd()) {
+        throw new IllegalStateException("DSD sample types cannot be rendered offline.");
+      }
+      driver = this.driver;
+      inputBuffers = this.inputBuffers;
+      outputBuffers = this.outputBuffers;
+      bufferSize = this.bufferSize;
+    }
+    final SampleCodec[] inputCodecs = createCodecs(inputBuffers);
+    final SampleCodec[] outputCodecs = createCodecs(outputBuffers);
+    final float[][] inputSamples = new float[inputCodecs.length][bufferSize];
+    final float[][] outputSamples = new float[outputCodecs.length][bufferSize];
+    long rendered = 0L;
+    while (rendered < frames && isRunning) {
+      final int bufferIndex = (int) ((offlineSamplePosition / bufferSize) & 1L);
+      int length = (int) Math.min(bufferSize, frames - rendered);
+      final AsioSampleSource source = inputSource;
+      if (source != null || !isLoopback) {
+        int inputLength = 0;
+        if (source != null) {
+          inputLength = source.read(inputSamples, bufferSize);
+          if (inputLength < 0) {
+            break;
+          }
+          length = Math.min(length, inputLength);
+        }
+        for (int i = 0; i < inputCodecs.length; i++) {
+          Arrays.fill(inputSamples[i], inputLength, bufferSize, 0.0f);
+          inputCodecs[i].setBufferIndex(bufferIndex);
+          inputCodecs[i].write(inputSamples[i], 0, 1, bufferSize);
+        }
+      }
+      final double sampleRate = this.sampleRate;
+      driver.fireBufferSwitch((long) (offlineSamplePosition * 1e9 / sampleRate), offlineSamplePosition,
+          bufferIndex, sampleRate, 1.0, FLAGS, 0.0, 0L, 0);
+      driver.getAllocationWatchdog().assertNoAllocation();
+      if (isLoopback) {
+        loopBack(inputBuffers, outputBuffers, bufferIndex);
+      }
+      final AsioSampleSink sink = outputSink;
+      if (sink != null) {
+        for (int i = 0; i < outputCodecs.length; i++) {
+          outputCodecs[i].setBufferIndex(bufferIndex);
+          outputCodecs[i].read(outputSamples[i], 0, 1, bufferSize);
+        }
+        sink.write(outputSamples, length);
+      }
+      offlineSamplePosition += bufferSize;
+      rendered += length;
+      if (length < bufferSize) {
+        break;
+      }
+    }
+    return rendered;
+  }
+
+  /**
+   * Returns codecs for the active channels, in order of channel index, which operate on views of their
+   * buffers independent of those of the channels.
+   */
+  private SampleCodec[] createCodecs(ByteBuffer[][] buffers) {
+    int numActive = 0;
+    for (ByteBuffer[] channelBuffers : buffers) {
+      if (channelBuffers != null) {
+        numActive++;
+      }
+    }
+    SampleCodec[] codecs = new SampleCodec[numActive];
+    int i = 0;
+    for (ByteBuffer[] channelBuffers : buffers) {
+      if (channelBuffers != null) {
+        codecs[i++] = SampleCodec.create(sampleType,
+            channelBuffers[0].duplicate().order(sampleType.getByteOrder()),
+            channelBuffers[1].duplicate().order(sampleType.getByteOrder()), new SampleQuantizer());
+      }
+    }
+    return codecs;
+  }
+
+  /**
+   * Simulates a reset request of the driver, i.e. <code>kAsioResetRequest</code>.
+   */
+  public void requestReset() {
+    getInitializedDriver().fireResetRequest();
+  }
+
+  /**
+   * Simulates a resync request of the driver, i.e. <code>kAsioResyncRequest</code>.
+   */
+  public void requestResync() {
+    getInitializedDriver().fireResyncRequest();
+  }
+
+  /**
+   * Changes the preferred buffer size of the device, as in its control panel, and reports the change
+   * to the driver with <code>kAsioBufferSizeChange</code>.
+   */
+  public void setBufferPreferredSize(int bufferSize) {
+    if (bufferSize < bufferMinSize || bufferSize > bufferMaxSize) {
+      throw new IllegalArgumentException("The buffer size must be in [" +
+          Integer.toString(bufferMinSize) + "," + Integer.toString(bufferMaxSize) + "]: " +
+          Integer.toString(bufferSize));
+    }
+    bufferPreferredSize = bufferSize;
+    AsioDriver driver = this.driver;
+    if (driver != null) {
+      driver.fireBufferSizeChanged(bufferSize);
+    }
+  }
+
+  /**
+   * Changes the sample rate of the device, as would a change of its external clock, and reports the
+   * change to the driver with <code>sampleRateDidChange()</code>.
+   */
+  public void changeSampleRate(double sampleRate) {
+    this.sampleRate = sampleRate;
+    AsioDriver driver = this.driver;
+    if (driver != null) {
+      driver.fireSampleRateDidChange(sampleRate);
+    }
+  }
+
+  private AsioDriver getInitializedDriver() {
+    AsioDriver driver = this.driver;
+    if (driver == null) {
+      throw new IllegalStateException("The simulated driver is not initialised.");
+    }
+    return driver;
+  }
+
+  private void checkNotInitialized() {
+    if (driver != null) {
+      throw new IllegalStateException("The simulated driver is initialised.");
+    }
+  }
+
+  /*
+   * AsioBackend
+   */
+
+  @Override
+  void registerThread() {
+    // there is no COM
+  }
+
+  @Override
+  int getDriverNames(String[] driverNames) {
+    driverNames[0] = driverName;
+    return 1;
+  }
+
+  @Override
+  synchronized boolean loadDriver(String driverName) {
+    isLoaded = this.driverName.equals(driverName);
+    return isLoaded;
+  }
+
+  @Override
+  synchronized void removeCurrentDriver() {
+    isLoaded = false;
+  }
+
+  @Override
+  synchronized AsioDriverInfo ASIOInit(AsioDriver driver) {
+    if (!isLoaded) {
+      throw new AsioException("The simulated driver is not loaded.");
+    }
+    this.driver = driver;
+    return new AsioDriverInfo(2, 1, driverName, "");
+  }
+
+  @Override
+  synchronized void ASIOExit() {
+    stopTimer();
+    inputBuffers = null;
+    outputBuffers = null;
+    driver = null;
+    isLoaded = false; // as ASIOExit() releases a native driver, it must be loaded again
+  }
+
+  @Override
+  void ASIOControlPanel() {
+    // there is no control panel
+  }
+
+  @Override
+  synchronized int ASIOGetChannels(boolean isInput) {
+    return isInput ? numInputs : numOutputs;
+  }
+
+  @Override
+  double ASIOGetSampleRate() {
+    return sampleRate;
+  }
+
+  @Override
+  boolean ASIOCanSampleRate(double sampleRate) {
+    for (double supportedRate : sampleRates) {
+      if (supportedRate == sampleRate) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  void ASIOSetSampleRate(double sampleRate) {
+    if (!ASIOCanSampleRate(sampleRate)) {
+      throw new AsioException("The sample rate is not supported: " + Double.toString(sampleRate));
+    }
+    this.sampleRate = sampleRate;
+  }
+
+  @Override
+  int ASIOGetBufferSize(int index) {
+    switch (index) {
+      case 0: return bufferMinSize;
+      case 1: return bufferMaxSize;
+      case 2: return bufferPreferredSize;
+      case 3: return bufferGranularity;
+      default: return -1;
+    }
+  }
+
+  @Override
+  synchronized int ASIOGetLatencies(boolean isInput) {
+    return (inputBuffers != null) ? bufferSize : bufferPreferredSize;
+  }
+
+  @Override
+  synchronized AsioChannel ASIOGetChannelInfo(int index, boolean isInput) {
+    if (index < 0 || index >= (isInput ? numInputs : numOutputs)) {
+      throw new AsioException("The channel does not exist: " + Integer.toString(index));
+    }
+    ByteBuffer[][] buffers = isInput ? inputBuffers : outputBuffers;
+    boolean isActive = buffers != null && buffers[index] != null;
+    return new AsioChannel(index, isInput, isActive, 0, sampleType,
+        (isInput ? "Simulated Input " : "Simulated Output ") + Integer.toString(index + 1));
+  }
+
+  @Override
+  synchronized void ASIOCreateBuffers(AsioChannel[] channelsToInit, int bufferSize) {
+    if (bufferSize < bufferMinSize || bufferSize > bufferMaxSize) {
+      throw new AsioException("The buffer size is not supported: " + Integer.toString(bufferSize));
+    }
+    ByteBuffer[][] inputBuffers = new ByteBuffer[numInputs][];
+    ByteBuffer[][] outputBuffers = new ByteBuffer[numOutputs][];
+    for (AsioChannel channel : channelsToInit) {
+      int capacity = bufferSize * channel.getSampleType().getBytesPerSample();
+      ByteBuffer buffer0 = ByteBuffer.allocateDirect(capacity);
+      ByteBuffer buffer1 = ByteBuffer.allocateDirect(capacity);
+      // the device keeps its own views, such that it never moves the positions of the channel's buffers
+      ByteBuffer[] views = new ByteBuffer[] {buffer0.duplicate(), buffer1.duplicate()};
+      if (channel.isInput()) {
+        inputBuffers[channel.getChannelIndex()] = views;
+      } else {
+        outputBuffers[channel.getChannelIndex()] = views;
+      }
+      channel.setByteBuffers(buffer0, buffer1);
+    }
+    this.bufferSize = bufferSize;
+    this.inputBuffers = inputBuffers;
+    this.outputBuffers = outputBuffers;
+  }
+
+  @Override
+  synchronized void ASIODisposeBuffers() {
+    stopTimer();
+    inputBuffers = null;
+    outputBuffers = null;
+  }
+
+  @Override
+  synchronized void ASIOStart() {
+    if (inputBuffers == null) {
+      throw new AsioException("The buffers have not been created.");
+    }
+    if (isOffline) {
+      offlineSamplePosition = 0L;
+      isRunning = true; // the callbacks are made by render()
+    } else if (timerThread == null) {
+      final AsioDriver driver = this.driver;
+      final ByteBuffer[][] inputBuffers = this.inputBuffers;
+      final ByteBuffer[][] outputBuffers = this.outputBuffers;
+      final int bufferSize = this.bufferSize;
+      isRunning = true;
+      timerThread = new Thread("SimulatedAsioBackend") {
+        @Override
+        public void run() {
+          runTimer(driver, inputBuffers, outputBuffers, bufferSize);
+        }
+      };
+      timerThread.setDaemon(true);
+      timerThread.setPriority(Thread.MAX_PRIORITY);
+      timerThread.start();
+    }
+  }
+
+  @Override
+  synchronized void ASIOStop() {
+    stopTimer();
+  }
+
+  /**
+   * Stops the timer thread, and waits for the callback in progress to finish, unless it is the timer
+   * thread itself which stops the driver.
+   */
+  private void stopTimer() {
+    isRunning = false;
+    Thread thread = timerThread;
+    if (thread != null) {
+      timerThread = null;
+      LockSupport.unpark(thread);
+      if (thread != Thread.currentThread()) {
+        boolean isInterrupted = false;
+        while (thread.isAlive()) {
+          try {
+            thread.join();
+          } catch (InterruptedException e) {
+            isInterrupted = true;
+          }
+        }
+        if (isInterrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private void runTimer(AsioDriver driver, ByteBuffer[][] inputBuffers, ByteBuffer[][] outputBuffers,
+      int bufferSize) {
+    final Random random = new Random();
+    long samplePosition = 0L;
+    int bufferIndex = 0;
+    long nominalTime = System.nanoTime();
+    while (isRunning) {
+      final double sampleRate = this.sampleRate;
+      if (isPaced) {
+        long jitterNanos = this.jitterNanos;
+        waitUntil(nominalTime + ((jitterNanos > 0L) ? (long) (random.nextDouble() * jitterNanos) : 0L));
+        if (!isRunning) {
+          break;
+        }
+        nominalTime += (long) (bufferSize * 1e9 / sampleRate);
+      }
+      try {
+        driver.fireBufferSwitch(System.nanoTime(), samplePosition, bufferIndex, sampleRate, 1.0, FLAGS,
+            0.0, 0L, 0);
+      } catch (RuntimeException e) {
+        reportCallbackFailure(e);
+      } catch (Error e) {
+        reportCallbackFailure(e);
+      }
+      if (isLoopback) {
+        loopBack(inputBuffers, outputBuffers, bufferIndex);
+      }
+      samplePosition += bufferSize;
+      bufferIndex ^= 1;
+    }
+  }
+
+  /**
+   * Reports an exception thrown by a callback to the uncaught exception handler of the timer thread, and
+   * lets the timer continue. A Java exception cannot stop the driver's thread either, although there the
+   * native library leaves it pending.
+   */
+  private static void reportCallbackFailure(Throwable throwable) {
+    Thread thread = Thread.currentThread();
+    thread.getUncaughtExceptionHandler().uncaughtException(thread, throwable);
+  }
+
+  private void waitUntil(long time) {
+    long remaining;
+    while ((remaining = time - System.nanoTime()) > SPIN_NANOS && isRunning) {
+      LockSupport.parkNanos(remaining - SPIN_NANOS);
+    }
+    while (time - System.nanoTime() > 0L && isRunning) {
+      // spin
+    }
+  }
+
+  /**
+   * Copies the half-buffer of each active output which has just been written to the other half-buffer
+   * of the input of the same index, which is read in the next callback.
+   */
+  private static void loopBack(ByteBuffer[][] inputBuffers, ByteBuffer[][] outputBuffers,
+      int bufferIndex) {
+    final int length = Math.min(inputBuffers.length, outputBuffers.length);
+    for (int i = 0; i < length; i++) {
+      if (inputBuffers[i] != null && outputBuffers[i] != null) {
+        ByteBuffer output = outputBuffers[i][bufferIndex];
+        ByteBuffer input = inputBuffers[i][bufferIndex ^ 1];
+        output.clear();
+        input.clear();
+        input.put(output);
+      }
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * An <code>AsioSampleSink</code> which writes interleaved samples to a WAV file, as 32-bit floating
+ * point or as 16- or 24-bit integers. Integer samples are rounded and clipped, without dither. The
+ * header is completed when the sink is closed. A file which exceeds 4GB is written as RF64.
+ */
+public final class WavFileSink implements AsioSampleSink, Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final int numChannels;
+  private final int sampleRate;
+  private final int bitsPerSample;
+  private final int blockAlign;
+  private long dataBytes;
+  private boolean isClosed;
+
+  /**
+   * Creates a sink of 32-bit floating point samples.
+   * @param file  The file to write, which is replaced if it exists.
+   * @param numChannels  The number of channels of the file.
+   * @param sampleRate  The sample rate in Hz.
+   */
+  public WavFileSink(File file, int numChannels, int sampleRate) throws IOException {
+    this(file, numChannels, sampleRate, 32);
+  }
+
+  /**
+   * @param file  The file to write, which is replaced if it exists.
+   * @param numChannels  The number of channels of the file.
+   * @param sampleRate  The sample rate in Hz.
+   * @param bitsPerSample  16 or 24 for integer samples, or 32 for floating point samples.
+   */
+  public WavFileSink(File file, int numChannels, int sampleRate, int bitsPerSample)
+      throws IOException {
+    if (numChannels <= 0) {
+      throw new IllegalArgumentException("The number of channels must be positive.");
+    }
+    if (bitsPerSample != 16 && bitsPerSample != 24 && bitsPerSample != 32) {
+      throw new IllegalArgumentException("The bits per sample must be 16, 24 or 32: " +
+          Integer.toString(bitsPerSample));
+    }
+    this.numChannels = numChannels;
+    this.sampleRate = sampleRate;
+    this.bitsPerSample = bitsPerSample;
+    blockAlign = numChannels * (bitsPerSample / 8);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    randomAccessFile.setLength(0L);
+    channel = randomAccessFile.getChannel();
+    buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, WavHeader.SIZE + blockAlign));
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    // a provisional header, which is rewritten on close
+    WavHeader.write(buffer, getFormatTag(), numChannels, sampleRate, bitsPerSample, 0L);
+  }
+
+  private int getFormatTag() {
+    return (bitsPerSample == 32) ? WavHeader.FORMAT_IEEE_FLOAT : WavHeader.FORMAT_PCM;
+  }
+
+  public int getNumChannels() {
+    return numChannels;
+  }
+
+  /**
+   * Returns the number of frames which have been written.
+   */
+  public long getFrameCount() {
+    return dataBytes / blockAlign;
+  }
+
+  /**
+   * Writes the samples of each channel, interleaved. Missing channels are written as silence, and
+   * additional arrays are ignored.
+   */
+  public void write(float[][] samples, int length) throws IOException {
+    if (isClosed) {
+      throw new IOException("The sink is closed.");
+    }
+    for (int i = 0; i < length; i++) {
+      if (buffer.remaining() < blockAlign) {
+        flush();
+      }
+      for (int c = 0; c < numChannels; c++) {
+        float sample = (c < samples.length) ? samples[c][i] : 0.0f;
+        switch (bitsPerSample) {
+          case 16: {
+            buffer.putShort((short) quantize(sample, 32767.0f));
+            break;
+          }
+          case 24: {
+            int value = quantize(sample, 8388607.0f);
+            buffer.put((byte) value);
+            buffer.put((byte) (value >> 8));
+            buffer.put((byte) (value >> 16));
+            break;
+          }
+          default: {
+            buffer.putFloat(sample);
+          }
+        }
+      }
+    }
+    dataBytes += (long) length * blockAlign;
+  }
+
+  private static int quantize(float sample, float fullScale) {
+    float value = sample * fullScale;
+    if (value >= fullScale) {
+      return (int) fullScale;
+    } else if (value <= -fullScale - 1.0f) {
+      return (int) (-fullScale - 1.0f);
+    }
+    return Math.round(value);
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes any buffered samples, completes the header and closes the file.
+   */
+  public void close() throws IOException {
+    if (!isClosed) {
+      isClosed = true;
+      try {
+        if ((dataBytes & 1L) != 0L) {
+          buffer.put((byte) 0); // chunks are padded to an even length
+        }
+        flush();
+        ByteBuffer header = ByteBuffer.allocate(WavHeader.SIZE);
+        WavHeader.write(header, getFormatTag(), numChannels, sampleRate, bitsPerSample, dataBytes);
+        header.flip();
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+      } finally {
+        channel.close();
+      }
+    }
+  }
+}
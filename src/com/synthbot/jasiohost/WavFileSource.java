@@ -0,0 +1,246 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * An <code>AsioSampleSource</code> which reads a WAV or RF64 file, of 8-, 16-, 24- or 32-bit integer
+ * samples or of 32- or 64-bit floating point samples. Samples are converted to <code>float</code> in
+ * [-1,1), and are not resampled.
+ */
+public final class WavFileSource implements AsioSampleSource, Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final long UNKNOWN_SIZE = 0xFFFFFFFFL;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final int formatTag;
+  private final int numChannels;
+  private final int sampleRate;
+  private final int bitsPerSample;
+  private final int blockAlign;
+  private final long frameCount;
+  private final long dataOffset;
+  private long framesRemaining;
+
+  /**
+   * Opens the file, and reads its header.
+   * @throws IOException  Thrown if the file cannot be read, or is not a WAV file of a supported format.
+   */
+  public WavFileSource(File file) throws IOException {
+    channel = new FileInputStream(file).getChannel();
+    try {
+      ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+      readChunk(header, 12);
+      String riffTag = getTag(header);
+      boolean isRf64 = "RF64".equals(riffTag);
+      header.getInt();
+      if (!("RIFF".equals(riffTag) || isRf64) || !"WAVE".equals(getTag(header))) {
+        throw new IOException("The file is not a WAV file: " + file.getPath());
+      }
+      long rf64DataSize = -1L;
+      int formatTag = -1;
+      int numChannels = 0;
+      int sampleRate = 0;
+      int bitsPerSample = 0;
+      int blockAlign = 0;
+      long dataSize = -1L;
+      while (dataSize < 0L) {
+        readChunk(header, 8);
+        String tag = getTag(header);
+        long size = header.getInt() & 0xFFFFFFFFL;
+        long next = channel.position() + size + (size & 1L);
+        if ("ds64".equals(tag)) {
+          readChunk(header, 24);
+          header.getLong(); // the size of the RIFF chunk
+          rf64DataSize = header.getLong();
+        } else if ("fmt ".equals(tag)) {
+          readChunk(header, (int) Math.min(size, 40L));
+          formatTag = header.getShort() & 0xFFFF;
+          numChannels = header.getShort() & 0xFFFF;
+          sampleRate = header.getInt();
+          header.getInt(); // the byte rate
+          blockAlign = header.getShort() & 0xFFFF;
+          bitsPerSample = header.getShort() & 0xFFFF;
+          if (formatTag == WavHeader.FORMAT_EXTENSIBLE && size >= 40L) {
+            header.position(24); // the sub-format starts with the format tag
+            formatTag = header.getShort() & 0xFFFF;
+          }
+        } else if ("data".equals(tag)) {
+          dataSize = (isRf64 && size == UNKNOWN_SIZE) ? rf64DataSize : size;
+          next = channel.position();
+        }
+        channel.position(next);
+      }
+      boolean isSupported = (formatTag == WavHeader.FORMAT_PCM &&
+              (bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32)) ||
+          (formatTag == WavHeader.FORMAT_IEEE_FLOAT && (bitsPerSample == 32 || bitsPerSample == 64));
+      if (!isSupported || numChannels == 0 || blockAlign != numChannels * (bitsPerSample / 8)) {
+        throw new IOException("The format of the WAV file is not supported: format " +
+            Integer.toString(formatTag) + ", " + Integer.toString(bitsPerSample) + " bits");
+      }
+      this.formatTag = formatTag;
+      this.numChannels = numChannels;
+      this.sampleRate = sampleRate;
+      this.bitsPerSample = bitsPerSample;
+      this.blockAlign = blockAlign;
+      frameCount = Math.max(0L, dataSize) / blockAlign;
+      framesRemaining = frameCount;
+      dataOffset = channel.position();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    buffer = ByteBuffer.allocate(BUFFER_SIZE - BUFFER_SIZE % blockAlign + blockAlign);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.flip(); // empty
+  }
+
+  private void readChunk(ByteBuffer header, int length) throws IOException {
+    header.clear();
+    header.limit(length);
+    while (header.hasRemaining()) {
+      if (channel.read(header) < 0) {
+        throw new EOFException("The WAV file ends within its header.");
+      }
+    }
+    header.flip();
+  }
+
+  private static String getTag(ByteBuffer header) {
+    char[] tag = new char[4];
+    for (int i = 0; i < 4; i++) {
+      tag[i] = (char) header.get();
+    }
+    return new String(tag);
+  }
+
+  public int getNumChannels() {
+    return numChannels;
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  public int getBitsPerSample() {
+    return bitsPerSample;
+  }
+
+  public boolean isFloatingPoint() {
+    return formatTag == WavHeader.FORMAT_IEEE_FLOAT;
+  }
+
+  /**
+   * Returns the number of frames in the file.
+   */
+  public long getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Returns the position of the first sample in the file, in bytes.
+   */
+  long getDataOffset() {
+    return dataOffset;
+  }
+
+  public int read(float[][] samples, int length) throws IOException {
+    if (framesRemaining == 0L) {
+      return -1;
+    }
+    final int frames = (int) Math.min(length, framesRemaining);
+    for (int i = 0; i < frames; i++) {
+      if (buffer.remaining() < blockAlign && !fill()) {
+        // the file is shorter than its header claims
+        framesRemaining = 0L;
+        return (i == 0) ? -1 : i;
+      }
+      for (int c = 0; c < numChannels; c++) {
+        float sample = readSample();
+        if (c < samples.length) {
+          samples[c][i] = sample;
+        }
+      }
+    }
+    framesRemaining -= frames;
+    return frames;
+  }
+
+  private float readSample() {
+    final int index = buffer.position();
+    buffer.position(index + bitsPerSample / 8);
+    return getSample(buffer, index, bitsPerSample, formatTag == WavHeader.FORMAT_IEEE_FLOAT);
+  }
+
+  /**
+   * Returns the sample at the given index of a little-endian buffer, in a supported WAV format.
+   */
+  static float getSample(ByteBuffer buffer, int index, int bitsPerSample, boolean isFloatingPoint) {
+    switch (bitsPerSample) {
+      case 8: {
+        return ((buffer.get(index) & 0xFF) - 128) / 128.0f; // 8-bit samples are unsigned
+      }
+      case 16: {
+        return buffer.getShort(index) / 32768.0f;
+      }
+      case 24: {
+        int value = (buffer.get(index) & 0xFF) | ((buffer.get(index + 1) & 0xFF) << 8) |
+            (buffer.get(index + 2) << 16);
+        return value / 8388608.0f;
+      }
+      case 32: {
+        return isFloatingPoint ? buffer.getFloat(index) : (float) (buffer.getInt(index) / 2147483648.0);
+      }
+      default: {
+        return (float) buffer.getDouble(index);
+      }
+    }
+  }
+
+  /**
+   * Reads more of the file into the buffer.
+   * @return  <code>false</code> if no whole frame is available.
+   */
+  private boolean fill() throws IOException {
+    buffer.compact();
+    int bytesRead = 0;
+    while (buffer.position() < blockAlign && bytesRead >= 0) {
+      bytesRead = channel.read(buffer);
+    }
+    buffer.flip();
+    return buffer.remaining() >= blockAlign;
+  }
+
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The header of a WAV file, as written by <code>WavFileSink</code>. The header has a fixed size. It
+ * reserves space for the <code>ds64</code> chunk of an RF64 file (EBU Tech 3306) with a
+ * <code>JUNK</code> chunk, such that a file which grows beyond 4GB can be converted to RF64 by
+ * rewriting the header in place once its length is known. Files of up to 4GB remain plain WAV files.
+ */
+final class WavHeader {
+
+  static final int FORMAT_PCM = 1;
+  static final int FORMAT_IEEE_FLOAT = 3;
+  static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+  /** The size of the header, up to the samples of the <code>data</code> chunk. */
+  static final int SIZE = 80;
+
+  private static final int DS64_SIZE = 28;
+  private static final long MAX_CHUNK_SIZE = 0xFFFFFFFFL;
+
+  private WavHeader() {
+    // static methods only
+  }
+
+  /**
+   * Writes the header into the start of the buffer.
+   * @param header  A buffer with at least <code>SIZE</code> bytes remaining.
+   * @param dataBytes  The number of bytes of samples which follow the header.
+   */
+  static void write(ByteBuffer header, int formatTag, int channels, int sampleRate,
+      int bitsPerSample, long dataBytes) {
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    final int blockAlign = channels * (bitsPerSample / 8);
+    final long riffSize = SIZE - 8 + dataBytes + (dataBytes & 1L); // the data is padded to even length
+    final boolean isRf64 = riffSize > MAX_CHUNK_SIZE;
+    putTag(header, isRf64 ? "RF64" : "RIFF");
+    header.putInt((int) (isRf64 ? MAX_CHUNK_SIZE : riffSize));
+    putTag(header, "WAVE");
+    putTag(header, isRf64 ? "ds64" : "JUNK");
+    header.putInt(DS64_SIZE);
+    header.putLong(isRf64 ? riffSize : 0L);
+    header.putLong(isRf64 ? dataBytes : 0L);
+    header.putLong(isRf64 ? dataBytes / blockAlign : 0L);
+    header.putInt(0); // no table of other chunk sizes
+    putTag(header, "fmt ");
+    header.putInt(16);
+    header.putShort((short) formatTag);
+    header.putShort((short) channels);
+    header.putInt(sampleRate);
+    header.putInt(sampleRate * blockAlign);
+    header.putShort((short) blockAlign);
+    header.putShort((short) bitsPerSample);
+    putTag(header, "data");
+    header.putInt((int) (isRf64 ? MAX_CHUNK_SIZE : dataBytes));
+  }
+
+  private static void putTag(ByteBuffer buffer, String tag) {
+    for (int i = 0; i < 4; i++) {
+      buffer.put((byte) tag.charAt(i));
+    }
+  }
+}
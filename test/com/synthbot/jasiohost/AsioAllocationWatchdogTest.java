@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the strict mode of the <code>AsioAllocationWatchdog</code>, rendering offline with a
+ * <code>SimulatedAsioBackend</code>. A listener which allocates in one callback must not make the
+ * callback throw, as the native library would leave the error pending, but must fail the render and
+ * <code>assertNoAllocation()</code>.
+ */
+public class AsioAllocationWatchdogTest {
+
+  private static final int BUFFER_SIZE = 64;
+  private static final int ALLOCATING_CALLBACK = 3;
+
+  private SimulatedAsioBackend backend;
+  private AsioDriver driver;
+  private AsioAllocationWatchdog watchdog;
+  private int callbacks;
+  private volatile byte[] garbage; // keeps the allocation from being eliminated
+
+  @Before
+  public void setUp() {
+    backend = new SimulatedAsioBackend();
+    backend.setChannels(1, 1);
+    backend.setBufferSizes(BUFFER_SIZE, BUFFER_SIZE, BUFFER_SIZE, 1);
+    backend.setOffline(true);
+    AsioDriver.setBackend(backend);
+    driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+    watchdog = driver.getAllocationWatchdog();
+    assumeTrue(watchdog.isSupported());
+    watchdog.setEnabled(true);
+    watchdog.setStrict(true);
+    driver.addAsioDriverListener(new AsioDriverListener() {
+      public void sampleRateDidChange(double sampleRate) {}
+      public void resetRequest() {}
+      public void resyncRequest() {}
+      public void bufferSizeChanged(int bufferSize) {}
+      public void latenciesChanged(int inputLatency, int outputLatency) {}
+      public void bufferSwitch(long sampleTime, long samplePosition, Set<AsioChannel> activeChannels) {
+        if (++callbacks == ALLOCATING_CALLBACK) {
+          garbage = new byte[4096];
+        }
+      }
+    });
+    Set<AsioChannel> channels = new HashSet<AsioChannel>();
+    channels.add(driver.getChannelInput(0));
+    channels.add(driver.getChannelOutput(0));
+    driver.createBuffers(channels);
+    driver.start();
+  }
+
+  @After
+  public void tearDown() {
+    driver.shutdownAndUnloadDriver();
+  }
+
+  @Test
+  public void testCallbackDoesNotThrow() {
+    for (int i = 0; i < 2 * ALLOCATING_CALLBACK; i++) {
+      // as the native library calls it, which would not clear an exception
+      driver.fireBufferSwitch(System.nanoTime(), (long) i * BUFFER_SIZE, i & 1, 48000.0, 1.0, 0,
+          0.0, 0L, 0);
+    }
+    assertEquals(2 * ALLOCATING_CALLBACK, callbacks);
+    try {
+      watchdog.assertNoAllocation();
+      fail("The allocation was not recorded.");
+    } catch (AssertionError e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRenderThrows() throws IOException {
+    AssertionError failure = null;
+    try {
+      backend.render(10 * BUFFER_SIZE);
+    } catch (AssertionError e) {
+      failure = e;
+    }
+    if (failure == null) {
+      fail("The render did not fail.");
+    }
+    // the render stops at the callback which allocated
+    assertEquals(ALLOCATING_CALLBACK, callbacks);
+    try {
+      watchdog.assertNoAllocation();
+      fail("The allocation was not recorded.");
+    } catch (AssertionError e) {
+      assertSame(failure, e);
+    }
+  }
+}
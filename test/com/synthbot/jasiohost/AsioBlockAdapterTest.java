@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests an <code>AsioBlockAdapter</code> with blocks of 64 samples, rendering offline with a
+ * <code>SimulatedAsioBackend</code> of four inputs and four outputs, and buffers of 96 samples.
+ */
+public class AsioBlockAdapterTest {
+
+  private static final int BLOCK_SIZE = 64;
+  private static final int BUFFER_SIZE = 96;
+  private static final int FRAMES = 10 * BUFFER_SIZE;
+
+  private SimulatedAsioBackend backend;
+  private AsioDriver driver;
+  private float[][] rendered;
+  private int renderedLength;
+
+  @Before
+  public void setUp() {
+    backend = new SimulatedAsioBackend();
+    backend.setChannels(4, 4);
+    backend.setBufferSizes(BUFFER_SIZE, 4 * BUFFER_SIZE, BUFFER_SIZE, 1);
+    backend.setOffline(true);
+    AsioDriver.setBackend(backend);
+    driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+    // the first active input is 0.25, and the second is 0.5
+    backend.setInputSource(new AsioSampleSource() {
+      public int read(float[][] samples, int length) {
+        for (int i = 0; i < samples.length; i++) {
+          Arrays.fill(samples[i], 0, length, 0.25f * (i + 1));
+        }
+        return length;
+      }
+    });
+    rendered = new float[2][FRAMES];
+    backend.setOutputSink(new AsioSampleSink() {
+      public void write(float[][] samples, int length) {
+        for (int i = 0; i < samples.length; i++) {
+          System.arraycopy(samples[i], 0, rendered[i], renderedLength, length);
+        }
+        renderedLength += length;
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    driver.shutdownAndUnloadDriver();
+  }
+
+  @Test
+  public void testProcessesActiveChannels() throws IOException {
+    final int[] numChannels = new int[2];
+    AsioBlockAdapter adapter = new AsioBlockAdapter(driver, BLOCK_SIZE, new AsioBlockProcessor() {
+      public void processBlock(float[][] inputs, float[][] outputs, int blockSize) {
+        numChannels[0] = inputs.length;
+        numChannels[1] = outputs.length;
+        for (int i = 0; i < blockSize; i++) {
+          outputs[0][i] = inputs[0][i];
+          outputs[1][i] = inputs[0][i] + inputs[1][i];
+        }
+      }
+    });
+    driver.addAsioDriverListener(adapter);
+    Set<AsioChannel> channels = new HashSet<AsioChannel>();
+    channels.add(driver.getChannelInput(3));
+    channels.add(driver.getChannelInput(1));
+    channels.add(driver.getChannelOutput(2));
+    channels.add(driver.getChannelOutput(0));
+    driver.createBuffers(channels);
+    driver.start();
+    assertEquals(FRAMES, backend.render(FRAMES));
+
+    assertEquals(2, numChannels[0]);
+    assertEquals(2, numChannels[1]);
+    int latency = AsioBlockAdapter.getLatency(BUFFER_SIZE, BLOCK_SIZE);
+    assertEquals(32, latency);
+    assertEquals(latency, adapter.getLatency());
+    for (int i = 0; i < FRAMES; i++) {
+      assertEquals(i < latency ? 0.0f : 0.25f, rendered[0][i], 0.0f);
+      assertEquals(i < latency ? 0.0f : 0.75f, rendered[1][i], 0.0f);
+    }
+  }
+}
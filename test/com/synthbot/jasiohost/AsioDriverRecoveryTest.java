@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the automatic recovery of a session after a reset request of a <code>SimulatedAsioBackend</code>,
+ * which releases the driver on <code>ASIOExit()</code> as the native library does.
+ */
+public class AsioDriverRecoveryTest {
+
+  private SimulatedAsioBackend backend;
+  private AsioDriver driver;
+  private BlockingQueue<AsioRecoveryEvent> events;
+
+  @Before
+  public void setUp() {
+    backend = new SimulatedAsioBackend();
+    backend.setChannels(2, 2);
+    AsioDriver.setBackend(backend);
+    driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+    events = new ArrayBlockingQueue<AsioRecoveryEvent>(4);
+    driver.setAutoRecoveryEnabled(true);
+    driver.addRecoveryListener(new AsioRecoveryListener() {
+      public void driverRecovered(AsioRecoveryEvent event) {
+        events.add(event);
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    driver.shutdownAndUnloadDriver();
+  }
+
+  private AsioRecoveryEvent reset() throws InterruptedException {
+    backend.requestReset();
+    AsioRecoveryEvent event = events.poll(5, TimeUnit.SECONDS);
+    assertTrue("the driver was not recovered in time", event != null);
+    return event;
+  }
+
+  @Test
+  public void testRecoversInitializedDriver() throws InterruptedException {
+    AsioRecoveryEvent event = reset();
+    assertNull(event.getFailure());
+    assertEquals(AsioDriverState.INITIALIZED, driver.getCurrentState());
+  }
+
+  @Test
+  public void testRecoversRunningDriverRepeatedly() throws InterruptedException {
+    Set<AsioChannel> channels = new HashSet<AsioChannel>();
+    channels.add(driver.getChannelInput(0));
+    channels.add(driver.getChannelOutput(1));
+    driver.createBuffers(channels);
+    driver.start();
+    for (int i = 0; i < 2; i++) {
+      AsioRecoveryEvent event = reset();
+      assertNull(event.getFailure());
+      assertEquals(AsioDriverState.RUNNING, event.getRestoredState());
+      assertEquals(AsioDriverState.RUNNING, driver.getCurrentState());
+      assertTrue(driver.getChannelInput(0).isActive());
+      assertTrue(driver.getChannelOutput(1).isActive());
+    }
+  }
+
+  @Test
+  public void testRecoversNewBufferSize() throws InterruptedException {
+    Set<AsioChannel> channels = new HashSet<AsioChannel>();
+    channels.add(driver.getChannelOutput(0));
+    driver.createBuffers(channels);
+    int bufferSize = driver.getBufferPreferredSize();
+    backend.setBufferPreferredSize(2 * bufferSize);
+    AsioRecoveryEvent event = reset();
+    assertNull(event.getFailure());
+    assertEquals(bufferSize, event.getPreviousBufferSize());
+    assertEquals(2 * bufferSize, event.getBufferSize());
+    assertEquals(2 * bufferSize, driver.getBufferSize());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the classification of callbacks by the <code>AsioDropoutDetector</code>, for a buffer of 480
+ * samples at 48kHz, i.e. a period of 10ms.
+ */
+public class AsioDropoutDetectorTest {
+
+  private static final int BUFFER_SIZE = 480;
+  private static final long PERIOD = 10000000L;
+  private static final int VALID = AsioTimeInfo.SYSTEM_TIME_VALID | AsioTimeInfo.SAMPLE_POSITION_VALID;
+
+  private AsioDropoutDetector detector;
+  private AsioTimeInfo timeInfo;
+
+  @Before
+  public void setUp() {
+    detector = new AsioDropoutDetector(16);
+    detector.setLateThreshold(1.5);
+    detector.reset(PERIOD);
+    timeInfo = new AsioTimeInfo();
+  }
+
+  @Test
+  public void testRegularCallbacks() {
+    for (int i = 0; i < 100; i++) {
+      check(1000000000L + i * PERIOD, i * BUFFER_SIZE, VALID);
+    }
+    assertCounts(0, 0, 0);
+  }
+
+  @Test
+  public void testDropoutAndDiscontinuity() {
+    check(0L, 0L, VALID);
+    check(PERIOD, BUFFER_SIZE, VALID);
+    check(3 * PERIOD, 3 * BUFFER_SIZE, VALID); // one buffer skipped
+    check(4 * PERIOD, 4 * BUFFER_SIZE + 7, VALID);
+    assertCounts(1, 1, 0);
+  }
+
+  @Test
+  public void testLateCallback() {
+    check(1000000000L, 0L, VALID);
+    check(1000000000L + 2 * PERIOD, BUFFER_SIZE, VALID);
+    assertCounts(0, 0, 1);
+  }
+
+  @Test
+  public void testInvalidSystemTime() {
+    // a callback without a valid system time gives nothing to measure the next one against
+    check(1000000000L, 0L, VALID);
+    check(0L, BUFFER_SIZE, AsioTimeInfo.SAMPLE_POSITION_VALID);
+    check(1000000000L + 2 * PERIOD, 2 * BUFFER_SIZE, VALID);
+    check(1000000000L + 3 * PERIOD, 3 * BUFFER_SIZE, VALID);
+    assertCounts(0, 0, 0);
+    check(1000000000L + 5 * PERIOD, 4 * BUFFER_SIZE, VALID);
+    assertCounts(0, 0, 1);
+  }
+
+  @Test
+  public void testInvalidSamplePosition() {
+    check(0L, 0L, VALID);
+    check(PERIOD, 0L, AsioTimeInfo.SYSTEM_TIME_VALID);
+    check(5 * PERIOD, 5 * BUFFER_SIZE, VALID);
+    check(6 * PERIOD, 6 * BUFFER_SIZE, VALID);
+    assertCounts(0, 0, 0);
+  }
+
+  private void check(long systemTime, long samplePosition, int flags) {
+    timeInfo.set(systemTime, samplePosition, 0, 48000.0, 1.0, flags, 0.0, 0L, 0);
+    detector.check(timeInfo, BUFFER_SIZE);
+  }
+
+  private void assertCounts(long dropouts, long discontinuities, long lateCallbacks) {
+    assertEquals("dropouts", dropouts, detector.getDropoutCount());
+    assertEquals("discontinuities", discontinuities, detector.getDiscontinuityCount());
+    assertEquals("late callbacks", lateCallbacks, detector.getLateCallbackCount());
+  }
+}
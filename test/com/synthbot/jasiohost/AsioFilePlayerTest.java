@@ -0,0 +1,309 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Plays hand-made files offline through a <code>SimulatedAsioBackend</code> and checks every output
+ * sample. Each sample of a file encodes its frame and channel, such that the frame played at each
+ * index of the outputs can be asserted exactly, through loops, seeks, the ends of tracks and
+ * truncated files, and for outputs which are copied byte for byte as well as those which are
+ * converted.
+ */
+public class AsioFilePlayerTest {
+
+  private static final int BUFFER_SIZE = 16;
+  private static final int SAMPLE_RATE = 48000;
+  private static final int FRAMES = 100;
+  private static final int NUM_OUTPUTS = 3;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private AsioDriver driver;
+  private SimulatedAsioBackend backend;
+  private AsioFilePlayer player;
+  private Capture capture;
+
+  @After
+  public void tearDown() {
+    if (player != null) {
+      player.close();
+      player = null;
+    }
+    if (driver != null) {
+      driver.shutdownAndUnloadDriver();
+      driver = null;
+    }
+  }
+
+  @Test
+  public void testPlay() throws IOException {
+    // a stereo track and a shorter mono track, which is silent after its end
+    final int shortFrames = 40;
+    for (AsioSampleType type : new AsioSampleType[] {
+        AsioSampleType.ASIOSTInt16LSB, AsioSampleType.ASIOSTInt24LSB, AsioSampleType.ASIOSTFloat32LSB}) {
+      for (int bitsPerSample : new int[] {16, 24}) {
+        // the file is copied byte for byte, channel by channel for the stereo track, if it matches
+        String message = type.name() + ", " + bitsPerSample + " bits";
+        start(type);
+        player.addTrack(writeFile(bitsPerSample, FRAMES, FRAMES, 0, 1),
+            driver.getChannelOutput(0), driver.getChannelOutput(1));
+        player.addTrack(writeFile(bitsPerSample, shortFrames, shortFrames, 2),
+            driver.getChannelOutput(2));
+        assertEquals(message, FRAMES, player.getLength());
+        player.play();
+        assertEquals(message, 7 * BUFFER_SIZE, backend.render(7 * BUFFER_SIZE));
+        assertFalse(message, player.isPlaying());
+        assertEquals(message, FRAMES, player.getPosition());
+
+        long[] frames = range(0, FRAMES);
+        assertOutput(message, 0, frames, 7 * BUFFER_SIZE);
+        assertOutput(message, 1, frames, 7 * BUFFER_SIZE);
+        assertOutput(message, 2, range(0, shortFrames), 7 * BUFFER_SIZE);
+        tearDown();
+      }
+    }
+  }
+
+  @Test
+  public void testLoop() throws IOException {
+    // the loop ends in the middle of the fourth buffer, and then in the middle of other buffers
+    final int loopStart = 21;
+    final int loopEnd = 50;
+    start(AsioSampleType.ASIOSTInt16LSB);
+    player.addTrack(writeFile(16, FRAMES, FRAMES, 0, 1),
+        driver.getChannelOutput(0), driver.getChannelOutput(1));
+    player.setLoop(loopStart, loopEnd);
+    player.play();
+    backend.render(10 * BUFFER_SIZE);
+    long[] frames = new long[10 * BUFFER_SIZE];
+    long position = 0L;
+    for (int i = 0; i < frames.length; i++) {
+      frames[i] = position++;
+      if (position == loopEnd) {
+        position = loopStart;
+      }
+    }
+    assertEquals(position, player.getPosition());
+
+    // without the loop, playback continues from the position to the end
+    player.clearLoop();
+    backend.render(5 * BUFFER_SIZE);
+    frames = Arrays.copyOf(frames, frames.length + (int) (FRAMES - position));
+    for (int i = 10 * BUFFER_SIZE; i < frames.length; i++) {
+      frames[i] = position++;
+    }
+    assertOutput("loop", 0, frames, 15 * BUFFER_SIZE);
+    assertOutput("loop", 1, frames, 15 * BUFFER_SIZE);
+    assertFalse(player.isPlaying());
+  }
+
+  @Test
+  public void testSeek() throws IOException {
+    start(AsioSampleType.ASIOSTInt16LSB);
+    player.addTrack(writeFile(16, FRAMES, FRAMES, 0), driver.getChannelOutput(0));
+    // seeks in the second callback, after the player has played it
+    driver.addAsioDriverListener(new AsioDriverListener() {
+      public void sampleRateDidChange(double sampleRate) {}
+      public void resetRequest() {}
+      public void resyncRequest() {}
+      public void bufferSizeChanged(int bufferSize) {}
+      public void latenciesChanged(int inputLatency, int outputLatency) {}
+      public void bufferSwitch(long sampleTime, long samplePosition, Set<AsioChannel> activeChannels) {
+        if (samplePosition == BUFFER_SIZE) {
+          player.seek(70L);
+        }
+      }
+    });
+    player.play();
+    backend.render(3 * BUFFER_SIZE);
+    assertEquals(70L + BUFFER_SIZE, player.getPosition());
+
+    // a seek from the control thread is returned at once, and played from the next callback
+    player.seek(5L);
+    assertEquals(5L, player.getPosition());
+    backend.render(BUFFER_SIZE);
+    assertEquals(5L + BUFFER_SIZE, player.getPosition());
+
+    long[] frames = concat(range(0, 2 * BUFFER_SIZE), range(70, 70 + BUFFER_SIZE),
+        range(5, 5 + BUFFER_SIZE));
+    assertOutput("seek", 0, frames, 4 * BUFFER_SIZE);
+  }
+
+  @Test
+  public void testTruncated() throws IOException {
+    // the files end after 60 and a half frames, and their headers claim 100 frames
+    final int truncatedFrames = 60;
+    for (AsioSampleType type : new AsioSampleType[] {
+        AsioSampleType.ASIOSTInt24LSB, AsioSampleType.ASIOSTFloat32LSB}) {
+      start(type);
+      player.addTrack(writeFile(24, FRAMES, truncatedFrames, 0, 1),
+          driver.getChannelOutput(0), driver.getChannelOutput(1));
+      player.addTrack(writeFile(24, FRAMES, truncatedFrames, 2), driver.getChannelOutput(2));
+      assertEquals(FRAMES, player.getLength());
+      player.play();
+      backend.render(8 * BUFFER_SIZE);
+      // the tracks are silent after the end of the data, but play on to the length of the header
+      assertFalse(type.name(), player.isPlaying());
+      assertEquals(type.name(), FRAMES, player.getPosition());
+      for (int output = 0; output < NUM_OUTPUTS; output++) {
+        assertOutput(type.name(), output, range(0, truncatedFrames), 8 * BUFFER_SIZE);
+      }
+      tearDown();
+    }
+  }
+
+  /**
+   * Starts an offline driver with outputs of the given sample type, and a player.
+   */
+  private void start(AsioSampleType type) {
+    backend = new SimulatedAsioBackend();
+    backend.setChannels(0, NUM_OUTPUTS);
+    backend.setSampleType(type);
+    backend.setBufferSizes(BUFFER_SIZE, BUFFER_SIZE, BUFFER_SIZE, 1);
+    backend.setOffline(true);
+    capture = new Capture();
+    backend.setOutputSink(capture);
+    AsioDriver.setBackend(backend);
+    driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+    Set<AsioChannel> outputs = new HashSet<AsioChannel>();
+    for (int i = 0; i < NUM_OUTPUTS; i++) {
+      outputs.add(driver.getChannelOutput(i));
+    }
+    driver.createBuffers(outputs);
+    player = new AsioFilePlayer(driver);
+    driver.addAsioDriverListener(player);
+    driver.start();
+  }
+
+  /**
+   * Asserts that an output has played the given frames of its track, followed by silence.
+   */
+  private void assertOutput(String message, int output, long[] frames, int length) {
+    assertEquals(message, length, capture.length);
+    for (int i = 0; i < length; i++) {
+      long expected = (i < frames.length) ? getValue(frames[i], output) : 0L;
+      // the conversions between formats truncate by at most one 16-bit step, a quarter of the spacing
+      assertEquals(message + ", output " + output + ", sample " + i, expected,
+          Math.round(capture.samples[output][i] * 32768.0 / 4.0));
+    }
+  }
+
+  /**
+   * Returns the value which identifies the given frame of the channel played into the given output.
+   * It is stored in the file as a 16-bit sample of four times the value.
+   */
+  private static long getValue(long frame, int output) {
+    return frame + 1L + 1000L * output;
+  }
+
+  /**
+   * Writes a file whose samples encode their frame, and the output of their channel.
+   * @param frameCount  The number of frames claimed by the header.
+   * @param dataFrames  The number of frames written. If less than <code>frameCount</code>, then half of
+   * the next frame is also written.
+   * @param outputs  The output of each channel.
+   */
+  private File writeFile(int bitsPerSample, int frameCount, int dataFrames, int... outputs)
+      throws IOException {
+    final int bytesPerSample = bitsPerSample / 8;
+    final int blockAlign = outputs.length * bytesPerSample;
+    ByteBuffer bytes = ByteBuffer.allocate(WavHeader.SIZE + (dataFrames + 1) * blockAlign)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    WavHeader.write(bytes, WavHeader.FORMAT_PCM, outputs.length, SAMPLE_RATE, bitsPerSample,
+        (long) frameCount * blockAlign);
+    for (int i = 0; i < dataFrames; i++) {
+      for (int output : outputs) {
+        final int value = (int) (4L * getValue(i, output)) << (bitsPerSample - 16);
+        for (int b = 0; b < bytesPerSample; b++) {
+          bytes.put((byte) (value >> (8 * b)));
+        }
+      }
+    }
+    if (dataFrames < frameCount) {
+      bytes.put(new byte[blockAlign / 2]);
+    }
+    File file = folder.newFile();
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(bytes.array(), 0, bytes.position());
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static long[] range(long start, long end) {
+    long[] frames = new long[(int) (end - start)];
+    for (int i = 0; i < frames.length; i++) {
+      frames[i] = start + i;
+    }
+    return frames;
+  }
+
+  private static long[] concat(long[]... parts) {
+    long[] frames = new long[0];
+    for (long[] part : parts) {
+      final int length = frames.length;
+      frames = Arrays.copyOf(frames, length + part.length);
+      System.arraycopy(part, 0, frames, length, part.length);
+    }
+    return frames;
+  }
+
+  /**
+   * Collects the rendered outputs.
+   */
+  private static final class Capture implements AsioSampleSink {
+
+    private float[][] samples = new float[NUM_OUTPUTS][0];
+    private int length;
+
+    public void write(float[][] samples, int length) {
+      for (int c = 0; c < NUM_OUTPUTS; c++) {
+        this.samples[c] = Arrays.copyOf(this.samples[c], this.length + length);
+        System.arraycopy(samples[c], 0, this.samples[c], this.length, length);
+      }
+      this.length += length;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Records two inputs of a <code>SimulatedAsioBackend</code> offline with an <code>AsioRecorder</code>,
+ * for every PCM sample type. The ring is smaller than the recording, the writer thread is paused such
+ * that buffers are dropped when the ring is full, and data is written across the end of the ring. The
+ * files are compared byte for byte with the native bytes of the recorded buffers, converted to WAV by
+ * a reference implementation.
+ */
+public class AsioRecorderTest {
+
+  private static final int BUFFER_SIZE = 63; // odd, such that an odd number of buffers must be padded
+  private static final int RING_FRAMES = 2 * BUFFER_SIZE + 40; // the third buffer does not fit
+  private static final int SAMPLE_RATE = 48000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRecord() throws IOException, InterruptedException {
+    for (AsioSampleType type : AsioSampleType.values()) {
+      if (!type.isDsd()) {
+        record(type);
+      }
+    }
+  }
+
+  @Test
+  public void testRf64Header() {
+    // a recording of more than 4GB, which cannot be made in a test
+    long bytes = (1L << 32) + 4L;
+    ByteBuffer header = ByteBuffer.allocate(WavHeader.SIZE);
+    AsioRecorder.writeHeader(header, AsioSampleType.ASIOSTInt32LSB20, SAMPLE_RATE, bytes);
+    ByteBuffer expected = ByteBuffer.allocate(WavHeader.SIZE);
+    WavHeader.write(expected, WavHeader.FORMAT_PCM, 1, SAMPLE_RATE, 32, bytes);
+    assertEquals(expected.rewind(), header.rewind());
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals('R', header.get(0));
+    assertEquals('F', header.get(1));
+    assertEquals(WavHeader.SIZE - 8 + bytes, header.getLong(20));
+    assertEquals(bytes, header.getLong(28));
+    assertEquals(bytes / 4, header.getLong(36));
+
+    header.clear();
+    AsioRecorder.writeHeader(header, AsioSampleType.ASIOSTInt32LSB20, SAMPLE_RATE, 1L << 30);
+    assertEquals('I', header.get(1));
+  }
+
+  private void record(AsioSampleType type) throws IOException, InterruptedException {
+    SimulatedAsioBackend backend = new SimulatedAsioBackend();
+    backend.setSampleType(type);
+    backend.setBufferSizes(BUFFER_SIZE, BUFFER_SIZE, BUFFER_SIZE, 1);
+    backend.setOffline(true);
+    backend.setInputSource(new AsioSampleSource() {
+      private int frame;
+      public int read(float[][] samples, int length) {
+        for (int i = 0; i < length; i++, frame++) {
+          for (int c = 0; c < samples.length; c++) {
+            // different in each channel and buffer, and of both signs
+            samples[c][i] = ((frame * 37 + c * 101) % 251 - 125) / 128.0f;
+          }
+        }
+        return length;
+      }
+    });
+    AsioDriver.setBackend(backend);
+    AsioDriver driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+    try {
+      final AsioChannel[] inputs = {driver.getChannelInput(0), driver.getChannelInput(1)};
+      final ByteArrayOutputStream[] buffers = {new ByteArrayOutputStream(), new ByteArrayOutputStream()};
+      final boolean[] isRecorded = new boolean[1];
+      Set<AsioChannel> channels = new HashSet<AsioChannel>();
+      channels.add(inputs[0]);
+      channels.add(inputs[1]);
+      driver.createBuffers(channels);
+      // keeps the native bytes of the buffers which are expected to be recorded
+      driver.addAsioDriverListener(new AsioDriverListener() {
+        public void sampleRateDidChange(double sampleRate) {}
+        public void resetRequest() {}
+        public void resyncRequest() {}
+        public void bufferSizeChanged(int bufferSize) {}
+        public void latenciesChanged(int inputLatency, int outputLatency) {}
+        public void bufferSwitch(long sampleTime, long samplePosition, Set<AsioChannel> activeChannels) {
+          if (isRecorded[0]) {
+            for (int c = 0; c < 2; c++) {
+              ByteBuffer buffer = inputs[c].getByteBuffer(inputs[c].getBufferIndex());
+              byte[] bytes = new byte[buffer.capacity()];
+              ((ByteBuffer) buffer.duplicate().clear()).get(bytes);
+              buffers[c].write(bytes, 0, bytes.length);
+            }
+          }
+        }
+      });
+      AsioRecorder recorder = new AsioRecorder(driver, channels, folder.getRoot(), type.name(),
+          RING_FRAMES);
+      recorder.setWriterPaused(true);
+      recorder.start();
+      driver.start();
+
+      // buffers 0 and 1 fill the ring, and buffers 2 and 3 are dropped
+      render(backend, isRecorded, true, 2);
+      render(backend, isRecorded, false, 2);
+      recorder.setWriterPaused(false);
+      waitUntilEmpty(recorder);
+      // buffer 4 wraps around the end of the ring, buffer 5 fills it, and buffer 6 is dropped
+      recorder.setWriterPaused(true);
+      render(backend, isRecorded, true, 2);
+      render(backend, isRecorded, false, 1);
+      recorder.setWriterPaused(false);
+      waitUntilEmpty(recorder);
+      // buffer 7 is written on stopping
+      render(backend, isRecorded, true, 1);
+      recorder.stop();
+
+      String message = type.name();
+      assertEquals(message, 8, recorder.getBufferCount());
+      assertEquals(message, 3, recorder.getDroppedBufferCount());
+      assertEquals(message, 5 * BUFFER_SIZE, recorder.getRecordedFrameCount());
+      assertEquals(message, 2.0 * BUFFER_SIZE / RING_FRAMES, recorder.getMaxRingFillLevel(), 0.0);
+      assertEquals(message, 0.0, recorder.getRingFillLevel(), 0.0);
+      for (int c = 0; c < 2; c++) {
+        byte[] data = toWav(buffers[c].toByteArray(), type);
+        assertEquals(message, 5 * BUFFER_SIZE * type.getBytesPerSample(), data.length);
+        assertFile(message + " channel " + c, type, data, recorder.getFile(inputs[c]).toPath());
+        assertTrue(recorder.getFile(inputs[c]).getName().endsWith("-" + (c + 1) + ".wav"));
+      }
+    } finally {
+      driver.shutdownAndUnloadDriver();
+    }
+  }
+
+  private static void render(SimulatedAsioBackend backend, boolean[] isRecorded, boolean recorded,
+      int buffers) throws IOException {
+    isRecorded[0] = recorded;
+    assertEquals(buffers * BUFFER_SIZE, backend.render(buffers * BUFFER_SIZE));
+  }
+
+  private static void waitUntilEmpty(AsioRecorder recorder) throws InterruptedException {
+    long deadline = System.nanoTime() + 10000000000L;
+    while (recorder.getRingFillLevel() > 0.0) {
+      assertTrue("The writer did not drain the ring.", System.nanoTime() < deadline);
+      Thread.sleep(1L);
+    }
+  }
+
+  private static void assertFile(String message, AsioSampleType type, byte[] data, java.nio.file.Path path)
+      throws IOException {
+    ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+    int pad = data.length & 1;
+    assertEquals(message, WavHeader.SIZE + data.length + pad, file.capacity());
+    ByteBuffer expected = ByteBuffer.allocate(WavHeader.SIZE);
+    WavHeader.write(expected, type.isFloatingPoint() ? WavHeader.FORMAT_IEEE_FLOAT : WavHeader.FORMAT_PCM,
+        1, SAMPLE_RATE, 8 * type.getBytesPerSample(), data.length);
+    for (int i = 0; i < WavHeader.SIZE; i++) {
+      assertEquals(message + " header byte " + i, expected.get(i), file.get(i));
+    }
+    assertEquals(message, data.length + pad + WavHeader.SIZE - 8, file.getInt(4));
+    for (int i = 0; i < data.length; i++) {
+      assertEquals(message + " byte " + i, data[i], file.get(WavHeader.SIZE + i));
+    }
+    if (pad != 0) {
+      assertEquals(message + " pad", 0, file.get(file.capacity() - 1));
+    }
+  }
+
+  /**
+   * Converts native samples to the little-endian, left-justified samples of a WAV file.
+   */
+  private static byte[] toWav(byte[] bytes, AsioSampleType type) {
+    ByteBuffer src = ByteBuffer.wrap(bytes).order(type.getByteOrder());
+    ByteBuffer dst = ByteBuffer.allocate(bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+    int shift = 32 - getSignificantBits(type);
+    for (int i = 0; i < bytes.length; i += type.getBytesPerSample()) {
+      switch (type.getBytesPerSample()) {
+        case 2: {
+          dst.putShort(i, src.getShort(i));
+          break;
+        }
+        case 3: {
+          boolean isBigEndian = type.getByteOrder() == ByteOrder.BIG_ENDIAN;
+          for (int b = 0; b < 3; b++) {
+            dst.put(i + b, bytes[isBigEndian ? i + 2 - b : i + b]);
+          }
+          break;
+        }
+        case 4: {
+          dst.putInt(i, src.getInt(i) << shift);
+          break;
+        }
+        default: {
+          dst.putLong(i, src.getLong(i));
+        }
+      }
+    }
+    return dst.array();
+  }
+
+  /**
+   * Returns the number of significant bits of a 32-bit integer sample type, e.g. 20 for
+   * <code>ASIOSTInt32LSB20</code>, or 32 for the other 32-bit types.
+   */
+  private static int getSignificantBits(AsioSampleType type) {
+    String name = type.name();
+    if (name.startsWith("ASIOSTInt32")) {
+      for (int bits : new int[] {16, 18, 20, 24}) {
+        if (name.endsWith(Integer.toString(bits))) {
+          return bits;
+        }
+      }
+    }
+    return 32;
+  }
+}
@@ -0,0 +1,364 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the bulk conversions of every PCM <code>SampleCodec</code> against a scalar reference, which
+ * converts one sample at a time with the absolute accessors of <code>ByteBuffer</code>. Conversions must
+ * agree to the bit, for contiguous and interleaved arrays, and for <code>float</code> and
+ * <code>double</code> samples. Metered reads must also meter exactly as a separate pass over the samples.
+ */
+public class SampleCodecTest {
+
+  private static final int BUFFER_SIZE = 67; // odd, so that the 24-bit codecs leave a remainder
+  private static final int[] STRIDES = {1, 3};
+  private static final int READS = 40; // the number of buffers metered, which complete 22 windows
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  public void testWriteFloat() {
+    for (AsioSampleType type : pcmTypes()) {
+      for (int stride : STRIDES) {
+        ByteBuffer buffer = allocate(type);
+        SampleCodec codec = SampleCodec.create(type, buffer, allocate(type), new SampleQuantizer());
+        float[] src = randomFloats(stride * BUFFER_SIZE + 1);
+        codec.setBufferIndex(0);
+        codec.write(src, 1, stride, BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+          ByteBuffer expected = allocate(type);
+          putReference(expected, 0, type, src[1 + i * stride]);
+          assertSample(type, i, expected, buffer);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testWriteDouble() {
+    for (AsioSampleType type : pcmTypes()) {
+      for (int stride : STRIDES) {
+        ByteBuffer buffer = allocate(type);
+        SampleCodec codec = SampleCodec.create(type, buffer, allocate(type), new SampleQuantizer());
+        double[] src = randomDoubles(stride * BUFFER_SIZE + 1);
+        codec.setBufferIndex(0);
+        codec.write(src, 1, stride, BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+          ByteBuffer expected = allocate(type);
+          putReference(expected, 0, type, src[1 + i * stride]);
+          assertSample(type, i, expected, buffer);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReadFloat() {
+    for (AsioSampleType type : pcmTypes()) {
+      for (int stride : STRIDES) {
+        ByteBuffer buffer = randomBuffer(type);
+        SampleCodec codec = SampleCodec.create(type, allocate(type), buffer, new SampleQuantizer());
+        float[] dst = new float[stride * BUFFER_SIZE + 1];
+        codec.setBufferIndex(1);
+        codec.read(dst, 1, stride, BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+          float expected = (float) getReference(buffer, i, type, true);
+          assertEquals(type + " sample " + i, Float.floatToIntBits(expected),
+              Float.floatToIntBits(dst[1 + i * stride]));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReadDouble() {
+    for (AsioSampleType type : pcmTypes()) {
+      for (int stride : STRIDES) {
+        ByteBuffer buffer = randomBuffer(type);
+        SampleCodec codec = SampleCodec.create(type, allocate(type), buffer, new SampleQuantizer());
+        double[] dst = new double[stride * BUFFER_SIZE + 1];
+        codec.setBufferIndex(1);
+        codec.read(dst, 1, stride, BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+          double expected = getReference(buffer, i, type, false);
+          assertEquals(type + " sample " + i, Double.doubleToLongBits(expected),
+              Double.doubleToLongBits(dst[1 + i * stride]));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPartialWrites() {
+    // consecutive writes continue from the position of the last, and setBufferIndex() rewinds
+    for (AsioSampleType type : pcmTypes()) {
+      ByteBuffer buffer = allocate(type);
+      SampleCodec codec = SampleCodec.create(type, buffer, allocate(type), new SampleQuantizer());
+      float[] src = randomFloats(BUFFER_SIZE);
+      codec.setBufferIndex(0);
+      codec.write(new float[BUFFER_SIZE], 0, 1, BUFFER_SIZE);
+      codec.setBufferIndex(0);
+      for (int i = 0; i < BUFFER_SIZE; i += 5) {
+        codec.write(src, i, 1, Math.min(5, BUFFER_SIZE - i));
+      }
+      for (int i = 0; i < BUFFER_SIZE; i++) {
+        ByteBuffer expected = allocate(type);
+        putReference(expected, 0, type, src[i]);
+        assertSample(type, i, expected, buffer);
+      }
+    }
+  }
+
+  @Test
+  public void testReadMeteredFloat() {
+    // metering in the conversion loop must give the same samples and levels as metering afterwards
+    for (AsioSampleType type : pcmTypes()) {
+      for (int stride : STRIDES) {
+        ByteBuffer buffer = randomBuffer(type);
+        SampleCodec codec = SampleCodec.create(type, allocate(type), buffer, new SampleQuantizer());
+        AsioLevelMeter meter = createMeter();
+        AsioLevelMeter reference = createMeter();
+        float[] dst = new float[stride * BUFFER_SIZE + 1];
+        float[] expected = new float[stride * BUFFER_SIZE + 1];
+        for (int n = 0; n < READS; n++) {
+          codec.setBufferIndex(1);
+          codec.readMetered(dst, 1, stride, 40, meter);
+          codec.readMetered(dst, 1 + 40 * stride, stride, BUFFER_SIZE - 40, meter);
+          codec.setBufferIndex(1);
+          codec.read(expected, 1, stride, BUFFER_SIZE);
+          reference.process(expected, 1, stride, BUFFER_SIZE);
+          for (int i = 0; i < expected.length; i++) {
+            assertEquals(type + " sample " + i, Float.floatToIntBits(expected[i]),
+                Float.floatToIntBits(dst[i]));
+          }
+        }
+        assertLevels(type, reference, meter);
+      }
+    }
+  }
+
+  @Test
+  public void testReadMeteredDouble() {
+    for (AsioSampleType type : pcmTypes()) {
+      for (int stride : STRIDES) {
+        ByteBuffer buffer = randomBuffer(type);
+        SampleCodec codec = SampleCodec.create(type, allocate(type), buffer, new SampleQuantizer());
+        AsioLevelMeter meter = createMeter();
+        AsioLevelMeter reference = createMeter();
+        double[] dst = new double[stride * BUFFER_SIZE + 1];
+        double[] expected = new double[stride * BUFFER_SIZE + 1];
+        for (int n = 0; n < READS; n++) {
+          codec.setBufferIndex(1);
+          codec.readMetered(dst, 1, stride, 40, meter);
+          codec.readMetered(dst, 1 + 40 * stride, stride, BUFFER_SIZE - 40, meter);
+          codec.setBufferIndex(1);
+          codec.read(expected, 1, stride, BUFFER_SIZE);
+          reference.process(expected, 1, stride, BUFFER_SIZE);
+          for (int i = 0; i < expected.length; i++) {
+            assertEquals(type + " sample " + i, Double.doubleToLongBits(expected[i]),
+                Double.doubleToLongBits(dst[i]));
+          }
+        }
+        assertLevels(type, reference, meter);
+      }
+    }
+  }
+
+  /**
+   * Returns a meter whose windows, after the first of the default length, end part way through a buffer
+   * and through a single read.
+   */
+  private static AsioLevelMeter createMeter() {
+    AsioLevelMeter meter = new AsioLevelMeter();
+    meter.setWindowLength(29);
+    return meter;
+  }
+
+  private static void assertLevels(AsioSampleType type, AsioLevelMeter expected, AsioLevelMeter actual) {
+    AsioLevels e = expected.getLevels();
+    AsioLevels a = actual.getLevels();
+    assertEquals(type + " window", 22, a.getWindowIndex());
+    assertEquals(type + " window", e.getWindowIndex(), a.getWindowIndex());
+    assertEquals(type + " peak", Float.floatToIntBits(e.getPeak()), Float.floatToIntBits(a.getPeak()));
+    assertEquals(type + " RMS", Float.floatToIntBits(e.getRms()), Float.floatToIntBits(a.getRms()));
+    assertEquals(type + " true peak", Float.floatToIntBits(e.getTruePeak()),
+        Float.floatToIntBits(a.getTruePeak()));
+  }
+
+  private static AsioSampleType[] pcmTypes() {
+    AsioSampleType[] types = new AsioSampleType[AsioSampleType.values().length];
+    int n = 0;
+    for (AsioSampleType type : AsioSampleType.values()) {
+      if (type.getBytesPerSample() > 1) {
+        types[n++] = type;
+      }
+    }
+    return Arrays.copyOf(types, n);
+  }
+
+  private static ByteBuffer allocate(AsioSampleType type) {
+    return ByteBuffer.allocateDirect(BUFFER_SIZE * type.getBytesPerSample()).order(type.getByteOrder());
+  }
+
+  private ByteBuffer randomBuffer(AsioSampleType type) {
+    ByteBuffer buffer = allocate(type);
+    byte[] bytes = new byte[buffer.capacity()];
+    random.nextBytes(bytes);
+    buffer.put(bytes);
+    buffer.clear();
+    if (type.isFloatingPoint()) {
+      // random bit patterns are mostly huge or tiny, so use samples of a useful range instead
+      for (int i = 0; i < BUFFER_SIZE; i++) {
+        putReference(buffer, i, type, 2.0 * random.nextDouble() - 1.0);
+      }
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns samples mostly within full scale, along with out of range values, the extremes and
+   * <code>NaN</code>, all of which must be saturated identically by the codec and the reference.
+   */
+  private float[] randomFloats(int length) {
+    float[] x = new float[length];
+    for (int i = 0; i < length; i++) {
+      x[i] = (float) special(i, 2.4 * random.nextDouble() - 1.2);
+    }
+    return x;
+  }
+
+  private double[] randomDoubles(int length) {
+    double[] x = new double[length];
+    for (int i = 0; i < length; i++) {
+      x[i] = special(i, 2.4 * random.nextDouble() - 1.2);
+    }
+    return x;
+  }
+
+  private static double special(int i, double x) {
+    switch (i % 23) {
+      case 0: return 1.0;
+      case 5: return -1.0;
+      case 9: return 0.0;
+      case 13: return Double.NaN;
+      case 17: return 1e10;
+      case 19: return -1e10;
+      default: return x;
+    }
+  }
+
+  /** Writes one sample at <code>index</code>, as the sample type defines it. */
+  private static void putReference(ByteBuffer buffer, int index, AsioSampleType type, float x) {
+    if (type.isFloatingPoint()) {
+      putReference(buffer, index, type, (double) x);
+    } else {
+      float fullScale = (float) type.getFullScale();
+      int max = (int) fullScale;
+      putInteger(buffer, index, type, Math.max(-max - 1, Math.min(max, (int) (x * fullScale))));
+    }
+  }
+
+  private static void putReference(ByteBuffer buffer, int index, AsioSampleType type, double x) {
+    int position = index * type.getBytesPerSample();
+    if (type.getBytesPerSample() == 8) {
+      buffer.putDouble(position, x);
+    } else if (type.isFloatingPoint()) {
+      buffer.putFloat(position, (float) x);
+    } else {
+      double fullScale = type.getFullScale();
+      int max = (int) fullScale;
+      putInteger(buffer, index, type, Math.max(-max - 1, Math.min(max, (int) (x * fullScale))));
+    }
+  }
+
+  private static void putInteger(ByteBuffer buffer, int index, AsioSampleType type, int value) {
+    int position = index * type.getBytesPerSample();
+    switch (type.getBytesPerSample()) {
+      case 2: {
+        buffer.putShort(position, (short) value);
+        break;
+      }
+      case 3: {
+        boolean isLittleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        for (int b = 0; b < 3; b++) {
+          buffer.put(position + (isLittleEndian ? b : 2 - b), (byte) (value >> (8 * b)));
+        }
+        break;
+      }
+      default: {
+        buffer.putInt(position, value);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Reads one sample at <code>index</code>, scaled in single precision if <code>isFloat</code> is set,
+   * and otherwise in double precision.
+   */
+  private static double getReference(ByteBuffer buffer, int index, AsioSampleType type, boolean isFloat) {
+    int position = index * type.getBytesPerSample();
+    if (type.getBytesPerSample() == 8) {
+      return isFloat ? (float) buffer.getDouble(position) : buffer.getDouble(position);
+    } else if (type.isFloatingPoint()) {
+      return buffer.getFloat(position);
+    }
+    int value;
+    switch (type.getBytesPerSample()) {
+      case 2: {
+        value = buffer.getShort(position);
+        break;
+      }
+      case 3: {
+        boolean isLittleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        value = 0;
+        for (int b = 0; b < 3; b++) {
+          value |= (buffer.get(position + (isLittleEndian ? b : 2 - b)) & 0xFF) << (8 * b);
+        }
+        value = (value << 8) >> 8; // sign extend
+        break;
+      }
+      default: {
+        value = buffer.getInt(position);
+        break;
+      }
+    }
+    return isFloat ? value * (1.0f / (float) type.getFullScale()) : value * (1.0 / type.getFullScale());
+  }
+
+  private static void assertSample(AsioSampleType type, int index, ByteBuffer expected, ByteBuffer actual) {
+    int bytesPerSample = type.getBytesPerSample();
+    for (int b = 0; b < bytesPerSample; b++) {
+      assertEquals(type + " sample " + index + " byte " + b, expected.get(b),
+          actual.get(index * bytesPerSample + b));
+    }
+  }
+}
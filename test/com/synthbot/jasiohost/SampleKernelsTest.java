@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares <code>SampleKernels.packInt24()</code> and <code>unpackInt24()</code> against a byte by byte
+ * reference, in both byte orders, at word aligned and unaligned positions, and for every number of
+ * leftover samples.
+ */
+public class SampleKernelsTest {
+
+  private static final int MAX_LENGTH = 45;
+  private static final int CAPACITY = 3 * MAX_LENGTH + 8;
+  private static final ByteOrder[] ORDERS = {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN};
+
+  private final Random random = new Random(0x24);
+
+  @Test
+  public void testPackInt24() {
+    for (ByteOrder order : ORDERS) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(CAPACITY).order(order);
+      IntBuffer words = buffer.asIntBuffer();
+      int[] wordScratch = new int[words.capacity()];
+      for (int position = 0; position < 8; position++) {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+          int[] samples = randomSamples(length);
+          byte[] before = randomBytes(buffer);
+          buffer.position(position);
+          SampleKernels.packInt24(buffer, words, wordScratch, samples, length);
+
+          String message = order + " position " + position + " length " + length;
+          assertEquals(message, position + 3 * length, buffer.position());
+          byte[] expected = before.clone();
+          for (int i = 0; i < length; i++) {
+            putReference(expected, position + 3 * i, order, samples[i]);
+          }
+          for (int i = 0; i < CAPACITY; i++) {
+            // bytes outside of the packed samples must be left untouched
+            assertEquals(message + " byte " + i, expected[i], buffer.get(i));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUnpackInt24() {
+    for (ByteOrder order : ORDERS) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(CAPACITY).order(order);
+      IntBuffer words = buffer.asIntBuffer();
+      int[] wordScratch = new int[words.capacity()];
+      int[] samples = new int[MAX_LENGTH];
+      for (int position = 0; position < 8; position++) {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+          byte[] bytes = randomBytes(buffer);
+          buffer.position(position);
+          SampleKernels.unpackInt24(buffer, words, wordScratch, samples, length);
+
+          String message = order + " position " + position + " length " + length;
+          assertEquals(message, position + 3 * length, buffer.position());
+          for (int i = 0; i < length; i++) {
+            assertEquals(message + " sample " + i, getReference(bytes, position + 3 * i, order), samples[i]);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSignExtension() {
+    int[] extremes = {0, 1, -1, 0x7FFFFF, -0x800000, 0x123456, -0x123456, 0x800000 - 2, -2};
+    for (ByteOrder order : ORDERS) {
+      for (int position = 0; position < 4; position++) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CAPACITY).order(order);
+        IntBuffer words = buffer.asIntBuffer();
+        int[] wordScratch = new int[words.capacity()];
+        int[] unpacked = new int[extremes.length];
+        buffer.position(position);
+        SampleKernels.packInt24(buffer, words, wordScratch, extremes, extremes.length);
+        buffer.position(position);
+        SampleKernels.unpackInt24(buffer, words, wordScratch, unpacked, extremes.length);
+        for (int i = 0; i < extremes.length; i++) {
+          assertEquals(order + " position " + position + " sample " + i, extremes[i], unpacked[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testClipping() {
+    // out of range samples are saturated to the 24-bit range before they are packed
+    float[] src = {2.0f, -2.0f, 1.0f, -1.0f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NaN};
+    int[] expected = {0x7FFFFF, -0x800000, 0x7FFFFF, -0x7FFFFF, 0x7FFFFF, -0x800000, 0};
+    AsioSampleType[] types = {AsioSampleType.ASIOSTInt24LSB, AsioSampleType.ASIOSTInt24MSB};
+    for (AsioSampleType type : types) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(3 * src.length).order(type.getByteOrder());
+      ByteBuffer buffer1 = ByteBuffer.allocateDirect(3 * src.length).order(type.getByteOrder());
+      SampleCodec codec = SampleCodec.create(type, buffer, buffer1, new SampleQuantizer());
+      codec.setBufferIndex(0);
+      codec.write(src, 0, 1, src.length);
+      byte[] bytes = new byte[buffer.capacity()];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = buffer.get(i);
+      }
+      for (int i = 0; i < src.length; i++) {
+        assertEquals(type + " sample " + i, expected[i], getReference(bytes, 3 * i, type.getByteOrder()));
+      }
+    }
+  }
+
+  private int[] randomSamples(int length) {
+    int[] samples = new int[length];
+    for (int i = 0; i < length; i++) {
+      samples[i] = (random.nextInt() << 8) >> 8; // the full signed 24-bit range
+    }
+    return samples;
+  }
+
+  /** Fills <code>buffer</code> with random bytes, and returns a copy of them. */
+  private byte[] randomBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.capacity()];
+    random.nextBytes(bytes);
+    buffer.clear();
+    buffer.put(bytes);
+    buffer.clear();
+    return bytes;
+  }
+
+  private static void putReference(byte[] bytes, int position, ByteOrder order, int sample) {
+    for (int b = 0; b < 3; b++) {
+      bytes[position + (order == ByteOrder.LITTLE_ENDIAN ? b : 2 - b)] = (byte) (sample >> (8 * b));
+    }
+  }
+
+  private static int getReference(byte[] bytes, int position, ByteOrder order) {
+    int sample = 0;
+    for (int b = 0; b < 3; b++) {
+      sample |= (bytes[position + (order == ByteOrder.LITTLE_ENDIAN ? b : 2 - b)] & 0xFF) << (8 * b);
+    }
+    return (sample << 8) >> 8;
+  }
+}
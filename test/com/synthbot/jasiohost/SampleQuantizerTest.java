@@ -0,0 +1,199 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the saturation of every <code>AsioDitherType</code>, and the statistics of the dithered modes.
+ */
+public class SampleQuantizerTest {
+
+  private static final float FULL_SCALE = 0x7FFF;
+  private static final int LENGTH = 100000;
+
+  @Test
+  public void testSaturation() {
+    float[] src = {
+        2.0f, -2.0f, 1e10f, -1e10f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NaN};
+    int[] expected = {0x7FFF, -0x8000, 0x7FFF, -0x8000, 0x7FFF, -0x8000, 0};
+    double[] srcDouble = new double[src.length];
+    for (int i = 0; i < src.length; i++) {
+      srcDouble[i] = src[i];
+    }
+    for (AsioDitherType ditherType : AsioDitherType.values()) {
+      int[] dst = new int[src.length];
+      quantizer(ditherType).quantize(src, 0, 1, src.length, FULL_SCALE, dst);
+      assertArrayEquals(ditherType.toString(), expected, dst);
+      quantizer(ditherType).quantize(srcDouble, 0, 1, src.length, FULL_SCALE, dst);
+      assertArrayEquals(ditherType.toString(), expected, dst);
+    }
+  }
+
+  @Test
+  public void testRecoveryFromClipping() {
+    // neither NaN nor a long run of clipped samples may disturb the samples which follow them
+    float[] src = new float[2000];
+    for (int i = 0; i < 1000; i++) {
+      src[i] = (i == 500) ? Float.NaN : 4.0f;
+    }
+    for (AsioDitherType ditherType : AsioDitherType.values()) {
+      int[] dst = new int[src.length];
+      quantizer(ditherType).quantize(src, 0, 1, src.length, FULL_SCALE, dst);
+      for (int i = 1000; i < src.length; i++) {
+        assertTrue(ditherType + " sample " + i + " is " + dst[i], Math.abs(dst[i]) <= 2);
+      }
+    }
+  }
+
+  @Test
+  public void testStride() {
+    float[] interleaved = randomSignal(3 * LENGTH);
+    float[] contiguous = new float[LENGTH];
+    for (int i = 0; i < LENGTH; i++) {
+      contiguous[i] = interleaved[3 * i + 2];
+    }
+    for (AsioDitherType ditherType : AsioDitherType.values()) {
+      int[] expected = new int[LENGTH];
+      int[] actual = new int[LENGTH];
+      quantizer(ditherType).quantize(contiguous, 0, 1, LENGTH, FULL_SCALE, expected);
+      quantizer(ditherType).quantize(interleaved, 2, 3, LENGTH, FULL_SCALE, actual);
+      assertArrayEquals(ditherType.toString(), expected, actual);
+    }
+  }
+
+  @Test
+  public void testDoubleMatchesFloat() {
+    // the dithered modes compute in double precision, and so agree for samples representable as floats
+    float[] src = randomSignal(LENGTH);
+    double[] srcDouble = new double[LENGTH];
+    for (int i = 0; i < LENGTH; i++) {
+      srcDouble[i] = src[i];
+    }
+    AsioDitherType[] ditherTypes = {AsioDitherType.TPDF, AsioDitherType.TPDF_NOISE_SHAPED};
+    for (AsioDitherType ditherType : ditherTypes) {
+      int[] expected = new int[LENGTH];
+      int[] actual = new int[LENGTH];
+      quantizer(ditherType).quantize(src, 0, 1, LENGTH, FULL_SCALE, expected);
+      quantizer(ditherType).quantize(srcDouble, 0, 1, LENGTH, FULL_SCALE, actual);
+      assertArrayEquals(ditherType.toString(), expected, actual);
+    }
+  }
+
+  @Test
+  public void testTpdfStatistics() {
+    // a constant between two steps is rounded up or down at random, without bias
+    float[] src = new float[LENGTH];
+    Arrays.fill(src, 100.3f / FULL_SCALE);
+    int[] dst = new int[LENGTH];
+    quantizer(AsioDitherType.TPDF).quantize(src, 0, 1, LENGTH, FULL_SCALE, dst);
+    double sum = 0.0;
+    double sumOfSquares = 0.0;
+    for (int i = 0; i < LENGTH; i++) {
+      double error = dst[i] - (double) src[i] * FULL_SCALE;
+      assertTrue("sample " + i + " is " + dst[i], Math.abs(error) < 1.5);
+      sum += error;
+      sumOfSquares += error * error;
+    }
+    double mean = sum / LENGTH;
+    double rms = Math.sqrt(sumOfSquares / LENGTH - mean * mean);
+    assertEquals("mean error", 0.0, mean, 0.01);
+    // rounding (1/12 LSB^2) and triangular dither (1/6 LSB^2) together have an rms of 0.5 LSB
+    assertEquals("rms error", 0.5, rms, 0.01);
+  }
+
+  @Test
+  public void testTpdfIsUncorrelated() {
+    float[] src = randomSignal(LENGTH);
+    int[] dst = new int[LENGTH];
+    quantizer(AsioDitherType.TPDF).quantize(src, 0, 1, LENGTH, FULL_SCALE, dst);
+    double[] error = errors(src, dst);
+    assertEquals("rms error", 0.5, rms(error), 0.01);
+    assertEquals("error autocorrelation", 0.0, autocorrelation(error), 0.02);
+  }
+
+  @Test
+  public void testNoiseShaping() {
+    // first-order shaping gives a total error of e[n] - e[n-1], and so its running sum is bounded
+    float[] src = randomSignal(LENGTH);
+    int[] dst = new int[LENGTH];
+    quantizer(AsioDitherType.TPDF_NOISE_SHAPED).quantize(src, 0, 1, LENGTH, FULL_SCALE, dst);
+    double[] error = errors(src, dst);
+    double sum = 0.0;
+    for (int i = 0; i < LENGTH; i++) {
+      sum += error[i];
+      assertTrue("running error " + sum + " at sample " + i, Math.abs(sum) < 1.5);
+    }
+    // the noise is moved to high frequencies, where successive errors are negatively correlated
+    assertEquals("error autocorrelation", -0.5, autocorrelation(error), 0.05);
+  }
+
+  private static SampleQuantizer quantizer(AsioDitherType ditherType) {
+    SampleQuantizer quantizer = new SampleQuantizer();
+    quantizer.setDitherType(ditherType);
+    return quantizer;
+  }
+
+  /** Returns a random signal within [-0.9,0.9]. */
+  private static float[] randomSignal(int length) {
+    Random random = new Random(0xD17);
+    float[] x = new float[length];
+    for (int i = 0; i < length; i++) {
+      x[i] = (float) (1.8 * random.nextDouble() - 0.9);
+    }
+    return x;
+  }
+
+  private static double[] errors(float[] src, int[] dst) {
+    double[] error = new double[dst.length];
+    for (int i = 0; i < dst.length; i++) {
+      error[i] = dst[i] - (double) src[i] * FULL_SCALE;
+    }
+    return error;
+  }
+
+  private static double rms(double[] x) {
+    double sumOfSquares = 0.0;
+    for (double v : x) {
+      sumOfSquares += v * v;
+    }
+    return Math.sqrt(sumOfSquares / x.length);
+  }
+
+  /** Returns the normalized autocorrelation of <code>x</code> at a lag of one sample. */
+  private static double autocorrelation(double[] x) {
+    double r0 = 0.0;
+    double r1 = 0.0;
+    for (int i = 1; i < x.length; i++) {
+      r0 += x[i] * x[i];
+      r1 += x[i] * x[i - 1];
+    }
+    return r1 / r0;
+  }
+}
@@ -0,0 +1,349 @@
+/*
+ *  Copyright 2026 The JAsioHost contributors
+ *
+ *  This file is part of JAsioHost.
+ *
+ *  JAsioHost is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JAsioHost is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JAsioHost.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+
+package com.synthbot.jasiohost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Round trips samples through <code>WavFileSink</code> and <code>WavFileSource</code>, checks the headers
+ * written for WAV and RF64 files byte by byte, reads a hand-made <code>WAVE_FORMAT_EXTENSIBLE</code>
+ * file, and renders a file offline through a <code>SimulatedAsioBackend</code>.
+ */
+public class WavFileTest {
+
+  private static final int SAMPLE_RATE = 48000;
+  private static final int FRAMES = 101; // odd, so that 24-bit mono data must be padded
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    for (int bitsPerSample : new int[] {16, 24, 32}) {
+      for (int numChannels : new int[] {1, 2}) {
+        String message = bitsPerSample + " bits, " + numChannels + " channels";
+        float[][] samples = createSamples(numChannels, FRAMES);
+        File file = folder.newFile();
+        WavFileSink sink = new WavFileSink(file, numChannels, SAMPLE_RATE, bitsPerSample);
+        sink.write(samples, 40);
+        sink.write(new float[][] {
+            slice(samples[0], 40), slice(samples[numChannels - 1], 40)}, FRAMES - 40);
+        assertEquals(message, FRAMES, sink.getFrameCount());
+        sink.close();
+
+        long dataBytes = (long) FRAMES * numChannels * (bitsPerSample / 8);
+        ByteBuffer bytes = readFile(file);
+        assertEquals(message, WavHeader.SIZE + dataBytes + (dataBytes & 1L), bytes.capacity());
+        assertHeader(message, bytes, "RIFF", WavHeader.SIZE - 8 + dataBytes + (dataBytes & 1L));
+        assertTag(message, bytes, 12, "JUNK");
+        assertEquals(message, bitsPerSample == 32 ? WavHeader.FORMAT_IEEE_FLOAT : WavHeader.FORMAT_PCM,
+            bytes.getShort(56));
+        assertEquals(message, numChannels, bytes.getShort(58));
+        assertEquals(message, SAMPLE_RATE, bytes.getInt(60));
+        assertEquals(message, SAMPLE_RATE * numChannels * (bitsPerSample / 8), bytes.getInt(64));
+        assertEquals(message, bitsPerSample, bytes.getShort(70));
+        assertEquals(message, dataBytes, bytes.getInt(76) & 0xFFFFFFFFL);
+        if ((dataBytes & 1L) != 0L) {
+          assertEquals(message + " pad", 0, bytes.get(bytes.capacity() - 1));
+        }
+
+        WavFileSource source = new WavFileSource(file);
+        try {
+          assertEquals(message, numChannels, source.getNumChannels());
+          assertEquals(message, SAMPLE_RATE, source.getSampleRate());
+          assertEquals(message, bitsPerSample, source.getBitsPerSample());
+          assertEquals(message, bitsPerSample == 32, source.isFloatingPoint());
+          assertEquals(message, FRAMES, source.getFrameCount());
+          assertEquals(message, WavHeader.SIZE, source.getDataOffset());
+          float[][] read = new float[numChannels][FRAMES + 10];
+          assertEquals(message, FRAMES, source.read(read, FRAMES + 10));
+          assertEquals(message, -1, source.read(read, FRAMES + 10));
+          for (int c = 0; c < numChannels; c++) {
+            for (int i = 0; i < FRAMES; i++) {
+              assertEquals(message + " channel " + c + " frame " + i,
+                  Float.floatToIntBits(expected(samples[c][i], bitsPerSample)),
+                  Float.floatToIntBits(read[c][i]));
+            }
+          }
+        } finally {
+          source.close();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRf64() throws IOException {
+    // a file of more than 4GB, whose samples are truncated after the first few frames
+    final int numChannels = 2;
+    final long dataBytes = (5L << 30) + 4L * numChannels;
+    final long frameCount = dataBytes / (4 * numChannels);
+    ByteBuffer header = ByteBuffer.allocate(WavHeader.SIZE + 3 * 4 * numChannels);
+    WavHeader.write(header, WavHeader.FORMAT_IEEE_FLOAT, numChannels, SAMPLE_RATE, 32, dataBytes);
+    for (int i = 0; i < 3 * numChannels; i++) {
+      header.putFloat(i / 8.0f);
+    }
+    assertHeader("RF64", header, "RF64", 0xFFFFFFFFL);
+    assertTag("RF64", header, 12, "ds64");
+    assertEquals(28, header.getInt(16));
+    assertEquals(WavHeader.SIZE - 8 + dataBytes, header.getLong(20));
+    assertEquals(dataBytes, header.getLong(28));
+    assertEquals(frameCount, header.getLong(36));
+    assertTag("RF64", header, 72, "data");
+    assertEquals(0xFFFFFFFFL, header.getInt(76) & 0xFFFFFFFFL);
+
+    File file = writeFile(header);
+    WavFileSource source = new WavFileSource(file);
+    try {
+      assertEquals(frameCount, source.getFrameCount());
+      assertEquals(WavHeader.SIZE, source.getDataOffset());
+      float[][] read = new float[numChannels][8];
+      assertEquals(3, source.read(read, 8));
+      for (int i = 0; i < 3; i++) {
+        for (int c = 0; c < numChannels; c++) {
+          assertEquals((i * numChannels + c) / 8.0f, read[c][i], 0.0f);
+        }
+      }
+      assertEquals(-1, source.read(read, 8));
+    } finally {
+      source.close();
+    }
+  }
+
+  @Test
+  public void testExtensible() throws IOException {
+    // 24-bit PCM in a 40-byte fmt chunk, after an odd-sized chunk which must be skipped with its pad
+    ByteBuffer bytes = ByteBuffer.allocate(200).order(ByteOrder.LITTLE_ENDIAN);
+    putTag(bytes, "RIFF");
+    bytes.putInt(0); // completed below
+    putTag(bytes, "WAVE");
+    putTag(bytes, "LIST");
+    bytes.putInt(3);
+    bytes.put(new byte[] {1, 2, 3, 0});
+    putTag(bytes, "fmt ");
+    bytes.putInt(40);
+    bytes.putShort((short) WavHeader.FORMAT_EXTENSIBLE);
+    bytes.putShort((short) 2);
+    bytes.putInt(SAMPLE_RATE);
+    bytes.putInt(SAMPLE_RATE * 6);
+    bytes.putShort((short) 6);
+    bytes.putShort((short) 24);
+    bytes.putShort((short) 22); // the size of the extension
+    bytes.putShort((short) 24); // valid bits
+    bytes.putInt(3); // front left and right
+    bytes.putShort((short) WavHeader.FORMAT_PCM); // the sub-format GUID starts with the format tag
+    bytes.put(new byte[] {0x00, 0x00, 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00, (byte) 0xAA,
+        0x00, 0x38, (byte) 0x9B, 0x71});
+    putTag(bytes, "data");
+    bytes.putInt(12);
+    int[] values = {0x400000, -0x400000, 0x7FFFFF, -0x800000};
+    for (int value : values) {
+      bytes.put((byte) value);
+      bytes.put((byte) (value >> 8));
+      bytes.put((byte) (value >> 16));
+    }
+    bytes.putInt(4, bytes.position() - 8);
+    bytes.flip();
+
+    WavFileSource source = new WavFileSource(writeFile(bytes));
+    try {
+      assertEquals(2, source.getNumChannels());
+      assertEquals(24, source.getBitsPerSample());
+      assertFalse(source.isFloatingPoint());
+      assertEquals(2, source.getFrameCount());
+      float[][] read = new float[2][2];
+      assertEquals(2, source.read(read, 2));
+      assertEquals(0.5f, read[0][0], 0.0f);
+      assertEquals(-0.5f, read[1][0], 0.0f);
+      assertEquals(0x7FFFFF / 8388608.0f, read[0][1], 0.0f);
+      assertEquals(-1.0f, read[1][1], 0.0f);
+    } finally {
+      source.close();
+    }
+  }
+
+  @Test
+  public void testRenderEndsWithInput() throws IOException {
+    // the input ends part way through the third buffer, and only its frames reach the output
+    final int bufferSize = 64;
+    final int frames = 2 * bufferSize + 23;
+    float[][] samples = createSamples(2, frames);
+    File input = folder.newFile();
+    WavFileSink inputSink = new WavFileSink(input, 2, SAMPLE_RATE);
+    inputSink.write(samples, frames);
+    inputSink.close();
+
+    SimulatedAsioBackend backend = new SimulatedAsioBackend();
+    backend.setBufferSizes(bufferSize, bufferSize, bufferSize, 1);
+    backend.setOffline(true);
+    AsioDriver.setBackend(backend);
+    AsioDriver driver = AsioDriver.getDriver(SimulatedAsioBackend.DEFAULT_DRIVER_NAME);
+    final int[] callbacks = new int[1];
+    File output = folder.newFile();
+    WavFileSource source = new WavFileSource(input);
+    WavFileSink sink = new WavFileSink(output, 2, SAMPLE_RATE);
+    try {
+      final AsioChannel[] inputs = {driver.getChannelInput(0), driver.getChannelInput(1)};
+      final AsioChannel[] outputs = {driver.getChannelOutput(0), driver.getChannelOutput(1)};
+      driver.addAsioDriverListener(new AsioDriverListener() {
+        private final float[] block = new float[bufferSize];
+        public void sampleRateDidChange(double sampleRate) {}
+        public void resetRequest() {}
+        public void resyncRequest() {}
+        public void bufferSizeChanged(int bufferSize) {}
+        public void latenciesChanged(int inputLatency, int outputLatency) {}
+        public void bufferSwitch(long sampleTime, long samplePosition, Set<AsioChannel> activeChannels) {
+          callbacks[0]++;
+          for (int c = 0; c < 2; c++) {
+            inputs[c].read(block);
+            outputs[c].write(block);
+          }
+        }
+      });
+      Set<AsioChannel> channels = new HashSet<AsioChannel>();
+      for (int c = 0; c < 2; c++) {
+        channels.add(inputs[c]);
+        channels.add(outputs[c]);
+      }
+      driver.createBuffers(channels);
+      driver.start();
+      backend.setInputSource(source);
+      backend.setOutputSink(sink);
+      assertEquals(frames, backend.render(10 * bufferSize));
+      assertEquals(3, callbacks[0]);
+      assertEquals(0L, backend.render(10 * bufferSize)); // the input has ended
+      assertEquals(frames, sink.getFrameCount());
+    } finally {
+      source.close();
+      sink.close();
+      driver.shutdownAndUnloadDriver();
+    }
+
+    ByteBuffer bytes = readFile(output);
+    assertEquals(WavHeader.SIZE + 8L * frames, bytes.capacity());
+    WavFileSource rendered = new WavFileSource(output);
+    try {
+      assertEquals(frames, rendered.getFrameCount());
+      float[][] read = new float[2][frames];
+      assertEquals(frames, rendered.read(read, frames));
+      for (int c = 0; c < 2; c++) {
+        for (int i = 0; i < frames; i++) {
+          assertEquals("channel " + c + " frame " + i, samples[c][i], read[c][i], 0.0f);
+        }
+      }
+    } finally {
+      rendered.close();
+    }
+  }
+
+  /**
+   * Returns the sample which is read back after writing <code>x</code> with the given number of bits.
+   * Integer samples are written with a full scale of 2^(n-1)-1 and read with one of 2^(n-1).
+   */
+  private static float expected(float x, int bitsPerSample) {
+    switch (bitsPerSample) {
+      case 16: {
+        return Math.max(-32768, Math.min(32767, Math.round(x * 32767.0f))) / 32768.0f;
+      }
+      case 24: {
+        return Math.max(-8388608, Math.min(8388607, Math.round(x * 8388607.0f))) / 8388608.0f;
+      }
+      default: {
+        return x;
+      }
+    }
+  }
+
+  /**
+   * Returns a ramp for each channel, which spans full scale and goes beyond it at both ends.
+   */
+  private static float[][] createSamples(int numChannels, int frames) {
+    float[][] samples = new float[numChannels][frames];
+    for (int c = 0; c < numChannels; c++) {
+      for (int i = 0; i < frames; i++) {
+        samples[c][i] = (c == 0 ? 1.1f : -1.1f) * (2.0f * i / (frames - 1) - 1.0f);
+      }
+    }
+    return samples;
+  }
+
+  private static float[] slice(float[] samples, int offset) {
+    float[] slice = new float[samples.length - offset];
+    System.arraycopy(samples, offset, slice, 0, slice.length);
+    return slice;
+  }
+
+  private static void assertHeader(String message, ByteBuffer bytes, String riffTag, long riffSize) {
+    assertTag(message, bytes, 0, riffTag);
+    assertEquals(message, riffSize, bytes.getInt(4) & 0xFFFFFFFFL);
+    assertTag(message, bytes, 8, "WAVE");
+    assertTag(message, bytes, 48, "fmt ");
+    assertEquals(message, 16, bytes.getInt(52));
+    assertTag(message, bytes, 72, "data");
+  }
+
+  private static void assertTag(String message, ByteBuffer bytes, int index, String tag) {
+    for (int i = 0; i < 4; i++) {
+      assertEquals(message + " tag " + tag, (byte) tag.charAt(i), bytes.get(index + i));
+    }
+  }
+
+  private static void putTag(ByteBuffer bytes, String tag) {
+    for (int i = 0; i < 4; i++) {
+      bytes.put((byte) tag.charAt(i));
+    }
+  }
+
+  private static ByteBuffer readFile(File file) throws IOException {
+    ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    assertTrue(bytes.capacity() >= WavHeader.SIZE);
+    return bytes.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private File writeFile(ByteBuffer bytes) throws IOException {
+    File file = folder.newFile();
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(bytes.array(), 0, bytes.limit());
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+}